@@ -0,0 +1,26 @@
+#!/bin/sh
+# compila la aplicacion en el directorio indicado (out por
+# defecto). El codigo de src se compila con cualquier JDK 17 o
+# posterior; el nucleo vectorial (directorio vectorial) solo se
+# compila si el JDK incluye el modulo jdk.incubator.vector. Si
+# no se compila, o si se ejecuta sin el modulo, se usa el
+# nucleo escalar
+#
+# ejecucion con el nucleo vectorial:
+#   java --add-modules jdk.incubator.vector -cp out visualizador.AplicacionFiltrado
+# ejecucion sin el:
+#   java -cp out visualizador.AplicacionFiltrado
+set -e
+destino=${1:-out}
+mkdir -p "$destino"
+
+# codigo principal
+javac -encoding UTF-8 -d "$destino" $(find src -name '*.java')
+
+# nucleo vectorial, si el modulo esta disponible
+if java --list-modules 2>/dev/null | grep -q '^jdk.incubator.vector'; then
+   javac -encoding UTF-8 --add-modules jdk.incubator.vector -cp "$destino" \
+      -d "$destino" $(find vectorial -name '*.java')
+else
+   echo "modulo jdk.incubator.vector no disponible: se usara el nucleo escalar"
+fi
@@ -0,0 +1,252 @@
+package algoritmo;
+
+import imagen.AlmacenPixels;
+import imagen.Pixel;
+import imagen.Utilidades;
+import kmedias.KMedias;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * clase base para las estrategias que evitan calculos de
+ * distancias mediante cotas obtenidas con la desigualdad
+ * triangular. Trabaja sobre los colores distintos de la
+ * imagen, ponderados por su numero de pixels, igual que
+ * AlgoritmoHistograma. Las asignaciones son exactamente las
+ * del modo clasico: un centro solo se descarta cuando las
+ * cotas garantizan que esta estrictamente mas lejos que el
+ * asignado, con un margen que cubre los errores de redondeo
+ * acumulados en las cotas; cuando hay que comparar se usa la
+ * misma distancia cuadratica y, en caso de empate, se queda
+ * el centro de menor posicion
+ */
+public abstract class AlgoritmoAcotado extends EstrategiaAlgoritmo {
+   /**
+    * margen de seguridad para descartar centros con las
+    * cotas. Las distancias son como mucho raiz de 3, por lo
+    * que los errores de redondeo quedan muy por debajo
+    */
+   protected final static double margen = 1e-9;
+
+   /**
+    * colores distintos de la imagen con su numero de pixels
+    */
+   protected AlmacenPixels colores;
+
+   /**
+    * centro asignado a cada color
+    */
+   protected int[] etiquetas;
+
+   /**
+    * numero de centros
+    */
+   protected int k;
+
+   /**
+    * componentes de los centros de la iteracion actual
+    */
+   protected double[] centros;
+
+   /**
+    * distancia recorrida por cada centro desde la iteracion
+    * anterior
+    */
+   protected double[] desplazamientos;
+
+   /**
+    * numero de distancias calculadas en la iteracion actual
+    */
+   private long distanciasCalculadas;
+
+   /**
+    * componentes de los centros de la iteracion anterior
+    */
+   private double[] anteriores;
+
+   /**
+    * array de trabajo para las sumas de cada grupo
+    */
+   private double[] sumas;
+
+   /**
+    * array de trabajo con el peso de cada grupo
+    */
+   private long[] contadores;
+
+   /**
+    * componentes de los nuevos centros
+    */
+   private double[] medias;
+
+   /**
+    * se obtienen los colores distintos de la imagen; el
+    * resto de estructuras se reservan en la primera iteracion,
+    * cuando se conoce el numero de centros
+    *
+    * @param kmedias objeto que usa la estrategia
+    */
+   @Override
+   public void preparar(KMedias kmedias) {
+      colores = kmedias.obtenerImagen().convertirColoresDistintosAlmacen();
+      etiquetas = new int[colores.obtenerNumeroPixels()];
+      centros = null;
+   }
+
+   /**
+    * asigna cada color a su centro mas cercano usando las
+    * cotas y calcula las medias ponderadas de cada grupo
+    *
+    * @param lista centros al inicio de la iteracion
+    * @return centros al final de la iteracion
+    */
+   @Override
+   public List<Pixel> iterar(List<Pixel> lista) {
+      double[] nuevos = AlmacenPixels.convertirCentros(lista);
+      distanciasCalculadas = 0;
+
+      if (centros == null || centros.length != nuevos.length) {
+         // primera iteracion: se reservan las estructuras y
+         // se calculan todas las distancias
+         k = lista.size();
+         centros = nuevos;
+         anteriores = new double[3 * k];
+         desplazamientos = new double[k];
+         sumas = new double[3 * k];
+         contadores = new long[k];
+         medias = new double[3 * k];
+         inicializar();
+      }
+      else {
+         // se determina cuanto se ha movido cada centro y se
+         // actualizan las asignaciones a partir de las cotas
+         anteriores = centros;
+         centros = nuevos;
+         for (int j = 0; j < k; j++) {
+            desplazamientos[j] = distanciaEntreCentros(anteriores, j, centros, j);
+         }
+         asignar();
+      }
+      distanciasEvitadas = (long) etiquetas.length * k - distanciasCalculadas;
+
+      // medias ponderadas por el numero de pixels
+      Utilidades.calcularMedias(colores, etiquetas, centros, sumas, contadores, medias);
+
+      // los grupos vacios conservan su centro
+      List<Pixel> resultado = new ArrayList<>(k);
+      for (int j = 0; j < k; j++) {
+         if (contadores[j] == 0) {
+            resultado.add(lista.get(j));
+         }
+         else {
+            resultado.add(new Pixel(medias[3 * j], medias[3 * j + 1], medias[3 * j + 2]));
+         }
+      }
+      return resultado;
+   }
+
+   /**
+    * el error cuadratico no se calcula durante las iteraciones,
+    * ya que obligaria a calcular la distancia de cada color a su
+    * centro; se obtiene al consultarlo a partir de la ultima
+    * asignacion
+    *
+    * @return error cuadratico
+    */
+   @Override
+   public double obtenerErrorCuadratico() {
+      if (centros == null) {
+         return errorCuadratico;
+      }
+      double error = 0;
+      for (int i = 0; i < etiquetas.length; i++) {
+         int j = etiquetas[i];
+         error += colores.obtenerPeso(i) * colores.distanciaCuadratica(i,
+                 centros[3 * j], centros[3 * j + 1], centros[3 * j + 2]);
+      }
+      return error;
+   }
+
+   /**
+    * asignacion inicial: se calculan todas las distancias y
+    * se inicializan las cotas
+    */
+   protected abstract void inicializar();
+
+   /**
+    * actualiza las cotas con los desplazamientos de los
+    * centros y reasigna los colores, calculando solo las
+    * distancias que las cotas no permiten descartar
+    */
+   protected abstract void asignar();
+
+   /**
+    * distancia cuadratica entre un color y un centro, con la
+    * misma formula que el modo clasico. Todas las distancias
+    * entre colores y centros se calculan con este metodo, que
+    * lleva la cuenta de las calculadas en la iteracion
+    *
+    * @param i posicion del color
+    * @param j posicion del centro
+    * @return distancia cuadratica
+    */
+   protected double distanciaCuadratica(int i, int j) {
+      distanciasCalculadas++;
+      return colores.distanciaCuadratica(i, centros[3 * j], centros[3 * j + 1], centros[3 * j + 2]);
+   }
+
+   /**
+    * indica si el centro candidato debe sustituir al asignado:
+    * es estrictamente mas cercano o esta a la misma distancia
+    * y tiene menor posicion, como en el modo clasico
+    *
+    * @param distancia  distancia cuadratica al candidato
+    * @param candidato  posicion del candidato
+    * @param minima     distancia cuadratica al asignado
+    * @param asignado   posicion del asignado
+    * @return true si el candidato pasa a ser el asignado
+    */
+   protected static boolean mejora(double distancia, int candidato, double minima, int asignado) {
+      return distancia < minima || (distancia == minima && candidato < asignado);
+   }
+
+   /**
+    * distancia entre dos centros
+    *
+    * @param primeros componentes del primer conjunto de centros
+    * @param j1       posicion en el primer conjunto
+    * @param segundos componentes del segundo conjunto de centros
+    * @param j2       posicion en el segundo conjunto
+    * @return distancia euclidea
+    */
+   protected static double distanciaEntreCentros(double[] primeros, int j1,
+                                                 double[] segundos, int j2) {
+      double dr = primeros[3 * j1] - segundos[3 * j2];
+      double dv = primeros[3 * j1 + 1] - segundos[3 * j2 + 1];
+      double da = primeros[3 * j1 + 2] - segundos[3 * j2 + 2];
+      return Math.sqrt(dr * dr + dv * dv + da * da);
+   }
+
+   /**
+    * convierte una cota inferior a float redondeando hacia
+    * abajo, de forma que sigue siendo cota inferior
+    *
+    * @param valor cota a convertir
+    * @return cota en float, nunca mayor que el valor
+    */
+   protected static float redondearAbajo(double valor) {
+      float resultado = (float) valor;
+      return resultado > valor ? Math.nextDown(resultado) : resultado;
+   }
+
+   /**
+    * solo se usan los colores distintos de la imagen
+    *
+    * @return false
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return false;
+   }
+}
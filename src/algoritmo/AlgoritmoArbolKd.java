@@ -0,0 +1,497 @@
+package algoritmo;
+
+import imagen.AlmacenPixels;
+import imagen.Pixel;
+import kmedias.KMedias;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * clase que implementa el algoritmo de filtrado de Kanungo
+ * et al.: se construye una vez un arbol kd sobre los colores
+ * distintos de la imagen (ponderados por su numero de pixels)
+ * y cada nodo guarda la caja que contiene sus colores y la
+ * suma de sus componentes. En cada iteracion el arbol se
+ * recorre con una lista de centros candidatos que se va
+ * reduciendo: cuando solo queda uno, el nodo completo se
+ * asigna a ese centro usando las sumas guardadas, sin visitar
+ * sus colores. Un candidato solo se descarta cuando esta
+ * estrictamente mas lejos que otro de todos los puntos de la
+ * caja, con un margen para los redondeos, por lo que las
+ * asignaciones y los centros son exactamente los del modo
+ * clasico
+ */
+public class AlgoritmoArbolKd extends EstrategiaAlgoritmo {
+   /**
+    * numero maximo de colores en una hoja
+    */
+   private final static int tamHoja = 8;
+
+   /**
+    * margen para descartar candidatos: la diferencia de
+    * distancias cuadraticas debe superar el doble de este valor
+    */
+   private final static double margen = 1e-9;
+
+   /**
+    * colores distintos de la imagen con su numero de pixels
+    */
+   private AlmacenPixels colores;
+
+   /**
+    * posiciones de los colores ordenadas segun el arbol: cada
+    * nodo ocupa un tramo consecutivo
+    */
+   private int[] orden;
+
+   /**
+    * numero de nodos del arbol
+    */
+   private int numeroNodos;
+
+   /**
+    * primera posicion del tramo de cada nodo en orden
+    */
+   private int[] inicios;
+
+   /**
+    * posicion siguiente a la ultima del tramo de cada nodo
+    */
+   private int[] finales;
+
+   /**
+    * hijo izquierdo de cada nodo (-1 en las hojas)
+    */
+   private int[] izquierdos;
+
+   /**
+    * hijo derecho de cada nodo (-1 en las hojas)
+    */
+   private int[] derechos;
+
+   /**
+    * componentes minimas de la caja de cada nodo (3 por nodo)
+    */
+   private double[] minimos;
+
+   /**
+    * componentes maximas de la caja de cada nodo (3 por nodo)
+    */
+   private double[] maximos;
+
+   /**
+    * suma ponderada de las componentes de cada nodo (3 por nodo)
+    */
+   private double[] sumasNodos;
+
+   /**
+    * suma ponderada de los cuadrados de las componentes de
+    * cada nodo, para el error cuadratico
+    */
+   private double[] cuadradosNodos;
+
+   /**
+    * numero de pixels de cada nodo
+    */
+   private long[] pesosNodos;
+
+   /**
+    * profundidad maxima del arbol
+    */
+   private int profundidad;
+
+   /**
+    * listas de candidatos de cada nivel del recorrido
+    */
+   private int[][] candidatos;
+
+   /**
+    * componentes de los centros de la iteracion
+    */
+   private double[] centros;
+
+   /**
+    * sumas de componentes de cada grupo en la iteracion
+    */
+   private double[] sumas;
+
+   /**
+    * numero de pixels de cada grupo en la iteracion
+    */
+   private long[] contadores;
+
+   /**
+    * error acumulado en la iteracion
+    */
+   private double error;
+
+   /**
+    * distancias calculadas en la iteracion
+    */
+   private long distanciasCalculadas;
+
+   /**
+    * nodos visitados en la ultima iteracion
+    */
+   private long nodosVisitados;
+
+   /**
+    * se construye el arbol sobre los colores distintos
+    *
+    * @param kmedias objeto que usa la estrategia
+    */
+   @Override
+   public void preparar(KMedias kmedias) {
+      colores = kmedias.obtenerImagen().convertirColoresDistintosAlmacen();
+      int n = colores.obtenerNumeroPixels();
+      orden = new int[n];
+      for (int i = 0; i < n; i++) {
+         orden[i] = i;
+      }
+
+      // capacidad inicial; se amplia si hace falta
+      numeroNodos = 0;
+      profundidad = 0;
+      candidatos = null;
+      reservarNodos(Math.max(16, 2 * n / tamHoja));
+      construir(0, n, 0);
+   }
+
+   /**
+    * devuelve el numero de nodos visitados en la ultima
+    * iteracion
+    *
+    * @return nodos visitados
+    */
+   public long obtenerNodosVisitados() {
+      return nodosVisitados;
+   }
+
+   /**
+    * recorre el arbol filtrando los candidatos y calcula las
+    * medias ponderadas de cada grupo
+    *
+    * @param lista centros al inicio de la iteracion
+    * @return centros al final de la iteracion
+    */
+   @Override
+   public List<Pixel> iterar(List<Pixel> lista) {
+      int k = lista.size();
+      centros = AlmacenPixels.convertirCentros(lista);
+      if (candidatos == null || candidatos[0].length != k) {
+         candidatos = new int[profundidad + 1][k];
+         sumas = new double[3 * k];
+         contadores = new long[k];
+      }
+      Arrays.fill(sumas, 0);
+      Arrays.fill(contadores, 0);
+      error = 0;
+      distanciasCalculadas = 0;
+      nodosVisitados = 0;
+
+      // todos los centros son candidatos en la raiz
+      for (int j = 0; j < k; j++) {
+         candidatos[0][j] = j;
+      }
+      if (numeroNodos > 0) {
+         filtrar(0, 0, k);
+      }
+      errorCuadratico = error;
+      distanciasEvitadas = Math.max(0,
+              (long) colores.obtenerNumeroPixels() * k - distanciasCalculadas);
+
+      // los grupos vacios conservan su centro
+      List<Pixel> resultado = new ArrayList<>(k);
+      for (int j = 0; j < k; j++) {
+         if (contadores[j] == 0) {
+            resultado.add(lista.get(j));
+         }
+         else {
+            resultado.add(new Pixel(sumas[3 * j] / contadores[j],
+                    sumas[3 * j + 1] / contadores[j],
+                    sumas[3 * j + 2] / contadores[j]));
+         }
+      }
+      return resultado;
+   }
+
+   /**
+    * procesa un nodo con su lista de candidatos, que esta en
+    * candidatos[nivel] en orden creciente de posicion
+    *
+    * @param nodo            nodo a procesar
+    * @param nivel           profundidad del nodo
+    * @param numeroCandidatos numero de candidatos
+    */
+   private void filtrar(int nodo, int nivel, int numeroCandidatos) {
+      nodosVisitados++;
+      int[] lista = candidatos[nivel];
+
+      if (numeroCandidatos > 1) {
+         // candidato mas cercano al centro de la caja
+         int mejor = lista[0];
+         double minima = Double.MAX_VALUE;
+         for (int c = 0; c < numeroCandidatos; c++) {
+            int j = lista[c];
+            double distancia = 0;
+            for (int d = 0; d < 3; d++) {
+               double diferencia = 0.5 * (minimos[3 * nodo + d] + maximos[3 * nodo + d]) -
+                       centros[3 * j + d];
+               distancia += diferencia * diferencia;
+            }
+            if (distancia < minima) {
+               minima = distancia;
+               mejor = j;
+            }
+         }
+         distanciasCalculadas += numeroCandidatos;
+
+         // se descartan los candidatos que estan mas lejos que
+         // el mejor de todos los puntos de la caja; la lista se
+         // compacta conservando el orden
+         int quedan = 0;
+         for (int c = 0; c < numeroCandidatos; c++) {
+            int j = lista[c];
+            if (j == mejor || !dominado(nodo, mejor, j)) {
+               lista[quedan++] = j;
+            }
+         }
+         numeroCandidatos = quedan;
+      }
+
+      if (numeroCandidatos == 1) {
+         // el nodo completo pertenece al unico candidato
+         asignarNodo(nodo, lista[0]);
+      }
+      else if (izquierdos[nodo] < 0) {
+         // hoja: se asigna cada color por separado
+         asignarHoja(nodo, lista, numeroCandidatos);
+      }
+      else {
+         // los hijos parten de la lista filtrada
+         System.arraycopy(lista, 0, candidatos[nivel + 1], 0, numeroCandidatos);
+         filtrar(izquierdos[nodo], nivel + 1, numeroCandidatos);
+         System.arraycopy(lista, 0, candidatos[nivel + 1], 0, numeroCandidatos);
+         filtrar(derechos[nodo], nivel + 1, numeroCandidatos);
+      }
+   }
+
+   /**
+    * indica si un candidato esta estrictamente mas lejos que
+    * el mejor de todos los puntos de la caja de un nodo. Basta
+    * comprobar el vertice de la caja mas alejado en la
+    * direccion que va del mejor al candidato
+    *
+    * @param nodo      nodo cuya caja se comprueba
+    * @param mejor     candidato de referencia
+    * @param candidato candidato a comprobar
+    * @return true si se puede descartar
+    */
+   private boolean dominado(int nodo, int mejor, int candidato) {
+      // proyeccion del vertice sobre la direccion, respecto al
+      // punto medio de ambos centros
+      double proyeccion = 0;
+      for (int d = 0; d < 3; d++) {
+         double direccion = centros[3 * candidato + d] - centros[3 * mejor + d];
+         double vertice = direccion > 0 ? maximos[3 * nodo + d] : minimos[3 * nodo + d];
+         double medio = 0.5 * (centros[3 * candidato + d] + centros[3 * mejor + d]);
+         proyeccion += direccion * (vertice - medio);
+      }
+      return proyeccion < -margen;
+   }
+
+   /**
+    * asigna todos los colores de un nodo a un centro usando
+    * las sumas guardadas
+    *
+    * @param nodo  nodo a asignar
+    * @param grupo centro asignado
+    */
+   private void asignarNodo(int nodo, int grupo) {
+      double cuadradoCentro = 0;
+      double producto = 0;
+      for (int d = 0; d < 3; d++) {
+         double componente = centros[3 * grupo + d];
+         sumas[3 * grupo + d] += sumasNodos[3 * nodo + d];
+         cuadradoCentro += componente * componente;
+         producto += componente * sumasNodos[3 * nodo + d];
+      }
+      contadores[grupo] += pesosNodos[nodo];
+
+      // error: suma de |x|^2 - 2 c.x + |c|^2 ponderada
+      error += cuadradosNodos[nodo] - 2 * producto + pesosNodos[nodo] * cuadradoCentro;
+   }
+
+   /**
+    * asigna cada color de una hoja al candidato mas cercano,
+    * con el mismo criterio de desempate que el modo clasico
+    *
+    * @param nodo             hoja
+    * @param lista            candidatos en orden creciente
+    * @param numeroCandidatos numero de candidatos
+    */
+   private void asignarHoja(int nodo, int[] lista, int numeroCandidatos) {
+      for (int p = inicios[nodo]; p < finales[nodo]; p++) {
+         int i = orden[p];
+         int grupo = lista[0];
+         double minima = Double.MAX_VALUE;
+         for (int c = 0; c < numeroCandidatos; c++) {
+            int j = lista[c];
+            double distancia = colores.distanciaCuadratica(i, centros[3 * j],
+                    centros[3 * j + 1], centros[3 * j + 2]);
+            if (distancia < minima) {
+               minima = distancia;
+               grupo = j;
+            }
+         }
+         distanciasCalculadas += numeroCandidatos;
+
+         int peso = colores.obtenerPeso(i);
+         sumas[3 * grupo] += peso * colores.obtenerRojo(i);
+         sumas[3 * grupo + 1] += peso * colores.obtenerVerde(i);
+         sumas[3 * grupo + 2] += peso * colores.obtenerAzul(i);
+         contadores[grupo] += peso;
+         error += peso * minima;
+      }
+   }
+
+   /**
+    * construye el nodo que contiene el tramo indicado de orden
+    * y, si es necesario, sus hijos. Se divide por el punto
+    * medio de la caja en la componente de mayor amplitud
+    *
+    * @param desde primera posicion del tramo
+    * @param hasta posicion siguiente a la ultima
+    * @param nivel profundidad del nodo
+    * @return posicion del nodo creado
+    */
+   private int construir(int desde, int hasta, int nivel) {
+      if (numeroNodos == inicios.length) {
+         reservarNodos(2 * inicios.length);
+      }
+      int nodo = numeroNodos++;
+      profundidad = Math.max(profundidad, nivel);
+      inicios[nodo] = desde;
+      finales[nodo] = hasta;
+      izquierdos[nodo] = -1;
+      derechos[nodo] = -1;
+
+      // caja y sumas del nodo
+      for (int d = 0; d < 3; d++) {
+         minimos[3 * nodo + d] = Double.MAX_VALUE;
+         maximos[3 * nodo + d] = -Double.MAX_VALUE;
+         sumasNodos[3 * nodo + d] = 0;
+      }
+      cuadradosNodos[nodo] = 0;
+      pesosNodos[nodo] = 0;
+      for (int p = desde; p < hasta; p++) {
+         int i = orden[p];
+         int peso = colores.obtenerPeso(i);
+         for (int d = 0; d < 3; d++) {
+            double componente = componente(i, d);
+            minimos[3 * nodo + d] = Math.min(minimos[3 * nodo + d], componente);
+            maximos[3 * nodo + d] = Math.max(maximos[3 * nodo + d], componente);
+            sumasNodos[3 * nodo + d] += peso * componente;
+            cuadradosNodos[nodo] += peso * componente * componente;
+         }
+         pesosNodos[nodo] += peso;
+      }
+
+      // componente de mayor amplitud
+      int eje = 0;
+      for (int d = 1; d < 3; d++) {
+         if (maximos[3 * nodo + d] - minimos[3 * nodo + d] >
+                 maximos[3 * nodo + eje] - minimos[3 * nodo + eje]) {
+            eje = d;
+         }
+      }
+
+      // las hojas tienen pocos colores o una caja sin volumen
+      if (hasta - desde <= tamHoja || maximos[3 * nodo + eje] == minimos[3 * nodo + eje]) {
+         return nodo;
+      }
+
+      // particion por el punto medio: los colores con la
+      // componente minima quedan a la izquierda y los de la
+      // maxima a la derecha, por lo que ningun hijo queda vacio
+      double corte = 0.5 * (minimos[3 * nodo + eje] + maximos[3 * nodo + eje]);
+      int izquierda = desde;
+      int derecha = hasta - 1;
+      while (izquierda <= derecha) {
+         if (componente(orden[izquierda], eje) <= corte) {
+            izquierda++;
+         }
+         else {
+            int auxiliar = orden[izquierda];
+            orden[izquierda] = orden[derecha];
+            orden[derecha--] = auxiliar;
+         }
+      }
+
+      int hijoIzquierdo = construir(desde, izquierda, nivel + 1);
+      int hijoDerecho = construir(izquierda, hasta, nivel + 1);
+      izquierdos[nodo] = hijoIzquierdo;
+      derechos[nodo] = hijoDerecho;
+      return nodo;
+   }
+
+   /**
+    * obtiene una componente de un color del almacen
+    *
+    * @param i posicion del color
+    * @param d componente (0 rojo, 1 verde, 2 azul)
+    * @return valor de la componente
+    */
+   private double componente(int i, int d) {
+      switch (d) {
+         case 0:
+            return colores.obtenerRojo(i);
+         case 1:
+            return colores.obtenerVerde(i);
+         default:
+            return colores.obtenerAzul(i);
+      }
+   }
+
+   /**
+    * reserva (o amplia) los arrays de nodos
+    *
+    * @param capacidad numero de nodos a reservar
+    */
+   private void reservarNodos(int capacidad) {
+      if (numeroNodos == 0) {
+         inicios = new int[capacidad];
+         finales = new int[capacidad];
+         izquierdos = new int[capacidad];
+         derechos = new int[capacidad];
+         minimos = new double[3 * capacidad];
+         maximos = new double[3 * capacidad];
+         sumasNodos = new double[3 * capacidad];
+         cuadradosNodos = new double[capacidad];
+         pesosNodos = new long[capacidad];
+      }
+      else {
+         inicios = Arrays.copyOf(inicios, capacidad);
+         finales = Arrays.copyOf(finales, capacidad);
+         izquierdos = Arrays.copyOf(izquierdos, capacidad);
+         derechos = Arrays.copyOf(derechos, capacidad);
+         minimos = Arrays.copyOf(minimos, 3 * capacidad);
+         maximos = Arrays.copyOf(maximos, 3 * capacidad);
+         sumasNodos = Arrays.copyOf(sumasNodos, 3 * capacidad);
+         cuadradosNodos = Arrays.copyOf(cuadradosNodos, capacidad);
+         pesosNodos = Arrays.copyOf(pesosNodos, capacidad);
+      }
+   }
+
+   /**
+    * solo se usan los colores distintos de la imagen
+    *
+    * @return false
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return false;
+   }
+}
@@ -0,0 +1,227 @@
+package algoritmo;
+
+import java.util.Arrays;
+
+/**
+ * clase que implementa el algoritmo de Elkan: para cada color
+ * se guarda una cota superior de la distancia a su centro y
+ * una cota inferior de la distancia a cada centro, y ademas
+ * se calculan las distancias entre centros. Con ello se
+ * descartan la mayor parte de los calculos de distancias una
+ * vez que los centros se estabilizan. Necesita k cotas por
+ * color, que se guardan en float para reducir la memoria.
+ * Para no recorrer todas las cotas inferiores en cada
+ * iteracion, se guardan sumandoles el desplazamiento
+ * acumulado del centro en el momento de calcularlas: la cota
+ * vigente es el valor guardado menos el acumulado actual.
+ * Ademas, los demas centros se recorren ordenados por su
+ * distancia al asignado, parando en cuanto esa distancia
+ * supera el doble de la cota superior: a partir de ahi
+ * ningun centro puede estar mas cerca. Las cotas inferiores
+ * se guardan en un unico array, por lo que el numero de
+ * colores por el numero de centros no puede superar
+ * Integer.MAX_VALUE; para mas cotas debe usarse el algoritmo
+ * de Hamerly o el de Yinyang
+ */
+public class AlgoritmoElkan extends AlgoritmoAcotado {
+   /**
+    * cota superior de la distancia de cada color a su centro
+    */
+   private double[] cotasSuperiores;
+
+   /**
+    * cotas inferiores de la distancia de cada color a cada
+    * centro: k valores consecutivos por color
+    */
+   private float[] cotasInferiores;
+
+   /**
+    * desplazamiento total acumulado por cada centro
+    */
+   private double[] acumulados;
+
+   /**
+    * distancias entre centros (matriz k x k por filas)
+    */
+   private double[] distanciasCentros;
+
+   /**
+    * mitad de la distancia de cada centro a su centro mas
+    * cercano
+    */
+   private double[] semidistancias;
+
+   /**
+    * para cada centro, los demas ordenados por distancia: cada
+    * valor lleva en los 32 bits altos la distancia en float
+    * (redondeada hacia abajo) y en los bajos la posicion
+    */
+   private long[] vecinos;
+
+   /**
+    * se calculan todas las distancias y se inicializan las
+    * cotas con sus valores exactos
+    */
+   @Override
+   protected void inicializar() {
+      // el numero de cotas inferiores se calcula en long para
+      // detectar que no caben en un array
+      int n = etiquetas.length;
+      long numeroCotas = (long) n * k;
+      if (numeroCotas > Integer.MAX_VALUE) {
+         throw new IllegalArgumentException("demasiadas cotas para el algoritmo de Elkan (" +
+                 n + " colores por " + k + " centros): use HAMERLY o YINYANG");
+      }
+      cotasSuperiores = new double[n];
+      cotasInferiores = new float[(int) numeroCotas];
+      distanciasCentros = new double[k * k];
+      semidistancias = new double[k];
+      acumulados = new double[k];
+      vecinos = new long[k * (k - 1)];
+
+      for (int i = 0, base = 0; i < n; i++, base += k) {
+         int asignado = 0;
+         double minima = Double.MAX_VALUE;
+         for (int j = 0; j < k; j++) {
+            double distancia = distanciaCuadratica(i, j);
+            cotasInferiores[base + j] = redondearAbajo(Math.sqrt(distancia));
+            if (distancia < minima) {
+               minima = distancia;
+               asignado = j;
+            }
+         }
+         etiquetas[i] = asignado;
+         cotasSuperiores[i] = Math.sqrt(minima);
+      }
+   }
+
+   /**
+    * se actualizan las cotas con el desplazamiento de los
+    * centros y se reasigna cada color calculando solo las
+    * distancias a los centros que no se pueden descartar
+    */
+   @Override
+   protected void asignar() {
+      calcularDistanciasCentros();
+
+      // las cotas inferiores bajan con el desplazamiento
+      // acumulado de cada centro
+      for (int j = 0; j < k; j++) {
+         acumulados[j] += desplazamientos[j];
+      }
+
+      int n = etiquetas.length;
+      for (int i = 0, base = 0; i < n; i++, base += k) {
+         // el centro asignado se puede haber alejado
+         int asignado = etiquetas[i];
+         double cotaSuperior = cotasSuperiores[i] + desplazamientos[asignado];
+
+         // si la cota superior no llega a la mitad de la
+         // distancia al centro mas proximo, no puede cambiar
+         if (cotaSuperior + margen < semidistancias[asignado]) {
+            cotasSuperiores[i] = cotaSuperior;
+            continue;
+         }
+
+         // se recorren los centros por distancia al asignado
+         // inicial; solo pueden estar mas cerca del color los
+         // que esten a menos del doble de su distancia
+         int inicial = asignado;
+         double radio = cotaSuperior;
+         double minima = -1;
+         for (int p = inicial * (k - 1); p < (inicial + 1) * (k - 1); p++) {
+            if (0.5 * Float.intBitsToFloat((int) (vecinos[p] >>> 32)) > radio + margen) {
+               break;
+            }
+            int j = (int) vecinos[p];
+            if (j == asignado || descartable(cotaSuperior, base, asignado, j)) {
+               continue;
+            }
+
+            // se ajusta la cota superior y se vuelve a comprobar
+            if (minima < 0) {
+               minima = distanciaCuadratica(i, asignado);
+               cotaSuperior = Math.sqrt(minima);
+               radio = cotaSuperior;
+               guardarCotaInferior(base, asignado, cotaSuperior);
+               if (descartable(cotaSuperior, base, asignado, j)) {
+                  continue;
+               }
+            }
+
+            // no hay mas remedio que calcular la distancia
+            double distancia = distanciaCuadratica(i, j);
+            guardarCotaInferior(base, j, Math.sqrt(distancia));
+            if (mejora(distancia, j, minima, asignado)) {
+               asignado = j;
+               minima = distancia;
+               cotaSuperior = Math.sqrt(minima);
+            }
+         }
+
+         etiquetas[i] = asignado;
+         cotasSuperiores[i] = cotaSuperior;
+      }
+   }
+
+   /**
+    * indica si un centro esta con seguridad estrictamente mas
+    * lejos del color que su centro asignado
+    *
+    * @param cotaSuperior cota superior de la distancia al asignado
+    * @param base         posicion de las cotas del color
+    * @param asignado     centro asignado
+    * @param j            centro a comprobar
+    * @return true si se puede descartar
+    */
+   private boolean descartable(double cotaSuperior, int base, int asignado, int j) {
+      return cotaSuperior + margen < cotasInferiores[base + j] - acumulados[j] ||
+              cotaSuperior + margen < 0.5 * distanciasCentros[asignado * k + j];
+   }
+
+   /**
+    * guarda la cota inferior de la distancia de un color a un
+    * centro, sumandole el desplazamiento acumulado del centro
+    *
+    * @param base  posicion de las cotas del color
+    * @param j     centro
+    * @param cota  distancia (o cota inferior) al centro
+    */
+   private void guardarCotaInferior(int base, int j, double cota) {
+      cotasInferiores[base + j] = redondearAbajo(cota + acumulados[j]);
+   }
+
+   /**
+    * calcula las distancias entre todos los centros, la mitad
+    * de la distancia de cada uno al mas cercano y las listas
+    * de vecinos ordenadas por distancia
+    */
+   private void calcularDistanciasCentros() {
+      for (int j = 0; j < k; j++) {
+         semidistancias[j] = Double.MAX_VALUE;
+      }
+      for (int j1 = 0; j1 < k; j1++) {
+         distanciasCentros[j1 * k + j1] = 0;
+         for (int j2 = j1 + 1; j2 < k; j2++) {
+            double distancia = distanciaEntreCentros(centros, j1, centros, j2);
+            distanciasCentros[j1 * k + j2] = distancia;
+            distanciasCentros[j2 * k + j1] = distancia;
+            semidistancias[j1] = Math.min(semidistancias[j1], 0.5 * distancia);
+            semidistancias[j2] = Math.min(semidistancias[j2], 0.5 * distancia);
+         }
+      }
+
+      // las distancias son positivas, por lo que el orden de
+      // sus bits coincide con el de sus valores
+      for (int j1 = 0, p = 0; j1 < k; j1++) {
+         int desde = p;
+         for (int j2 = 0; j2 < k; j2++) {
+            if (j2 != j1) {
+               float clave = redondearAbajo(distanciasCentros[j1 * k + j2]);
+               vecinos[p++] = ((long) Float.floatToIntBits(clave) << 32) | j2;
+            }
+         }
+         Arrays.sort(vecinos, desde, p);
+      }
+   }
+}
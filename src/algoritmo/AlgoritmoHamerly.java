@@ -0,0 +1,144 @@
+package algoritmo;
+
+/**
+ * clase que implementa el algoritmo de Hamerly: para cada
+ * color solo se guarda una cota superior de la distancia a
+ * su centro y una cota inferior de la distancia al segundo
+ * centro mas cercano. Ocupa mucha menos memoria que el
+ * algoritmo de Elkan y resulta adecuado para valores de k
+ * pequeños y medios. Cuando las cotas no permiten descartar
+ * el resto de centros se calculan todas las distancias del
+ * color
+ */
+public class AlgoritmoHamerly extends AlgoritmoAcotado {
+   /**
+    * cota superior de la distancia de cada color a su centro
+    */
+   private double[] cotasSuperiores;
+
+   /**
+    * cota inferior de la distancia de cada color al segundo
+    * centro mas cercano
+    */
+   private double[] cotasInferiores;
+
+   /**
+    * mitad de la distancia de cada centro a su centro mas
+    * cercano
+    */
+   private double[] semidistancias;
+
+   /**
+    * se calculan todas las distancias y se inicializan las
+    * cotas con sus valores exactos
+    */
+   @Override
+   protected void inicializar() {
+      int n = etiquetas.length;
+      cotasSuperiores = new double[n];
+      cotasInferiores = new double[n];
+      semidistancias = new double[k];
+
+      for (int i = 0; i < n; i++) {
+         recorrerCentros(i);
+      }
+   }
+
+   /**
+    * se actualizan las cotas con el desplazamiento de los
+    * centros y solo se recorren todos los centros de los
+    * colores cuyas cotas no garantizan que siguen en su grupo
+    */
+   @Override
+   protected void asignar() {
+      calcularSemidistancias();
+
+      // mayor y segundo mayor desplazamiento: la cota inferior
+      // baja con el mayor desplazamiento de los centros
+      // distintos del asignado
+      int mayor = 0;
+      for (int j = 1; j < k; j++) {
+         if (desplazamientos[j] > desplazamientos[mayor]) {
+            mayor = j;
+         }
+      }
+      double segundoMayor = 0;
+      for (int j = 0; j < k; j++) {
+         if (j != mayor) {
+            segundoMayor = Math.max(segundoMayor, desplazamientos[j]);
+         }
+      }
+
+      for (int i = 0; i < etiquetas.length; i++) {
+         int asignado = etiquetas[i];
+         double cotaSuperior = cotasSuperiores[i] + desplazamientos[asignado];
+         double cotaInferior = cotasInferiores[i] -
+                 (asignado == mayor ? segundoMayor : desplazamientos[mayor]);
+         cotasSuperiores[i] = cotaSuperior;
+         cotasInferiores[i] = cotaInferior;
+
+         // ningun otro centro puede estar mas cerca si la cota
+         // superior no llega a la inferior ni a la mitad de la
+         // distancia al centro mas proximo
+         double limite = Math.max(cotaInferior, semidistancias[asignado]);
+         if (cotaSuperior + margen < limite) {
+            continue;
+         }
+
+         // se ajusta la cota superior y se vuelve a comprobar
+         cotaSuperior = Math.sqrt(distanciaCuadratica(i, asignado));
+         cotasSuperiores[i] = cotaSuperior;
+         if (cotaSuperior + margen < limite) {
+            continue;
+         }
+
+         // hay que recorrer todos los centros
+         recorrerCentros(i);
+      }
+   }
+
+   /**
+    * calcula la distancia de un color a todos los centros y
+    * fija su centro y sus cotas. El centro se elige igual que
+    * en el modo clasico: la menor distancia y, en caso de
+    * empate, la primera posicion
+    *
+    * @param i posicion del color
+    */
+   private void recorrerCentros(int i) {
+      int asignado = 0;
+      double minima = Double.MAX_VALUE;
+      double segunda = Double.MAX_VALUE;
+      for (int j = 0; j < k; j++) {
+         double distancia = distanciaCuadratica(i, j);
+         if (distancia < minima) {
+            segunda = minima;
+            minima = distancia;
+            asignado = j;
+         }
+         else if (distancia < segunda) {
+            segunda = distancia;
+         }
+      }
+      etiquetas[i] = asignado;
+      cotasSuperiores[i] = Math.sqrt(minima);
+      cotasInferiores[i] = Math.sqrt(segunda);
+   }
+
+   /**
+    * calcula la mitad de la distancia de cada centro al mas
+    * cercano
+    */
+   private void calcularSemidistancias() {
+      for (int j = 0; j < k; j++) {
+         semidistancias[j] = Double.MAX_VALUE;
+      }
+      for (int j1 = 0; j1 < k; j1++) {
+         for (int j2 = j1 + 1; j2 < k; j2++) {
+            double distancia = 0.5 * distanciaEntreCentros(centros, j1, centros, j2);
+            semidistancias[j1] = Math.min(semidistancias[j1], distancia);
+            semidistancias[j2] = Math.min(semidistancias[j2], distancia);
+         }
+      }
+   }
+}
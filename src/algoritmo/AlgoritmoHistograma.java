@@ -0,0 +1,76 @@
+package algoritmo;
+
+import imagen.AlmacenPixels;
+import imagen.Pixel;
+import imagen.Utilidades;
+import kmedias.KMedias;
+
+import java.util.List;
+
+/**
+ * clase para realizar las iteraciones sobre los colores
+ * distintos de la imagen en lugar de sobre todos sus
+ * pixels. Cada color lleva como peso su numero de pixels,
+ * de forma que los centros obtenidos son exactamente los
+ * mismos que recorriendo todos los pixels
+ */
+public class AlgoritmoHistograma extends EstrategiaAlgoritmo {
+   /**
+    * colores distintos de la imagen con su numero de pixels
+    */
+   private AlmacenPixels colores;
+
+   /**
+    * centro asignado a cada color; se reutiliza entre
+    * iteraciones
+    */
+   private int[] etiquetas;
+
+   /**
+    * se construye el histograma de colores una unica vez
+    *
+    * @param kmedias objeto que usa la estrategia
+    */
+   @Override
+   public void preparar(KMedias kmedias) {
+      colores = kmedias.obtenerImagen().convertirColoresDistintosAlmacen();
+      colores.establecerPrecision(kmedias.obtenerPrecision());
+      etiquetas = new int[colores.obtenerNumeroPixels()];
+   }
+
+   /**
+    * asigna cada color al centro mas cercano y calcula la
+    * media ponderada de cada grupo
+    *
+    * @param centros centros al inicio de la iteracion
+    * @return centros al final de la iteracion
+    */
+   @Override
+   public List<Pixel> iterar(List<Pixel> centros) {
+      double[] componentes = AlmacenPixels.convertirCentros(centros);
+
+      // asignacion de cada color distinto; el error se
+      // pondera por el numero de pixels del color
+      double error = 0;
+      colores.asignarBloque(0, etiquetas.length, componentes, etiquetas, 0);
+      for (int i = 0; i < etiquetas.length; i++) {
+         int grupo = etiquetas[i];
+         error += colores.obtenerPeso(i) * colores.distanciaCuadratica(i,
+                 componentes[3 * grupo], componentes[3 * grupo + 1], componentes[3 * grupo + 2]);
+      }
+      errorCuadratico = error;
+
+      // medias ponderadas por el numero de pixels
+      return Utilidades.calcularMedias(colores, etiquetas, centros);
+   }
+
+   /**
+    * solo se usan los colores distintos de la imagen
+    *
+    * @return false
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return false;
+   }
+}
@@ -0,0 +1,245 @@
+package algoritmo;
+
+import imagen.AlmacenPixels;
+import imagen.ComponentesRGBA;
+import imagen.Pixel;
+import imagen.RGBA;
+import kmedias.KMedias;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * clase que implementa el algoritmo de k-medias por mini lotes
+ * (Sculley): en lugar de recorrer todos los pixels, cada
+ * pasada toma un lote de pixels elegidos al azar, los asigna
+ * a su centro mas cercano y acerca cada centro a sus pixels
+ * con una tasa de aprendizaje propia, la inversa del numero
+ * de pixels que ha recibido hasta el momento. En cada
+ * iteracion se realizan varias pasadas. El resultado es
+ * aproximado, pero el coste no depende del tamaño de la
+ * imagen, por lo que sirve para obtener paletas rapidas en
+ * imagenes grandes. Los colores de cada lote se leen
+ * directamente de los datos de la imagen, sin construir el
+ * almacen de pixels
+ */
+public class AlgoritmoMiniLotes extends EstrategiaAlgoritmo {
+   /**
+    * tamaño de lote predeterminado
+    */
+   public final static int tamLotePredeterminado = 1024;
+
+   /**
+    * numero predeterminado de pasadas por iteracion
+    */
+   public final static int pasadasPredeterminadas = 10;
+
+   /**
+    * numero de pixels de cada lote
+    */
+   private final int tamLote;
+
+   /**
+    * numero de lotes procesados en cada iteracion
+    */
+   private final int pasadas;
+
+   /**
+    * generador de posiciones aleatorias
+    */
+   private final Random generador;
+
+   /**
+    * colores de los pixels de la imagen
+    */
+   private int[] datos;
+
+   /**
+    * componentes de los pixels del lote actual: rojo, verde
+    * y azul de cada pixel, consecutivos
+    */
+   private double[] lote;
+
+   /**
+    * centro asignado a cada pixel del lote
+    */
+   private int[] etiquetas;
+
+   /**
+    * componentes de los centros, que se actualizan en cada
+    * pasada
+    */
+   private double[] centros;
+
+   /**
+    * numero de pixels recibidos por cada centro desde el
+    * inicio; su inversa es la tasa de aprendizaje
+    */
+   private long[] contadores;
+
+   /**
+    * constructor de la clase con semilla aleatoria
+    *
+    * @param tamLote numero de pixels de cada lote
+    * @param pasadas numero de lotes por iteracion
+    */
+   public AlgoritmoMiniLotes(int tamLote, int pasadas) {
+      this(tamLote, pasadas, new Random());
+   }
+
+   /**
+    * constructor con semilla fija, para elegir siempre los
+    * mismos lotes
+    *
+    * @param tamLote numero de pixels de cada lote
+    * @param pasadas numero de lotes por iteracion
+    * @param semilla semilla del generador
+    */
+   public AlgoritmoMiniLotes(int tamLote, int pasadas, long semilla) {
+      this(tamLote, pasadas, new Random(semilla));
+   }
+
+   /**
+    * constructor comun
+    *
+    * @param tamLote   numero de pixels de cada lote
+    * @param pasadas   numero de lotes por iteracion
+    * @param generador generador de posiciones aleatorias
+    */
+   private AlgoritmoMiniLotes(int tamLote, int pasadas, Random generador) {
+      if (tamLote < 1) {
+         throw new IllegalArgumentException("tamaño de lote no valido: " + tamLote);
+      }
+      if (pasadas < 1) {
+         throw new IllegalArgumentException("numero de pasadas no valido: " + pasadas);
+      }
+      this.tamLote = tamLote;
+      this.pasadas = pasadas;
+      this.generador = generador;
+   }
+
+   /**
+    * devuelve el tamaño de lote
+    *
+    * @return numero de pixels de cada lote
+    */
+   public int obtenerTamLote() {
+      return tamLote;
+   }
+
+   /**
+    * devuelve el numero de pasadas por iteracion
+    *
+    * @return numero de lotes por iteracion
+    */
+   public int obtenerPasadas() {
+      return pasadas;
+   }
+
+   /**
+    * el algoritmo solo lee los pixels de cada lote, que toma
+    * directamente de los datos de la imagen
+    *
+    * @return false
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return false;
+   }
+
+   /**
+    * se obtienen los colores de la imagen y se reservan los
+    * arrays del lote; los centros se reservan en la primera
+    * iteracion
+    *
+    * @param kmedias objeto que usa la estrategia
+    */
+   @Override
+   public void preparar(KMedias kmedias) {
+      datos = kmedias.obtenerImagen().obtenerDatos();
+      lote = new double[3 * tamLote];
+      etiquetas = new int[tamLote];
+      centros = null;
+   }
+
+   /**
+    * realiza las pasadas de la iteracion: en cada una se
+    * elige un lote, se asigna cada pixel del lote a su centro
+    * con los centros del inicio de la pasada y despues se
+    * mueve cada centro hacia sus pixels
+    *
+    * @param lista centros al inicio de la iteracion
+    * @return centros al final de la iteracion
+    */
+   @Override
+   public List<Pixel> iterar(List<Pixel> lista) {
+      int k = lista.size();
+      if (centros == null || centros.length != 3 * k) {
+         // primera iteracion: los contadores empiezan en 0
+         contadores = new long[k];
+      }
+      centros = AlmacenPixels.convertirCentros(lista);
+
+      // sin pixels no hay lotes: los centros no cambian
+      int n = datos.length;
+      if (n == 0) {
+         errorCuadratico = 0;
+         distanciasEvitadas = 0;
+         return lista;
+      }
+
+      double error = 0;
+      for (int pasada = 0; pasada < pasadas; pasada++) {
+         // se eligen los pixels del lote y se asignan; los
+         // lotes se toman con reemplazamiento
+         error = 0;
+         for (int b = 0; b < tamLote; b++) {
+            int color = datos[generador.nextInt(n)];
+            double rojo = RGBA.obtenerComponente(color, ComponentesRGBA.ROJO);
+            double verde = RGBA.obtenerComponente(color, ComponentesRGBA.VERDE);
+            double azul = RGBA.obtenerComponente(color, ComponentesRGBA.AZUL);
+            int grupo = AlmacenPixels.obtenerMasCercano(rojo, verde, azul, centros);
+            lote[3 * b] = rojo;
+            lote[3 * b + 1] = verde;
+            lote[3 * b + 2] = azul;
+            etiquetas[b] = grupo;
+            double dr = rojo - centros[3 * grupo];
+            double dv = verde - centros[3 * grupo + 1];
+            double da = azul - centros[3 * grupo + 2];
+            error += dr * dr + dv * dv + da * da;
+         }
+
+         // cada centro se acerca a sus pixels con tasa
+         // 1 / numero de pixels recibidos
+         for (int b = 0; b < tamLote; b++) {
+            int j = etiquetas[b];
+            double tasa = 1.0 / ++contadores[j];
+            int base = 3 * j;
+            centros[base] += tasa * (lote[3 * b] - centros[base]);
+            centros[base + 1] += tasa * (lote[3 * b + 1] - centros[base + 1]);
+            centros[base + 2] += tasa * (lote[3 * b + 2] - centros[base + 2]);
+         }
+      }
+
+      // el error cuadratico se estima con el ultimo lote,
+      // escalado al numero de pixels de la imagen
+      errorCuadratico = error * n / tamLote;
+
+      // distancias no calculadas respecto a una iteracion
+      // completa sobre todos los pixels
+      distanciasEvitadas = Math.max(0, ((long) n - (long) tamLote * pasadas) * k);
+
+      // los centros que no han recibido pixels se conservan
+      List<Pixel> resultado = new ArrayList<>(k);
+      for (int j = 0; j < k; j++) {
+         if (contadores[j] == 0) {
+            resultado.add(lista.get(j));
+         }
+         else {
+            resultado.add(new Pixel(centros[3 * j], centros[3 * j + 1], centros[3 * j + 2]));
+         }
+      }
+      return resultado;
+   }
+}
@@ -0,0 +1,308 @@
+package algoritmo;
+
+import imagen.AlmacenPixels;
+import imagen.Pixel;
+import kmedias.KMedias;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * clase para realizar las iteraciones en paralelo mediante
+ * fork/join. Los pixels se dividen en tramos y cada tarea
+ * asigna los pixels de su tramo al centro mas cercano y, en
+ * la misma pasada, acumula las sumas de componentes, el
+ * numero de pixels y el error cuadratico de cada grupo. Los
+ * resultados parciales se combinan por parejas siguiendo el
+ * arbol de division de las tareas. Las componentes son
+ * multiplos de 1/256, por lo que las sumas son exactas y los
+ * centros coinciden con los del modo clasico
+ */
+public class AlgoritmoParalelo extends EstrategiaAlgoritmo {
+   /**
+    * tamaño minimo de tramo: por debajo no compensa dividir
+    */
+   private final static int minimoTramo = 1 << 14;
+
+   /**
+    * numero de tramos por hilo, para repartir mejor la carga
+    */
+   private final static int tramosHilo = 4;
+
+   /**
+    * conjuntos de hilos compartidos, uno por cada numero de
+    * hilos usado. Sus hilos son de tipo daemon y quedan libres
+    * entre ejecuciones, por lo que no hace falta cerrarlos
+    */
+   private final static ConcurrentHashMap<Integer, ForkJoinPool> conjuntos =
+           new ConcurrentHashMap<>();
+
+   /**
+    * numero de hilos a usar
+    */
+   private final int hilos;
+
+   /**
+    * conjunto de hilos donde se ejecutan las tareas; null con
+    * un unico hilo, que trabaja en el hilo que llama
+    */
+   private final ForkJoinPool hilosTrabajo;
+
+   /**
+    * pixels de la imagen
+    */
+   private AlmacenPixels pixels;
+
+   /**
+    * etiqueta (centro asignado) de cada pixel; se reserva una
+    * vez en preparar y cada tarea escribe en su tramo
+    */
+   private int[] etiquetas;
+
+   /**
+    * tamaño de tramo por debajo del cual las tareas ya no se
+    * dividen
+    */
+   private int tamTramo;
+
+   /**
+    * constructor de la clase
+    *
+    * @param hilos numero de hilos a usar
+    */
+   public AlgoritmoParalelo(int hilos) {
+      if (hilos < 1) {
+         throw new IllegalArgumentException("numero de hilos no valido: " + hilos);
+      }
+      this.hilos = hilos;
+      hilosTrabajo = hilos == 1 ? null : conjuntos.computeIfAbsent(hilos, ForkJoinPool::new);
+   }
+
+   /**
+    * devuelve el numero de hilos usados
+    *
+    * @return numero de hilos
+    */
+   public int obtenerHilos() {
+      return hilos;
+   }
+
+   /**
+    * se obtienen los pixels, se reservan las etiquetas y se
+    * fija el tamaño de tramo
+    *
+    * @param kmedias objeto que usa la estrategia
+    */
+   @Override
+   public void preparar(KMedias kmedias) {
+      pixels = kmedias.obtenerPixels();
+      etiquetas = new int[pixels.obtenerNumeroPixels()];
+      tamTramo = Math.max(minimoTramo,
+              pixels.obtenerNumeroPixels() / (hilos * tramosHilo));
+
+      // con un hilo no se divide: el tramo son todos los pixels
+      if (hilos == 1) {
+         tamTramo = Math.max(pixels.obtenerNumeroPixels(), 1);
+      }
+   }
+
+   /**
+    * asigna cada pixel al centro mas cercano y calcula los
+    * nuevos centros en una unica pasada paralela
+    *
+    * @param centros centros al inicio de la iteracion
+    * @return centros al final de la iteracion
+    */
+   @Override
+   public List<Pixel> iterar(List<Pixel> centros) {
+      double[] componentes = AlmacenPixels.convertirCentros(centros);
+
+      // se lanza la tarea raiz sobre todos los pixels; con un
+      // hilo se procesa directamente en el hilo que llama
+      Tarea raiz = new Tarea(pixels, etiquetas, componentes, tamTramo, 0,
+              pixels.obtenerNumeroPixels());
+      Parcial total = hilosTrabajo == null ? raiz.compute() : hilosTrabajo.invoke(raiz);
+      errorCuadratico = total.error;
+
+      // se calculan los nuevos centros; los grupos vacios
+      // conservan su centro
+      List<Pixel> medias = new ArrayList<>(centros.size());
+      for (int j = 0; j < centros.size(); j++) {
+         long contador = total.contadores[j];
+         if (contador == 0) {
+            medias.add(centros.get(j));
+         }
+         else {
+            medias.add(new Pixel(total.sumas[3 * j] / contador,
+                    total.sumas[3 * j + 1] / contador,
+                    total.sumas[3 * j + 2] / contador));
+         }
+      }
+
+      // se devuelven los nuevos centros
+      return medias;
+   }
+
+   /**
+    * resultado parcial de un tramo de pixels: sumas de
+    * componentes, numero de pixels y error de cada grupo
+    */
+   private static class Parcial {
+      /**
+       * sumas de componentes (rojo, verde y azul) por grupo
+       */
+      private final double[] sumas;
+
+      /**
+       * numero de pixels de cada grupo
+       */
+      private final long[] contadores;
+
+      /**
+       * suma de distancias cuadraticas de los pixels a su centro
+       */
+      private double error;
+
+      /**
+       * constructor de la clase
+       *
+       * @param k numero de grupos
+       */
+      private Parcial(int k) {
+         sumas = new double[3 * k];
+         contadores = new long[k];
+      }
+
+      /**
+       * incorpora a este resultado el de otro tramo
+       *
+       * @param otro resultado a incorporar
+       * @return este resultado, ya combinado
+       */
+      private Parcial combinar(Parcial otro) {
+         for (int c = 0; c < sumas.length; c++) {
+            sumas[c] += otro.sumas[c];
+         }
+         for (int j = 0; j < contadores.length; j++) {
+            contadores[j] += otro.contadores[j];
+         }
+         error += otro.error;
+         return this;
+      }
+   }
+
+   /**
+    * tarea que procesa un tramo de pixels, dividiendolo en dos
+    * mitades mientras sea mayor que el tamaño de tramo
+    */
+   private static class Tarea extends RecursiveTask<Parcial> {
+      /**
+       * identificador de version para la serializacion
+       */
+      private static final long serialVersionUID = 1L;
+
+      /**
+       * pixels de la imagen
+       */
+      private final transient AlmacenPixels pixels;
+
+      /**
+       * etiquetas de todos los pixels
+       */
+      private final int[] etiquetas;
+
+      /**
+       * componentes de los centros
+       */
+      private final double[] centros;
+
+      /**
+       * tamaño de tramo por debajo del cual no se divide
+       */
+      private final int tamTramo;
+
+      /**
+       * primer pixel del tramo (incluido)
+       */
+      private final int desde;
+
+      /**
+       * ultimo pixel del tramo (excluido)
+       */
+      private final int hasta;
+
+      /**
+       * constructor de la clase
+       *
+       * @param pixels    pixels de la imagen
+       * @param etiquetas etiquetas de todos los pixels
+       * @param centros   componentes de los centros
+       * @param tamTramo  tamaño de tramo minimo para dividir
+       * @param desde     primer pixel del tramo
+       * @param hasta     ultimo pixel del tramo (excluido)
+       */
+      private Tarea(AlmacenPixels pixels, int[] etiquetas, double[] centros,
+                    int tamTramo, int desde, int hasta) {
+         this.pixels = pixels;
+         this.etiquetas = etiquetas;
+         this.centros = centros;
+         this.tamTramo = tamTramo;
+         this.desde = desde;
+         this.hasta = hasta;
+      }
+
+      /**
+       * procesa el tramo o lo divide en dos
+       *
+       * @return resultado parcial del tramo
+       */
+      @Override
+      protected Parcial compute() {
+         if (hasta - desde <= tamTramo) {
+            return procesar();
+         }
+
+         // se divide en dos mitades: la primera se lanza en
+         // otro hilo y la segunda se procesa en este
+         int mitad = (desde + hasta) >>> 1;
+         Tarea primera = new Tarea(pixels, etiquetas, centros, tamTramo, desde, mitad);
+         primera.fork();
+         Parcial segunda = new Tarea(pixels, etiquetas, centros, tamTramo,
+                 mitad, hasta).compute();
+         return primera.join().combinar(segunda);
+      }
+
+      /**
+       * asigna y acumula los pixels del tramo en una pasada
+       *
+       * @return resultado parcial del tramo
+       */
+      private Parcial procesar() {
+         Parcial parcial = new Parcial(centros.length / 3);
+         double[] sumas = parcial.sumas;
+         long[] contadores = parcial.contadores;
+         double error = 0;
+
+         // asignacion del tramo con el nucleo de distancias,
+         // sobre su parte del vector de etiquetas
+         pixels.asignarBloque(desde, hasta, centros, etiquetas, desde);
+
+         for (int i = desde; i < hasta; i++) {
+            int grupo = etiquetas[i];
+            int peso = pixels.obtenerPeso(i);
+            sumas[3 * grupo] += peso * pixels.obtenerRojo(i);
+            sumas[3 * grupo + 1] += peso * pixels.obtenerVerde(i);
+            sumas[3 * grupo + 2] += peso * pixels.obtenerAzul(i);
+            contadores[grupo] += peso;
+            error += peso * pixels.distanciaCuadratica(i, centros[3 * grupo],
+                    centros[3 * grupo + 1], centros[3 * grupo + 2]);
+         }
+
+         parcial.error = error;
+         return parcial;
+      }
+   }
+}
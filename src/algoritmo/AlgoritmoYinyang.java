@@ -0,0 +1,363 @@
+package algoritmo;
+
+import java.util.Arrays;
+
+/**
+ * clase que implementa el algoritmo Yinyang: los centros se
+ * reparten en grupos (unos k / 10) al empezar, y para cada
+ * color se guarda una cota superior de la distancia a su
+ * centro, una cota inferior por grupo y una cota inferior
+ * global. En cada iteracion se aplican tres filtros: el
+ * global descarta todos los centros, el de grupo descarta
+ * grupos completos y el local descarta centros sueltos dentro
+ * de los grupos que hay que revisar. Esta pensado para
+ * paletas grandes (k de 128 a 500). Como en Elkan, las cotas
+ * de grupo se guardan en float sumandoles el desplazamiento
+ * acumulado del grupo
+ */
+public class AlgoritmoYinyang extends AlgoritmoAcotado {
+   /**
+    * numero aproximado de centros por grupo
+    */
+   private final static int centrosGrupo = 10;
+
+   /**
+    * iteraciones para agrupar los centros iniciales
+    */
+   private final static int iteracionesGrupos = 5;
+
+   /**
+    * numero de grupos
+    */
+   private int t;
+
+   /**
+    * grupo de cada centro
+    */
+   private int[] grupos;
+
+   /**
+    * centros de cada grupo, consecutivos por grupo
+    */
+   private int[] miembros;
+
+   /**
+    * posicion en miembros donde empieza cada grupo (t + 1
+    * valores)
+    */
+   private int[] inicioGrupo;
+
+   /**
+    * cota superior de la distancia de cada color a su centro
+    */
+   private double[] cotasSuperiores;
+
+   /**
+    * cota inferior de la distancia de cada color a cualquier
+    * centro distinto del suyo
+    */
+   private double[] cotasGlobales;
+
+   /**
+    * cota inferior de la distancia de cada color a los centros
+    * de cada grupo (sin contar su centro): t valores por color,
+    * sumandoles el desplazamiento acumulado del grupo
+    */
+   private float[] cotasGrupos;
+
+   /**
+    * mayor desplazamiento de los centros de cada grupo en la
+    * iteracion actual
+    */
+   private double[] desplazamientosGrupos;
+
+   /**
+    * desplazamiento acumulado de cada grupo
+    */
+   private double[] acumulados;
+
+   /**
+    * menor cota de cada grupo revisado para el color actual
+    */
+   private double[] primeras;
+
+   /**
+    * centro con la menor cota de cada grupo revisado
+    */
+   private int[] posicionesPrimeras;
+
+   /**
+    * segunda menor cota de cada grupo revisado
+    */
+   private double[] segundas;
+
+   /**
+    * grupos revisados para el color actual
+    */
+   private int[] revisados;
+
+   /**
+    * se agrupan los centros, se calculan todas las distancias
+    * y se inicializan las cotas con sus valores exactos
+    */
+   @Override
+   protected void inicializar() {
+      agruparCentros();
+
+      int n = etiquetas.length;
+      cotasSuperiores = new double[n];
+      cotasGlobales = new double[n];
+      cotasGrupos = new float[n * t];
+      desplazamientosGrupos = new double[t];
+      acumulados = new double[t];
+      primeras = new double[t];
+      posicionesPrimeras = new int[t];
+      segundas = new double[t];
+      revisados = new int[t];
+
+      double[] distancias = new double[k];
+      for (int i = 0; i < n; i++) {
+         // se calculan todas las distancias y se elige el
+         // centro como en el modo clasico
+         int asignado = 0;
+         double minima = Double.MAX_VALUE;
+         for (int j = 0; j < k; j++) {
+            distancias[j] = distanciaCuadratica(i, j);
+            if (distancias[j] < minima) {
+               minima = distancias[j];
+               asignado = j;
+            }
+         }
+         etiquetas[i] = asignado;
+         cotasSuperiores[i] = Math.sqrt(minima);
+
+         // cota de cada grupo: menor distancia sin contar el
+         // centro asignado
+         double global = Double.MAX_VALUE;
+         for (int g = 0; g < t; g++) {
+            double cota = Double.MAX_VALUE;
+            for (int p = inicioGrupo[g]; p < inicioGrupo[g + 1]; p++) {
+               if (miembros[p] != asignado) {
+                  cota = Math.min(cota, distancias[miembros[p]]);
+               }
+            }
+            cota = Math.sqrt(cota);
+            cotasGrupos[i * t + g] = redondearAbajo(cota);
+            global = Math.min(global, cota);
+         }
+         cotasGlobales[i] = global;
+      }
+   }
+
+   /**
+    * se actualizan las cotas con el desplazamiento de los
+    * centros y se aplican los filtros global, de grupo y local
+    * para calcular solo las distancias necesarias
+    */
+   @Override
+   protected void asignar() {
+      // desplazamiento maximo de cada grupo y de todos
+      Arrays.fill(desplazamientosGrupos, 0);
+      for (int j = 0; j < k; j++) {
+         desplazamientosGrupos[grupos[j]] = Math.max(desplazamientosGrupos[grupos[j]],
+                 desplazamientos[j]);
+      }
+      double desplazamientoMaximo = 0;
+      for (int g = 0; g < t; g++) {
+         acumulados[g] += desplazamientosGrupos[g];
+         desplazamientoMaximo = Math.max(desplazamientoMaximo, desplazamientosGrupos[g]);
+      }
+
+      for (int i = 0; i < etiquetas.length; i++) {
+         int anterior = etiquetas[i];
+         double cotaSuperior = cotasSuperiores[i] + desplazamientos[anterior];
+         double cotaGlobal = cotasGlobales[i] - desplazamientoMaximo;
+         cotasSuperiores[i] = cotaSuperior;
+         cotasGlobales[i] = cotaGlobal;
+
+         // filtro global, con la cota superior sin ajustar y
+         // ajustada
+         if (cotaSuperior + margen < cotaGlobal) {
+            continue;
+         }
+         double minimaAnterior = distanciaCuadratica(i, anterior);
+         cotaSuperior = Math.sqrt(minimaAnterior);
+         cotasSuperiores[i] = cotaSuperior;
+         if (cotaSuperior + margen < cotaGlobal) {
+            continue;
+         }
+
+         revisarGrupos(i, anterior, minimaAnterior);
+      }
+   }
+
+   /**
+    * aplica los filtros de grupo y local a un color y
+    * actualiza su centro y sus cotas
+    *
+    * @param i              posicion del color
+    * @param anterior       centro asignado al empezar
+    * @param minimaAnterior distancia cuadratica exacta a ese centro
+    */
+   private void revisarGrupos(int i, int anterior, double minimaAnterior) {
+      int base = i * t;
+      int asignado = anterior;
+      double minima = minimaAnterior;
+      double distanciaAnterior = Math.sqrt(minimaAnterior);
+
+      // distancia al mejor centro encontrado, mas el margen
+      double radio = distanciaAnterior + margen;
+
+      // la cota global se obtiene como la menor de las de grupo
+      double global = Double.MAX_VALUE;
+      int numeroRevisados = 0;
+      boolean anteriorRevisado = false;
+
+      for (int g = 0; g < t; g++) {
+         // filtro de grupo: la cota del grupo supera la
+         // distancia al mejor centro encontrado
+         double cotaGrupo = cotasGrupos[base + g] - acumulados[g];
+         if (radio < cotaGrupo) {
+            global = Math.min(global, cotaGrupo);
+            continue;
+         }
+         revisados[numeroRevisados++] = g;
+         anteriorRevisado |= g == grupos[anterior];
+         primeras[g] = Double.MAX_VALUE;
+         posicionesPrimeras[g] = -1;
+         segundas[g] = Double.MAX_VALUE;
+
+         // cota del grupo antes del desplazamiento de esta
+         // iteracion, para el filtro local
+         double cotaPrevia = cotaGrupo + desplazamientosGrupos[g];
+         for (int p = inicioGrupo[g]; p < inicioGrupo[g + 1]; p++) {
+            int j = miembros[p];
+            double cota;
+            if (j == anterior) {
+               // su distancia exacta ya se conoce
+               cota = distanciaAnterior;
+            }
+            else {
+               // filtro local: el centro solo se ha movido su
+               // propio desplazamiento
+               cota = cotaPrevia - desplazamientos[j];
+               if (!(radio < cota)) {
+                  double distancia = distanciaCuadratica(i, j);
+                  cota = Math.sqrt(distancia);
+                  if (mejora(distancia, j, minima, asignado)) {
+                     asignado = j;
+                     minima = distancia;
+                     radio = cota + margen;
+                  }
+               }
+            }
+            registrar(g, j, cota);
+         }
+      }
+
+      // si cambia el centro, el anterior pasa a contar en la
+      // cota de su grupo aunque este no se haya revisado
+      if (asignado != anterior && !anteriorRevisado) {
+         int g = grupos[anterior];
+         double cota = Math.min(cotasGrupos[base + g] - acumulados[g], distanciaAnterior);
+         cotasGrupos[base + g] = redondearAbajo(cota + acumulados[g]);
+         global = Math.min(global, cota);
+      }
+
+      // nuevas cotas de los grupos revisados, sin contar el
+      // centro asignado
+      for (int r = 0; r < numeroRevisados; r++) {
+         int g = revisados[r];
+         double cota = Math.max(0, posicionesPrimeras[g] == asignado ? segundas[g] : primeras[g]);
+         cotasGrupos[base + g] = redondearAbajo(cota + acumulados[g]);
+         global = Math.min(global, cota);
+      }
+
+      etiquetas[i] = asignado;
+      cotasSuperiores[i] = Math.sqrt(minima);
+      cotasGlobales[i] = global;
+   }
+
+   /**
+    * registra la cota de un centro en su grupo, guardando la
+    * menor y la segunda menor
+    *
+    * @param g    grupo
+    * @param j    centro
+    * @param cota cota inferior (o distancia exacta) al centro
+    */
+   private void registrar(int g, int j, double cota) {
+      if (cota < primeras[g]) {
+         segundas[g] = primeras[g];
+         primeras[g] = cota;
+         posicionesPrimeras[g] = j;
+      }
+      else if (cota < segundas[g]) {
+         segundas[g] = cota;
+      }
+   }
+
+   /**
+    * reparte los centros iniciales en grupos mediante unas
+    * pocas iteraciones de k-medias sobre los propios centros.
+    * Los grupos no cambian durante el resto del algoritmo
+    */
+   private void agruparCentros() {
+      t = Math.max(1, k / centrosGrupo);
+      grupos = new int[k];
+
+      // semillas repartidas a lo largo de la lista de centros
+      double[] semillas = new double[3 * t];
+      for (int g = 0; g < t; g++) {
+         System.arraycopy(centros, 3 * (g * k / t), semillas, 3 * g, 3);
+      }
+
+      for (int iteracion = 0; iteracion < iteracionesGrupos; iteracion++) {
+         // asignacion de cada centro a la semilla mas cercana
+         for (int j = 0; j < k; j++) {
+            int grupo = 0;
+            double minima = Double.MAX_VALUE;
+            for (int g = 0; g < t; g++) {
+               double distancia = distanciaEntreCentros(centros, j, semillas, g);
+               if (distancia < minima) {
+                  minima = distancia;
+                  grupo = g;
+               }
+            }
+            grupos[j] = grupo;
+         }
+
+         // las semillas pasan a ser la media de su grupo; si
+         // un grupo queda vacio conserva su semilla
+         double[] sumas = new double[3 * t];
+         int[] contadores = new int[t];
+         for (int j = 0; j < k; j++) {
+            for (int c = 0; c < 3; c++) {
+               sumas[3 * grupos[j] + c] += centros[3 * j + c];
+            }
+            contadores[grupos[j]]++;
+         }
+         for (int g = 0; g < t; g++) {
+            if (contadores[g] > 0) {
+               for (int c = 0; c < 3; c++) {
+                  semillas[3 * g + c] = sumas[3 * g + c] / contadores[g];
+               }
+            }
+         }
+      }
+
+      // lista de centros de cada grupo
+      inicioGrupo = new int[t + 1];
+      for (int j = 0; j < k; j++) {
+         inicioGrupo[grupos[j] + 1]++;
+      }
+      for (int g = 0; g < t; g++) {
+         inicioGrupo[g + 1] += inicioGrupo[g];
+      }
+      miembros = new int[k];
+      int[] siguiente = Arrays.copyOf(inicioGrupo, t);
+      for (int j = 0; j < k; j++) {
+         miembros[siguiente[grupos[j]]++] = j;
+      }
+   }
+}
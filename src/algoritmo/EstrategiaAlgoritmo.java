@@ -0,0 +1,78 @@
+package algoritmo;
+
+import imagen.Pixel;
+import kmedias.KMedias;
+
+import java.util.List;
+
+/**
+ * clase abstracta para representar de forma generica la
+ * forma de realizar cada iteracion (asignacion de pixels a
+ * centros y calculo de los nuevos centros) del algoritmo de
+ * las k-medias
+ */
+public abstract class EstrategiaAlgoritmo {
+   /**
+    * suma de distancias cuadraticas de cada pixel al centro
+    * asignado en la ultima iteracion
+    */
+   protected double errorCuadratico = 0;
+
+   /**
+    * numero de calculos de distancias evitados en la ultima
+    * iteracion
+    */
+   protected long distanciasEvitadas = 0;
+
+   /**
+    * prepara las estructuras necesarias antes de la primera
+    * iteracion
+    *
+    * @param kmedias objeto que usa la estrategia
+    */
+   abstract public void preparar(KMedias kmedias);
+
+   /**
+    * indica si la estrategia recorre los pixels de la imagen
+    * (el almacen de KMedias.obtenerPixels). Las estrategias
+    * que solo trabajan con los colores distintos devuelven
+    * false, y asi no se crea el almacen con todos los pixels
+    *
+    * @return true si usa el almacen de pixels
+    */
+   public boolean necesitaPixels() {
+      return true;
+   }
+
+   /**
+    * realiza una iteracion completa: asigna cada pixel al
+    * centro mas cercano y calcula los nuevos centros
+    *
+    * @param centros centros al inicio de la iteracion
+    * @return centros al final de la iteracion
+    */
+   abstract public List<Pixel> iterar(List<Pixel> centros);
+
+   /**
+    * devuelve el error cuadratico de la ultima iteracion:
+    * suma de las distancias cuadraticas de los pixels a los
+    * centros con los que se clasificaron
+    *
+    * @return error cuadratico
+    */
+   public double obtenerErrorCuadratico() {
+      return errorCuadratico;
+   }
+
+   /**
+    * devuelve cuantos calculos de distancias se evitaron en la
+    * ultima iteracion respecto a calcular la distancia de cada
+    * entrada a los k centros. Es 0 en las estrategias que no
+    * usan cotas
+    *
+    * @return distancias evitadas
+    */
+   public long obtenerDistanciasEvitadas() {
+      return distanciasEvitadas;
+   }
+}
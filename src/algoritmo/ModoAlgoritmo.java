@@ -0,0 +1,57 @@
+package algoritmo;
+
+/**
+ * enumerado para las diferentes formas de realizar las
+ * iteraciones del algoritmo de las k-medias
+ */
+public enum ModoAlgoritmo {
+   /**
+    * recorrido de todos los pixels en cada iteracion, con
+    * las versiones imperativa y funcional de KMedias
+    */
+   CLASICO,
+
+   /**
+    * iteraciones sobre los colores distintos de la imagen,
+    * ponderados por su numero de pixels
+    */
+   HISTOGRAMA,
+
+   /**
+    * recorrido de todos los pixels repartidos entre varios
+    * hilos, con asignacion y acumulacion en una sola pasada
+    */
+   PARALELO,
+
+   /**
+    * algoritmo de Elkan: cotas de distancia a todos los
+    * centros para evitar la mayoria de calculos de distancias
+    */
+   ELKAN,
+
+   /**
+    * algoritmo de Hamerly: una cota superior y una inferior
+    * por color, con poca memoria adicional
+    */
+   HAMERLY,
+
+   /**
+    * algoritmo Yinyang: los centros se agrupan y se filtran
+    * grupos completos con una cota por grupo; pensado para
+    * paletas grandes
+    */
+   YINYANG,
+
+   /**
+    * filtrado con un arbol kd sobre los colores distintos:
+    * nodos completos se asignan a un centro sin recorrerlos
+    */
+   ARBOL_KD,
+
+   /**
+    * k-medias por mini lotes: cada iteracion procesa unos
+    * pocos lotes de pixels elegidos al azar; resultado
+    * aproximado pero muy rapido en imagenes grandes
+    */
+   MINI_LOTES
+}
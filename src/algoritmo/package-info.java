@@ -0,0 +1,27 @@
+/**
+ * paquete con elementos para implementar las distintas
+ * formas de realizar las iteraciones del algoritmo de las
+ * k-medias
+ * Contiene:
+ * a) ModoAlgoritmo: enumerado para los modos disponibles
+ * b) EstrategiaAlgoritmo: clase abstracta para servir de tipo
+ *    comun a los modos; permite la implementacion del patron
+ *    estrategia
+ * c) AlgoritmoHistograma: itera sobre los colores distintos de
+ *    la imagen, ponderados por su numero de pixels
+ * d) AlgoritmoParalelo: reparte los pixels entre varios hilos
+ *    con fork/join, asignando y acumulando en una sola pasada
+ * e) AlgoritmoAcotado: clase base de las estrategias que usan
+ *    cotas de distancias para evitar calculos
+ * f) AlgoritmoElkan: algoritmo de Elkan, con una cota inferior
+ *    por color y centro
+ * g) AlgoritmoHamerly: algoritmo de Hamerly, con solo dos
+ *    cotas por color
+ * h) AlgoritmoYinyang: algoritmo Yinyang, con los centros
+ *    agrupados y una cota por color y grupo
+ * i) AlgoritmoArbolKd: algoritmo de filtrado sobre un arbol kd
+ *    de los colores distintos
+ * j) AlgoritmoMiniLotes: k-medias por mini lotes de pixels
+ *    aleatorios, aproximado
+ */
+package algoritmo;
@@ -1,9 +1,9 @@
 package convergencia;
 
 import kmedias.KMedias;
-import imagen.Pixel;
+import imagen.AlmacenPixels;
 
-import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * clase para representar deteccion de parada por
@@ -47,23 +47,22 @@ public class ConvergenciaRuido extends EstrategiaConvergencia {
       double sennal = 0;
       double ruido = 0;
 
-      // se obtienen los pixels de la imagen
-      List<Pixel> pixels = kmedias.obtenerPixels();
+      // se obtienen los pixels de la imagen y las componentes
+      // de los centros finales
+      AlmacenPixels pixels = kmedias.obtenerPixels();
+      double[] centros = AlmacenPixels.convertirCentros(kmedias.obtenerCentrosT2());
 
       // bucle de recorrido de los pixels de la imagen
-      for(int i=0; i < pixels.size(); i++){
-         // obtengo el pixel con indice i
-         Pixel pixel = pixels.get(i);
-
+      for(int i=0; i < pixels.obtenerNumeroPixels(); i++){
          // obtener el centro final mas cercano
-         Pixel centroMasCercano =
-                 pixel.obtenerMasCercano(kmedias.obtenerCentrosT2());
+         int centroMasCercano = pixels.obtenerMasCercano(i, centros);
 
          // se obtien el valor de sennal asociado al pixel
-         sennal += pixel.calcularSennal();
+         sennal += pixels.calcularSennal(i);
 
          // se calcula el valor de ruido
-         ruido += pixel.calcularRuido(centroMasCercano);
+         ruido += Math.sqrt(pixels.distanciaCuadratica(i, centros[3 * centroMasCercano],
+                 centros[3 * centroMasCercano + 1], centros[3 * centroMasCercano + 2]));
       }
 
       // se obtiene la medida
@@ -80,12 +79,19 @@ public class ConvergenciaRuido extends EstrategiaConvergencia {
    }
    @Override
    public boolean convergenciaFuncional(KMedias kmedias) {
-      // se obtienen los pixels de la imagen
-      List<Pixel> pixels = kmedias.obtenerPixels();
-
-      double sennal = pixels.stream().mapToDouble(pixel -> pixel.calcularSennal()).sum();
-      double ruido = pixels.stream().mapToDouble(pixel -> pixel.calcularRuido(pixel.
-                     obtenerMasCercanoFuncional(kmedias.obtenerCentrosT2()))).
+      // se obtienen los pixels de la imagen y las componentes
+      // de los centros finales
+      AlmacenPixels pixels = kmedias.obtenerPixels();
+      double[] centros = AlmacenPixels.convertirCentros(kmedias.obtenerCentrosT2());
+
+      double sennal = IntStream.range(0, pixels.obtenerNumeroPixels()).
+                     mapToDouble(pixels::calcularSennal).sum();
+      double ruido = IntStream.range(0, pixels.obtenerNumeroPixels()).
+                     mapToDouble(indice -> {
+                        int centro = pixels.obtenerMasCercano(indice, centros);
+                        return Math.sqrt(pixels.distanciaCuadratica(indice, centros[3 * centro],
+                                centros[3 * centro + 1], centros[3 * centro + 2]));
+                     }).
                      sum();
 
       // se obtiene la medida
@@ -94,4 +100,14 @@ public class ConvergenciaRuido extends EstrategiaConvergencia {
       // se determina si converge
       return ((medida > umbral) || (kmedias.obtenerContadorIteraciones() >= maxIteraciones));
    }
+
+   /**
+    * el ruido se mide sobre todos los pixels de la imagen
+    *
+    * @return true
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return true;
+   }
 }
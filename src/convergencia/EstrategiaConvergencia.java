@@ -25,4 +25,14 @@ public abstract class EstrategiaConvergencia {
    public double obtenerMedida(){
       return medida;
    }
+
+   /**
+    * indica si la deteccion recorre los pixels de la imagen
+    * (el almacen de KMedias.obtenerPixels)
+    *
+    * @return true si usa el almacen de pixels
+    */
+   public boolean necesitaPixels() {
+      return false;
+   }
 }
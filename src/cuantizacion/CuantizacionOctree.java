@@ -0,0 +1,398 @@
+package cuantizacion;
+
+import imagen.Histograma;
+import imagen.Imagen;
+import imagen.Pixel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * cuantizador mediante arbol octal (Gervautz y Purgathofer):
+ * cada color se inserta bajando por el arbol con un bit de
+ * cada componente por nivel, y cada nodo guarda la suma de
+ * componentes y el numero de pixels que recibe. Cuando el
+ * numero de hojas supera el maximo, se reduce el ultimo nodo
+ * creado del nivel mas profundo, fundiendo sus hijos en el.
+ * Al acabar se siguen reduciendo nodos, eligiendo en el nivel
+ * mas profundo el de menos pixels, hasta tener k hojas, cuyas
+ * medias forman la paleta; si reducir el nodo completo dejara
+ * menos de k hojas, solo se funden sus dos hojas con menos
+ * pixels. Los nodos se guardan en arrays de tamaño fijo, de
+ * forma que la memoria solo depende del numero maximo de
+ * hojas y el tiempo es lineal en el numero de colores
+ * insertados
+ */
+public class CuantizacionOctree extends EstrategiaCuantizacion {
+   /**
+    * profundidad del arbol: un nivel por bit de las
+    * componentes
+    */
+   private final static int profundidad = 8;
+
+   /**
+    * numero maximo de hojas predeterminado
+    */
+   public final static int hojasPredeterminadas = 1024;
+
+   /**
+    * numero maximo de hojas durante la insercion
+    */
+   private final int hojasMaximas;
+
+   /**
+    * suma de cada componente de los colores de cada nodo
+    */
+   private final long[] rojos, verdes, azules;
+
+   /**
+    * numero de pixels de cada nodo
+    */
+   private final long[] pesos;
+
+   /**
+    * hijos de cada nodo: 8 posiciones por nodo, 0 si no hay
+    * hijo (la raiz, en la posicion 0, no es hijo de nadie)
+    */
+   private final int[] hijos;
+
+   /**
+    * indica si cada nodo es una hoja
+    */
+   private final boolean[] hojas;
+
+   /**
+    * siguiente nodo en la lista de nodos reducibles de su
+    * nivel, o en la lista de nodos libres
+    */
+   private final int[] siguientes;
+
+   /**
+    * primer nodo de la lista de nodos internos de cada nivel,
+    * -1 si esta vacia
+    */
+   private final int[] reducibles = new int[profundidad];
+
+   /**
+    * primer nodo libre, -1 si no hay
+    */
+   private int libres;
+
+   /**
+    * numero de nodos usados por primera vez
+    */
+   private int usados;
+
+   /**
+    * numero de hojas del arbol
+    */
+   private int numeroHojas;
+
+   /**
+    * constructor con el numero de hojas predeterminado
+    */
+   public CuantizacionOctree() {
+      this(hojasPredeterminadas);
+   }
+
+   /**
+    * constructor de la clase
+    *
+    * @param hojasMaximas numero maximo de hojas durante la
+    *                     insercion
+    */
+   public CuantizacionOctree(int hojasMaximas) {
+      if (hojasMaximas < 1) {
+         throw new IllegalArgumentException("numero de hojas no valido: " + hojasMaximas);
+      }
+      this.hojasMaximas = hojasMaximas;
+
+      // cada hoja tiene como mucho un antecesor por nivel; al
+      // insertar puede haber una hoja mas que el maximo
+      int capacidad = (hojasMaximas + 1) * (profundidad + 1) + 1;
+      rojos = new long[capacidad];
+      verdes = new long[capacidad];
+      azules = new long[capacidad];
+      pesos = new long[capacidad];
+      hijos = new int[8 * capacidad];
+      hojas = new boolean[capacidad];
+      siguientes = new int[capacidad];
+      reiniciar();
+   }
+
+   /**
+    * calcula la paleta insertando los colores distintos de la
+    * imagen con su numero de pixels
+    *
+    * @param imagen imagen a analizar
+    * @param k      numero maximo de colores de la paleta
+    * @return colores de la paleta
+    */
+   @Override
+   public List<Pixel> calcularPaleta(Imagen imagen, int k) {
+      reiniciar();
+      Histograma histograma = imagen.obtenerHistograma();
+      for (int posicion = 0; posicion < histograma.obtenerCapacidad(); posicion++) {
+         int contador = histograma.obtenerContadorPosicion(posicion);
+         if (contador != 0) {
+            insertar(histograma.obtenerColorPosicion(posicion), contador);
+         }
+      }
+      return obtenerPaleta(k);
+   }
+
+   /**
+    * vacia el arbol, dejando solo la raiz
+    */
+   public void reiniciar() {
+      Arrays.fill(reducibles, -1);
+      libres = -1;
+      usados = 0;
+      numeroHojas = 0;
+      crearNodo(0);
+   }
+
+   /**
+    * inserta un color en el arbol. Se puede llamar por cada
+    * pixel a medida que se recorre una imagen
+    *
+    * @param color color (ARGB empaquetado)
+    * @param peso  numero de pixels del color
+    */
+   public void insertar(int color, long peso) {
+      int rojo = (color >>> 16) & 0xff;
+      int verde = (color >>> 8) & 0xff;
+      int azul = color & 0xff;
+
+      // se baja hasta una hoja, creando los nodos necesarios
+      int nodo = 0;
+      for (int nivel = 0; !hojas[nodo]; nivel++) {
+         int desplazamiento = profundidad - 1 - nivel;
+         int rama = ((rojo >>> desplazamiento) & 1) << 2 |
+                 ((verde >>> desplazamiento) & 1) << 1 | ((azul >>> desplazamiento) & 1);
+         int hijo = hijos[8 * nodo + rama];
+         if (hijo == 0) {
+            hijo = crearNodo(nivel + 1);
+            hijos[8 * nodo + rama] = hijo;
+         }
+         nodo = hijo;
+      }
+      rojos[nodo] += rojo * peso;
+      verdes[nodo] += verde * peso;
+      azules[nodo] += azul * peso;
+      pesos[nodo] += peso;
+
+      // se mantiene acotado el numero de hojas
+      while (numeroHojas > hojasMaximas) {
+         reducir(false, Integer.MAX_VALUE);
+      }
+   }
+
+   /**
+    * reduce el arbol hasta tener como mucho k hojas y devuelve
+    * sus colores medios
+    *
+    * @param k numero maximo de colores
+    * @return colores de la paleta
+    */
+   public List<Pixel> obtenerPaleta(int k) {
+      while (numeroHojas > k) {
+         reducir(true, numeroHojas - k);
+      }
+
+      // recorrido de las hojas
+      List<Pixel> paleta = new ArrayList<>(numeroHojas);
+      recogerHojas(0, paleta);
+      return paleta;
+   }
+
+   /**
+    * añade a la paleta las medias de las hojas que cuelgan de
+    * un nodo
+    *
+    * @param nodo   nodo a recorrer
+    * @param paleta lista de colores
+    */
+   private void recogerHojas(int nodo, List<Pixel> paleta) {
+      if (hojas[nodo]) {
+         if (pesos[nodo] > 0) {
+            // las componentes se pasan a la escala de Pixel
+            double escala = 256.0 * pesos[nodo];
+            paleta.add(new Pixel(rojos[nodo] / escala, verdes[nodo] / escala,
+                    azules[nodo] / escala));
+         }
+         return;
+      }
+      for (int rama = 0; rama < 8; rama++) {
+         int hijo = hijos[8 * nodo + rama];
+         if (hijo != 0) {
+            recogerHojas(hijo, paleta);
+         }
+      }
+   }
+
+   /**
+    * reduce un nodo interno del nivel mas profundo: sus hijos,
+    * que son hojas, se funden en el y pasa a ser hoja. Durante
+    * la insercion se toma el ultimo nodo creado, en tiempo
+    * constante; al final se toma el de menos pixels, para que
+    * las fusiones afecten a la menor parte de la imagen. Si
+    * el nodo tiene mas hijos de los que se pueden eliminar,
+    * solo se funden los dos con menos pixels y el nodo sigue
+    * siendo interno
+    *
+    * @param menorPeso true para elegir el nodo con menos pixels
+    * @param sobrantes numero de hojas que se pueden eliminar
+    */
+   private void reducir(boolean menorPeso, int sobrantes) {
+      int nivel = profundidad - 1;
+      while (reducibles[nivel] < 0) {
+         nivel--;
+      }
+
+      // se elige el nodo y se quita de la lista
+      int anterior = -1;
+      int elegido = reducibles[nivel];
+      if (menorPeso) {
+         int previo = -1;
+         long menor = Long.MAX_VALUE;
+         for (int nodo = reducibles[nivel]; nodo >= 0; previo = nodo, nodo = siguientes[nodo]) {
+            long peso = pesoSubarbol(nodo);
+            if (peso < menor) {
+               menor = peso;
+               elegido = nodo;
+               anterior = previo;
+            }
+         }
+      }
+      if (numeroHijos(elegido) - 1 > sobrantes) {
+         fundirHijos(elegido);
+         return;
+      }
+      if (anterior < 0) {
+         reducibles[nivel] = siguientes[elegido];
+      }
+      else {
+         siguientes[anterior] = siguientes[elegido];
+      }
+
+      // los hijos se funden en el nodo y se liberan
+      for (int rama = 0; rama < 8; rama++) {
+         int hijo = hijos[8 * elegido + rama];
+         if (hijo != 0) {
+            rojos[elegido] += rojos[hijo];
+            verdes[elegido] += verdes[hijo];
+            azules[elegido] += azules[hijo];
+            pesos[elegido] += pesos[hijo];
+            hijos[8 * elegido + rama] = 0;
+            siguientes[hijo] = libres;
+            libres = hijo;
+            numeroHojas--;
+         }
+      }
+      hojas[elegido] = true;
+      numeroHojas++;
+   }
+
+   /**
+    * funde las dos hojas hijas de un nodo con menos pixels: la
+    * mas ligera se suma a la otra y se libera
+    *
+    * @param nodo nodo interno con al menos dos hijos
+    */
+   private void fundirHijos(int nodo) {
+      int primera = -1;
+      int segunda = -1;
+      for (int rama = 0; rama < 8; rama++) {
+         int hijo = hijos[8 * nodo + rama];
+         if (hijo == 0) {
+            continue;
+         }
+         if (primera < 0 || pesos[hijo] < pesos[hijos[8 * nodo + primera]]) {
+            segunda = primera;
+            primera = rama;
+         }
+         else if (segunda < 0 || pesos[hijo] < pesos[hijos[8 * nodo + segunda]]) {
+            segunda = rama;
+         }
+      }
+      int ligera = hijos[8 * nodo + primera];
+      int destino = hijos[8 * nodo + segunda];
+      rojos[destino] += rojos[ligera];
+      verdes[destino] += verdes[ligera];
+      azules[destino] += azules[ligera];
+      pesos[destino] += pesos[ligera];
+      hijos[8 * nodo + primera] = 0;
+      siguientes[ligera] = libres;
+      libres = ligera;
+      numeroHojas--;
+   }
+
+   /**
+    * numero de hijos de un nodo
+    *
+    * @param nodo nodo interno
+    * @return numero de hijos
+    */
+   private int numeroHijos(int nodo) {
+      int numero = 0;
+      for (int rama = 0; rama < 8; rama++) {
+         if (hijos[8 * nodo + rama] != 0) {
+            numero++;
+         }
+      }
+      return numero;
+   }
+
+   /**
+    * numero de pixels de un nodo del nivel mas profundo con
+    * hijos: la suma de los de sus hojas
+    *
+    * @param nodo nodo interno
+    * @return numero de pixels
+    */
+   private long pesoSubarbol(int nodo) {
+      long peso = 0;
+      for (int rama = 0; rama < 8; rama++) {
+         int hijo = hijos[8 * nodo + rama];
+         if (hijo != 0) {
+            peso += pesos[hijo];
+         }
+      }
+      return peso;
+   }
+
+   /**
+    * obtiene un nodo vacio, reutilizando los liberados. Los
+    * nodos del ultimo nivel son hojas; el resto se añaden a la
+    * lista de reducibles de su nivel
+    *
+    * @param nivel nivel del nodo
+    * @return posicion del nodo
+    */
+   private int crearNodo(int nivel) {
+      int nodo;
+      if (libres >= 0) {
+         nodo = libres;
+         libres = siguientes[nodo];
+      }
+      else {
+         nodo = usados++;
+      }
+      rojos[nodo] = 0;
+      verdes[nodo] = 0;
+      azules[nodo] = 0;
+      pesos[nodo] = 0;
+      Arrays.fill(hijos, 8 * nodo, 8 * nodo + 8, 0);
+      hojas[nodo] = nivel == profundidad;
+      if (hojas[nodo]) {
+         numeroHojas++;
+      }
+      else {
+         siguientes[nodo] = reducibles[nivel];
+         reducibles[nivel] = nodo;
+      }
+      return nodo;
+   }
+}
@@ -0,0 +1,328 @@
+package cuantizacion;
+
+import imagen.Histograma;
+import imagen.Imagen;
+import imagen.Pixel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * cuantizador de Wu (minimizacion de varianza): los colores se
+ * reparten en un cubo de 32 x 32 x 32 celdas (5 bits por
+ * componente) y se calculan los momentos acumulados del cubo
+ * (numero de pixels, suma de cada componente y suma de
+ * cuadrados), con los que la estadistica de cualquier caja se
+ * obtiene en tiempo constante. Partiendo del cubo completo, en
+ * cada paso se divide la caja de mayor varianza por el plano
+ * que mas reduce la varianza total, hasta tener k cajas. La
+ * paleta son las medias de las cajas, calculadas con las
+ * componentes completas de los colores. El resultado es
+ * determinista y el coste es lineal en el numero de colores
+ * mas el tamaño del cubo
+ */
+public class CuantizacionWu extends EstrategiaCuantizacion {
+   /**
+    * bits de cada componente que se usan en el cubo
+    */
+   private final static int bits = 5;
+
+   /**
+    * celdas por lado del cubo, con una fila de ceros al
+    * principio para los momentos acumulados
+    */
+   private final static int lado = (1 << bits) + 1;
+
+   /**
+    * ejes del cubo
+    */
+   private final static int ROJO = 0, VERDE = 1, AZUL = 2;
+
+   /**
+    * momentos acumulados: numero de pixels
+    */
+   private long[] pesos;
+
+   /**
+    * momentos acumulados: suma de cada componente (0 a 255)
+    */
+   private long[] rojos, verdes, azules;
+
+   /**
+    * momentos acumulados: suma de cuadrados de las
+    * componentes
+    */
+   private double[] cuadrados;
+
+   /**
+    * calcula la paleta de la imagen mediante el algoritmo de
+    * Wu
+    *
+    * @param imagen imagen a analizar
+    * @param k      numero maximo de colores de la paleta
+    * @return colores de la paleta
+    */
+   @Override
+   public List<Pixel> calcularPaleta(Imagen imagen, int k) {
+      construirMomentos(imagen.obtenerHistograma());
+
+      // cajas: limites inferiores (excluidos) y superiores
+      // (incluidos) de cada eje
+      int[][] cajas = new int[k][];
+      double[] varianzas = new double[k];
+      cajas[0] = new int[]{0, lado - 1, 0, lado - 1, 0, lado - 1};
+      int numeroCajas = 1;
+      int siguiente = 0;
+      while (numeroCajas < k) {
+         int[] nueva = cortar(cajas[siguiente]);
+         if (nueva != null) {
+            cajas[numeroCajas] = nueva;
+            varianzas[siguiente] = calcularVarianza(cajas[siguiente]);
+            varianzas[numeroCajas] = calcularVarianza(nueva);
+            numeroCajas++;
+         }
+         else {
+            // la caja no se puede dividir
+            varianzas[siguiente] = 0;
+         }
+
+         // se elige la caja de mayor varianza
+         siguiente = 0;
+         for (int c = 1; c < numeroCajas; c++) {
+            if (varianzas[c] > varianzas[siguiente]) {
+               siguiente = c;
+            }
+         }
+         if (varianzas[siguiente] <= 0) {
+            break;
+         }
+      }
+
+      // medias de las cajas, en la escala de Pixel
+      List<Pixel> paleta = new ArrayList<>(numeroCajas);
+      for (int c = 0; c < numeroCajas; c++) {
+         long peso = volumen(cajas[c], pesos);
+         if (peso > 0) {
+            double escala = 256.0 * peso;
+            paleta.add(new Pixel(volumen(cajas[c], rojos) / escala,
+                    volumen(cajas[c], verdes) / escala,
+                    volumen(cajas[c], azules) / escala));
+         }
+      }
+      return paleta;
+   }
+
+   /**
+    * reparte los colores del histograma en el cubo y calcula
+    * los momentos acumulados
+    *
+    * @param histograma histograma de la imagen
+    */
+   private void construirMomentos(Histograma histograma) {
+      int celdas = lado * lado * lado;
+      pesos = new long[celdas];
+      rojos = new long[celdas];
+      verdes = new long[celdas];
+      azules = new long[celdas];
+      cuadrados = new double[celdas];
+
+      // momentos de cada celda
+      for (int posicion = 0; posicion < histograma.obtenerCapacidad(); posicion++) {
+         int contador = histograma.obtenerContadorPosicion(posicion);
+         if (contador == 0) {
+            continue;
+         }
+         int color = histograma.obtenerColorPosicion(posicion);
+         int rojo = (color >>> 16) & 0xff;
+         int verde = (color >>> 8) & 0xff;
+         int azul = color & 0xff;
+         int celda = indice((rojo >>> (8 - bits)) + 1, (verde >>> (8 - bits)) + 1,
+                 (azul >>> (8 - bits)) + 1);
+         pesos[celda] += contador;
+         rojos[celda] += (long) rojo * contador;
+         verdes[celda] += (long) verde * contador;
+         azules[celda] += (long) azul * contador;
+         cuadrados[celda] += (double) contador * (rojo * rojo + verde * verde + azul * azul);
+      }
+
+      // sumas acumuladas en los tres ejes
+      acumular(pesos);
+      acumular(rojos);
+      acumular(verdes);
+      acumular(azules);
+      for (int r = 1; r < lado; r++) {
+         for (int v = 1; v < lado; v++) {
+            for (int a = 1; a < lado; a++) {
+               cuadrados[indice(r, v, a)] += cuadrados[indice(r - 1, v, a)] +
+                       cuadrados[indice(r, v - 1, a)] + cuadrados[indice(r, v, a - 1)] -
+                       cuadrados[indice(r - 1, v - 1, a)] - cuadrados[indice(r - 1, v, a - 1)] -
+                       cuadrados[indice(r, v - 1, a - 1)] + cuadrados[indice(r - 1, v - 1, a - 1)];
+            }
+         }
+      }
+   }
+
+   /**
+    * convierte un momento en su suma acumulada en los tres
+    * ejes
+    *
+    * @param momento valores de cada celda
+    */
+   private static void acumular(long[] momento) {
+      for (int r = 1; r < lado; r++) {
+         for (int v = 1; v < lado; v++) {
+            for (int a = 1; a < lado; a++) {
+               momento[indice(r, v, a)] += momento[indice(r - 1, v, a)] +
+                       momento[indice(r, v - 1, a)] + momento[indice(r, v, a - 1)] -
+                       momento[indice(r - 1, v - 1, a)] - momento[indice(r - 1, v, a - 1)] -
+                       momento[indice(r, v - 1, a - 1)] + momento[indice(r - 1, v - 1, a - 1)];
+            }
+         }
+      }
+   }
+
+   /**
+    * divide una caja por el plano que mas reduce la varianza,
+    * probando los tres ejes. La caja original se queda con la
+    * parte inferior
+    *
+    * @param caja caja a dividir; se modifica
+    * @return la parte superior, o null si la caja no se puede
+    * dividir
+    */
+   private int[] cortar(int[] caja) {
+      long peso = volumen(caja, pesos);
+      long rojo = volumen(caja, rojos);
+      long verde = volumen(caja, verdes);
+      long azul = volumen(caja, azules);
+
+      // mejor corte en cada eje
+      int mejorEje = -1;
+      int mejorCorte = -1;
+      double mejorValor = 0;
+      for (int eje = ROJO; eje <= AZUL; eje++) {
+         double valor = 0;
+         int corte = -1;
+         for (int posicion = caja[2 * eje] + 1; posicion < caja[2 * eje + 1]; posicion++) {
+            // momentos de la parte inferior
+            long pesoInferior = parcial(caja, eje, posicion, pesos);
+            long pesoSuperior = peso - pesoInferior;
+            if (pesoInferior == 0 || pesoSuperior == 0) {
+               continue;
+            }
+            double rojoInferior = parcial(caja, eje, posicion, rojos);
+            double verdeInferior = parcial(caja, eje, posicion, verdes);
+            double azulInferior = parcial(caja, eje, posicion, azules);
+            double rojoSuperior = rojo - rojoInferior;
+            double verdeSuperior = verde - verdeInferior;
+            double azulSuperior = azul - azulInferior;
+
+            // se maximiza la suma de los cuadrados de las sumas
+            // divididos por los pesos, que equivale a minimizar
+            // la varianza de las dos partes
+            double actual = (rojoInferior * rojoInferior + verdeInferior * verdeInferior +
+                    azulInferior * azulInferior) / pesoInferior +
+                    (rojoSuperior * rojoSuperior + verdeSuperior * verdeSuperior +
+                            azulSuperior * azulSuperior) / pesoSuperior;
+            if (actual > valor) {
+               valor = actual;
+               corte = posicion;
+            }
+         }
+         if (corte >= 0 && valor > mejorValor) {
+            mejorValor = valor;
+            mejorEje = eje;
+            mejorCorte = corte;
+         }
+      }
+      if (mejorEje < 0) {
+         return null;
+      }
+
+      // la caja original se queda con la parte inferior
+      int[] superior = caja.clone();
+      superior[2 * mejorEje] = mejorCorte;
+      caja[2 * mejorEje + 1] = mejorCorte;
+      return superior;
+   }
+
+   /**
+    * suma de los pixels de una caja: la varianza multiplicada
+    * por el peso
+    *
+    * @param caja caja a considerar
+    * @return varianza total de la caja
+    */
+   private double calcularVarianza(int[] caja) {
+      long peso = volumen(caja, pesos);
+      if (peso == 0) {
+         return 0;
+      }
+      double rojo = volumen(caja, rojos);
+      double verde = volumen(caja, verdes);
+      double azul = volumen(caja, azules);
+      return volumen(caja, cuadrados) - (rojo * rojo + verde * verde + azul * azul) / peso;
+   }
+
+   /**
+    * suma de un momento en la parte de una caja por debajo de
+    * una posicion de un eje (incluida). El limite de la caja
+    * se cambia de forma temporal para no crear otra
+    *
+    * @param caja     caja a considerar
+    * @param eje      eje del corte
+    * @param posicion posicion del corte
+    * @param momento  momentos acumulados
+    * @return suma del momento en la parte inferior
+    */
+   private static long parcial(int[] caja, int eje, int posicion, long[] momento) {
+      int limite = caja[2 * eje + 1];
+      caja[2 * eje + 1] = posicion;
+      long suma = volumen(caja, momento);
+      caja[2 * eje + 1] = limite;
+      return suma;
+   }
+
+   /**
+    * suma de un momento dentro de una caja, a partir de los
+    * valores acumulados en sus ocho vertices
+    *
+    * @param caja    caja a considerar
+    * @param momento momentos acumulados
+    * @return suma del momento en la caja
+    */
+   private static long volumen(int[] caja, long[] momento) {
+      int r0 = caja[0], r1 = caja[1], v0 = caja[2], v1 = caja[3], a0 = caja[4], a1 = caja[5];
+      return momento[indice(r1, v1, a1)] - momento[indice(r1, v1, a0)] -
+              momento[indice(r1, v0, a1)] + momento[indice(r1, v0, a0)] -
+              momento[indice(r0, v1, a1)] + momento[indice(r0, v1, a0)] +
+              momento[indice(r0, v0, a1)] - momento[indice(r0, v0, a0)];
+   }
+
+   /**
+    * suma de cuadrados dentro de una caja
+    *
+    * @param caja    caja a considerar
+    * @param momento momentos acumulados
+    * @return suma del momento en la caja
+    */
+   private static double volumen(int[] caja, double[] momento) {
+      int r0 = caja[0], r1 = caja[1], v0 = caja[2], v1 = caja[3], a0 = caja[4], a1 = caja[5];
+      return momento[indice(r1, v1, a1)] - momento[indice(r1, v1, a0)] -
+              momento[indice(r1, v0, a1)] + momento[indice(r1, v0, a0)] -
+              momento[indice(r0, v1, a1)] + momento[indice(r0, v1, a0)] +
+              momento[indice(r0, v0, a1)] - momento[indice(r0, v0, a0)];
+   }
+
+   /**
+    * posicion de una celda en los arrays de momentos
+    *
+    * @param r posicion en el eje rojo
+    * @param v posicion en el eje verde
+    * @param a posicion en el eje azul
+    * @return posicion en los arrays
+    */
+   private static int indice(int r, int v, int a) {
+      return (r * lado + v) * lado + a;
+   }
+}
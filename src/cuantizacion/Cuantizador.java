@@ -0,0 +1,125 @@
+package cuantizacion;
+
+import imagen.Imagen;
+import imagen.Pixel;
+import kmedias.MapeoPaleta;
+
+import java.util.List;
+
+/**
+ * clase para aplicar un cuantizador de color a una imagen,
+ * con la misma forma de uso que la clase KMedias: se crea
+ * con el metodo factoria y el metodo agrupar devuelve la
+ * imagen con los colores de la paleta obtenida
+ */
+public class Cuantizador {
+   /**
+    * imagen a procesar
+    */
+   private final Imagen imagen;
+
+   /**
+    * numero maximo de colores de la paleta
+    */
+   private final int k;
+
+   /**
+    * atributo para delegar la obtencion de la paleta
+    */
+   private final EstrategiaCuantizacion estrategia;
+
+   /**
+    * paleta obtenida en el ultimo agrupamiento
+    */
+   private List<Pixel> paleta;
+
+   /**
+    * constructor privado para evitar creacion de objetos que
+    * no pase por el metodo factoria
+    *
+    * @param imagen     imagen a filtrar
+    * @param k          numero de colores
+    * @param estrategia cuantizador a usar
+    */
+   private Cuantizador(Imagen imagen, int k, EstrategiaCuantizacion estrategia) {
+      this.imagen = imagen;
+      this.k = k;
+      this.estrategia = estrategia;
+   }
+
+   /**
+    * metodo factoria: es la unica forma de crear objetos de la
+    * clase
+    *
+    * @param k      numero de colores a obtener
+    * @param modo   cuantizador a usar
+    * @param imagen imagen a analizar
+    * @return objeto de la clase construido de acuerdo a la
+    * parametrizacion pasada como argumento
+    */
+   public static Cuantizador factoria(int k, ModoCuantizacion modo, Imagen imagen) {
+      return new Cuantizador(imagen, k, crearEstrategia(modo));
+   }
+
+   /**
+    * crea el cuantizador correspondiente a un modo
+    *
+    * @param modo cuantizador deseado
+    * @return estrategia de cuantizacion
+    */
+   public static EstrategiaCuantizacion crearEstrategia(ModoCuantizacion modo) {
+      EstrategiaCuantizacion estrategia = null;
+      switch (modo) {
+         case OCTREE:
+            estrategia = new CuantizacionOctree();
+            break;
+         case WU:
+            estrategia = new CuantizacionWu();
+            break;
+      }
+      return estrategia;
+   }
+
+   /**
+    * accede a la imagen a procesar
+    *
+    * @return devuelve la imagen original
+    */
+   public Imagen obtenerImagen() {
+      return imagen;
+   }
+
+   /**
+    * accede al valor de k
+    *
+    * @return devuelve el valor de k
+    */
+   public int obtenerK() {
+      return k;
+   }
+
+   /**
+    * obtiene la paleta del ultimo agrupamiento
+    *
+    * @return colores de la paleta, o null si aun no se ha
+    * agrupado
+    */
+   public List<Pixel> obtenerPaleta() {
+      return paleta;
+   }
+
+   /**
+    * obtiene la paleta y genera la imagen resultante de
+    * sustituir cada pixel por el color mas cercano de la
+    * paleta
+    *
+    * @param funcional indica si se usa la version funcional
+    *                  de la sustitucion
+    * @return imagen generada tras el filtrado
+    */
+   public Imagen agrupar(boolean funcional) {
+      paleta = estrategia.calcularPaleta(imagen, k);
+      MapeoPaleta mapeo = new MapeoPaleta(paleta);
+      return funcional ? mapeo.aplicarFuncional(imagen) : mapeo.aplicar(imagen);
+   }
+}
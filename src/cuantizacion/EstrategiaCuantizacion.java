@@ -0,0 +1,23 @@
+package cuantizacion;
+
+import imagen.Imagen;
+import imagen.Pixel;
+
+import java.util.List;
+
+/**
+ * clase abstracta para representar de forma generica un
+ * cuantizador de color: obtiene directamente una paleta de
+ * como mucho k colores para una imagen
+ */
+public abstract class EstrategiaCuantizacion {
+   /**
+    * calcula la paleta de la imagen
+    *
+    * @param imagen imagen a analizar
+    * @param k      numero maximo de colores de la paleta
+    * @return colores de la paleta (menos de k si la imagen
+    * tiene menos colores)
+    */
+   abstract public List<Pixel> calcularPaleta(Imagen imagen, int k);
+}
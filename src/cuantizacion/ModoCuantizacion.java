@@ -0,0 +1,19 @@
+package cuantizacion;
+
+/**
+ * enumerado para los diferentes cuantizadores de color que
+ * obtienen una paleta sin iterar como las k-medias
+ */
+public enum ModoCuantizacion {
+   /**
+    * arbol octal con un numero acotado de hojas que se
+    * reducen hasta tener k colores
+    */
+   OCTREE,
+
+   /**
+    * algoritmo de Wu: division sucesiva de la caja de mayor
+    * varianza sobre un cubo de momentos acumulados
+    */
+   WU
+}
@@ -0,0 +1,19 @@
+/**
+ * paquete con cuantizadores de color que obtienen una paleta
+ * de forma directa, sin las iteraciones de las k-medias. Son
+ * mas rapidos pero la paleta no es optima; tambien pueden
+ * servir para inicializar las k-medias
+ * Contiene:
+ * a) ModoCuantizacion: enumerado para los cuantizadores
+ *    disponibles
+ * b) EstrategiaCuantizacion: clase abstracta para servir de
+ *    tipo comun a los cuantizadores; permite la implementacion
+ *    del patron estrategia
+ * c) CuantizacionOctree: arbol octal con un numero acotado de
+ *    hojas
+ * d) CuantizacionWu: algoritmo de Wu de minimizacion de la
+ *    varianza sobre un cubo de 32 x 32 x 32 celdas
+ * e) Cuantizador: aplica un cuantizador a una imagen, con la
+ *    misma forma de uso que la clase KMedias
+ */
+package cuantizacion;
@@ -0,0 +1,322 @@
+package imagen;
+
+import java.util.List;
+
+/**
+ * almacen compacto de pixels organizado por columnas: las
+ * componentes roja, verde y azul de todos los pixels se
+ * guardan en arrays paralelos en lugar de crear un objeto
+ * Pixel por cada pixel de la imagen. Las componentes se
+ * guardan en float: al proceder de canales de 8 bits
+ * (valor / 256) se representan de forma exacta, por lo que
+ * los calculos dan los mismos resultados que con Pixel.
+ * Opcionalmente cada entrada puede llevar un peso: asi se
+ * representan los colores distintos de una imagen junto con
+ * el numero de pixels de cada color
+ */
+public class AlmacenPixels {
+   /**
+    * componentes rojas de los pixels
+    */
+   private final float[] rojos;
+
+   /**
+    * componentes verdes de los pixels
+    */
+   private final float[] verdes;
+
+   /**
+    * componentes azules de los pixels
+    */
+   private final float[] azules;
+
+   /**
+    * peso de cada entrada (numero de pixels que representa);
+    * null si todas las entradas pesan 1
+    */
+   private final int[] pesos;
+
+   /**
+    * precision de los calculos de distancia de asignarBloque
+    */
+   private ModoPrecision precision = ModoPrecision.DOBLE;
+
+   /**
+    * constructor de la clase a partir de los colores
+    * (ARGB empaquetado) de los pixels
+    *
+    * @param colores array con los colores de los pixels
+    */
+   public AlmacenPixels(int[] colores) {
+      this(colores, null);
+   }
+
+   /**
+    * constructor de la clase a partir de colores y pesos
+    *
+    * @param colores array con los colores
+    * @param pesos   numero de pixels que representa cada
+    *                color, o null si cada color es un pixel
+    */
+   public AlmacenPixels(int[] colores, int[] pesos) {
+      this.pesos = pesos;
+      int numeroPixels = colores.length;
+      rojos = new float[numeroPixels];
+      verdes = new float[numeroPixels];
+      azules = new float[numeroPixels];
+
+      // se descompone cada color en sus componentes
+      for (int i = 0; i < numeroPixels; i++) {
+         int color = colores[i];
+         rojos[i] = (float) RGBA.obtenerComponente(color, ComponentesRGBA.ROJO);
+         verdes[i] = (float) RGBA.obtenerComponente(color, ComponentesRGBA.VERDE);
+         azules[i] = (float) RGBA.obtenerComponente(color, ComponentesRGBA.AZUL);
+      }
+   }
+
+   /**
+    * devuelve el numero de pixels almacenados
+    *
+    * @return numero de pixels
+    */
+   public int obtenerNumeroPixels() {
+      return rojos.length;
+   }
+
+   /**
+    * indica si las entradas del almacen tienen pesos
+    *
+    * @return true si hay pesos asociados
+    */
+   public boolean esPonderado() {
+      return pesos != null;
+   }
+
+   /**
+    * devuelve la precision de los calculos de distancia de
+    * asignarBloque
+    *
+    * @return precision usada
+    */
+   public ModoPrecision obtenerPrecision() {
+      return precision;
+   }
+
+   /**
+    * fija la precision de los calculos de distancia de
+    * asignarBloque; el resto de metodos trabajan siempre en
+    * double
+    *
+    * @param precision precision a usar
+    */
+   public void establecerPrecision(ModoPrecision precision) {
+      this.precision = precision;
+   }
+
+   /**
+    * obtiene el peso de una entrada: numero de pixels de la
+    * imagen que representa
+    *
+    * @param indice posicion de la entrada
+    * @return peso de la entrada (1 si no hay pesos)
+    */
+   public int obtenerPeso(int indice) {
+      return pesos == null ? 1 : pesos[indice];
+   }
+
+   /**
+    * obtiene la suma de los pesos de todas las entradas, es
+    * decir, el numero de pixels de la imagen representados
+    *
+    * @return suma de pesos
+    */
+   public long obtenerPesoTotal() {
+      long total = rojos.length;
+      if (pesos != null) {
+         total = 0;
+         for (int peso : pesos) {
+            total += peso;
+         }
+      }
+      return total;
+   }
+
+   /**
+    * obtiene la componente roja de un pixel
+    *
+    * @param indice posicion del pixel
+    * @return valor de la componente roja
+    */
+   public double obtenerRojo(int indice) {
+      return rojos[indice];
+   }
+
+   /**
+    * obtiene la componente verde de un pixel
+    *
+    * @param indice posicion del pixel
+    * @return valor de la componente verde
+    */
+   public double obtenerVerde(int indice) {
+      return verdes[indice];
+   }
+
+   /**
+    * obtiene la componente azul de un pixel
+    *
+    * @param indice posicion del pixel
+    * @return valor de la componente azul
+    */
+   public double obtenerAzul(int indice) {
+      return azules[indice];
+   }
+
+   /**
+    * obtiene el indice de color de un pixel, con el mismo
+    * criterio que Pixel (alfa completo)
+    *
+    * @param indice posicion del pixel
+    * @return indice de color
+    */
+   public int obtenerIndice(int indice) {
+      return RGBA.convertirRGBIndice(rojos[indice], verdes[indice], azules[indice]);
+   }
+
+   /**
+    * crea un objeto Pixel con las componentes de un pixel
+    * del almacen; pensado para los centroides, no para
+    * recorrer la imagen completa
+    *
+    * @param indice posicion del pixel
+    * @return objeto Pixel equivalente
+    */
+   public Pixel obtenerPixel(int indice) {
+      return new Pixel(rojos[indice], verdes[indice], azules[indice]);
+   }
+
+   /**
+    * calcula la distancia cuadratica entre un pixel del
+    * almacen y el punto indicado por sus componentes
+    *
+    * @param indice posicion del pixel
+    * @param rojo   componente roja del punto
+    * @param verde  componente verde del punto
+    * @param azul   componente azul del punto
+    * @return distancia cuadratica
+    */
+   public double distanciaCuadratica(int indice, double rojo, double verde, double azul) {
+      double dr = rojos[indice] - rojo;
+      double dv = verdes[indice] - verde;
+      double da = azules[indice] - azul;
+      return dr * dr + dv * dv + da * da;
+   }
+
+   /**
+    * obtiene la posicion del centro mas cercano a un pixel.
+    * Los centros se pasan en un array con las componentes
+    * consecutivas (rojo, verde, azul) de cada centro. En caso
+    * de empate se queda con el primero, como
+    * Pixel.obtenerMasCercano
+    *
+    * @param indice  posicion del pixel
+    * @param centros componentes de los centros
+    * @return posicion del centro mas cercano
+    */
+   public int obtenerMasCercano(int indice, double[] centros) {
+      return obtenerMasCercano(rojos[indice], verdes[indice], azules[indice], centros);
+   }
+
+   /**
+    * asigna cada pixel de un bloque consecutivo a su centro
+    * mas cercano, con el mismo criterio que obtenerMasCercano.
+    * El calculo se delega en el nucleo disponible, vectorial
+    * o escalar. Con precision simple las distancias se
+    * calculan en float y los empates casi exactos pueden
+    * resolverse de otra forma
+    *
+    * @param desde     primer pixel del bloque
+    * @param hasta     posicion siguiente al ultimo pixel
+    * @param centros   componentes de los centros
+    * @param etiquetas array donde se guarda el centro de cada
+    *                  pixel
+    * @param posicion  posicion de etiquetas para el primer
+    *                  pixel del bloque
+    */
+   public void asignarBloque(int desde, int hasta, double[] centros, int[] etiquetas,
+                             int posicion) {
+      NucleoDistancias nucleo = NucleoDistancias.obtenerNucleo();
+      if (precision == ModoPrecision.SIMPLE) {
+         nucleo.asignarSimple(rojos, verdes, azules, desde, hasta, centros, etiquetas, posicion);
+      }
+      else {
+         nucleo.asignar(rojos, verdes, azules, desde, hasta, centros, etiquetas, posicion);
+      }
+   }
+
+   /**
+    * obtiene la posicion del centro mas cercano a un punto
+    * dado por sus componentes, con el mismo criterio que
+    * obtenerMasCercano para pixels del almacen
+    *
+    * @param rojo    componente roja del punto
+    * @param verde   componente verde del punto
+    * @param azul    componente azul del punto
+    * @param centros componentes de los centros
+    * @return posicion del centro mas cercano
+    */
+   public static int obtenerMasCercano(double rojo, double verde, double azul,
+                                       double[] centros) {
+      int minimo = 0;
+      double minimaDistancia = Double.MAX_VALUE;
+      for (int j = 0, base = 0; base < centros.length; j++, base += 3) {
+         double dr = rojo - centros[base];
+         double dv = verde - centros[base + 1];
+         double da = azul - centros[base + 2];
+         double distancia = dr * dr + dv * dv + da * da;
+
+         // si es necesario, se actualiza el minimo
+         if (distancia < minimaDistancia) {
+            minimaDistancia = distancia;
+            minimo = j;
+         }
+      }
+
+      // se devuelve la posicion del centro mas cercano
+      return minimo;
+   }
+
+   /**
+    * calcula el valor de la señal de un pixel, como
+    * Pixel.calcularSennal
+    *
+    * @param indice posicion del pixel
+    * @return valor calculado
+    */
+   public double calcularSennal(int indice) {
+      double rojo = rojos[indice];
+      double verde = verdes[indice];
+      double azul = azules[indice];
+      return Math.sqrt(rojo * rojo + verde * verde + azul * azul);
+   }
+
+   /**
+    * convierte una lista de centros al formato de array usado
+    * por obtenerMasCercano: componentes rojo, verde y azul
+    * consecutivas para cada centro
+    *
+    * @param centros lista de centros
+    * @return array con las componentes de los centros
+    */
+   public static double[] convertirCentros(List<Pixel> centros) {
+      double[] componentes = new double[centros.size() * 3];
+      for (int j = 0; j < centros.size(); j++) {
+         Pixel centro = centros.get(j);
+         componentes[3 * j] = centro.obtenerComponente(ComponentesRGBA.ROJO);
+         componentes[3 * j + 1] = centro.obtenerComponente(ComponentesRGBA.VERDE);
+         componentes[3 * j + 2] = centro.obtenerComponente(ComponentesRGBA.AZUL);
+      }
+
+      // se devuelve el array
+      return componentes;
+   }
+}
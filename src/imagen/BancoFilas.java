@@ -0,0 +1,217 @@
+package imagen;
+
+import javax.imageio.ImageTypeSpecifier;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * banco de datos para decodificar un fichero de imagen por
+ * filas en una unica pasada: tiene las dimensiones de la
+ * imagen completa, pero solo guarda las dos ultimas filas.
+ * El lector escribe las filas en orden; cuando empieza a
+ * escribir una fila, la anterior esta completa y se entrega
+ * (como colores ARGB) al consumidor. Solo sirve para lectores
+ * que escriben cada fila una unica vez y de arriba abajo
+ */
+class BancoFilas extends DataBuffer {
+   /**
+    * numero de filas guardadas
+    */
+   private final static int filasAnillo = 2;
+
+   /**
+    * elementos de cada fila en cada banco
+    */
+   private final int elementosFila;
+
+   /**
+    * mascara de los valores segun el tipo de dato
+    */
+   private final int mascara;
+
+   /**
+    * elementos de las filas guardadas, por banco
+    */
+   private final int[][] datos;
+
+   /**
+    * imagen que usa este banco, que se pasa al lector como
+    * destino
+    */
+   private final BufferedImage imagen;
+
+   /**
+    * consumidor de las filas completas
+    */
+   private final Consumer<int[]> destino;
+
+   /**
+    * fila que se esta escribiendo; las anteriores ya se han
+    * entregado
+    */
+   private int filaActual;
+
+   /**
+    * constructor privado: los objetos se crean con el metodo
+    * crear
+    *
+    * @param tipo          tipo de imagen del lector
+    * @param modelo        modelo de muestras de la imagen completa
+    * @param elementosFila elementos de cada fila en cada banco
+    * @param destino       consumidor de las filas completas
+    */
+   private BancoFilas(ImageTypeSpecifier tipo, SampleModel modelo, int elementosFila,
+                      Consumer<int[]> destino) {
+      super(modelo.getDataType(), elementosFila * modelo.getHeight(), numeroBancos(modelo));
+      this.elementosFila = elementosFila;
+      this.destino = destino;
+      switch (modelo.getDataType()) {
+         case TYPE_BYTE:
+            mascara = 0xff;
+            break;
+         case TYPE_USHORT:
+            mascara = 0xffff;
+            break;
+         default:
+            mascara = -1;
+      }
+      datos = new int[getNumBanks()][elementosFila * filasAnillo];
+
+      // imagen con el formato del lector sobre este banco
+      ColorModel modeloColor = tipo.getColorModel();
+      imagen = new BufferedImage(modeloColor, Raster.createWritableRaster(modelo, this, null),
+              modeloColor.isAlphaPremultiplied(), null);
+   }
+
+   /**
+    * crea el banco para un tipo de imagen y sus dimensiones
+    *
+    * @param tipo    tipo de imagen del lector
+    * @param ancho   ancho de la imagen
+    * @param alto    alto de la imagen
+    * @param destino consumidor de las filas completas
+    * @return banco creado, o null si el tipo de imagen no
+    * organiza los datos por filas en un array por banco
+    */
+   static BancoFilas crear(ImageTypeSpecifier tipo, int ancho, int alto,
+                           Consumer<int[]> destino) {
+      SampleModel modelo = tipo.getSampleModel(ancho, alto);
+      int elementosFila;
+      if (modelo instanceof ComponentSampleModel) {
+         elementosFila = ((ComponentSampleModel) modelo).getScanlineStride();
+      }
+      else if (modelo instanceof SinglePixelPackedSampleModel) {
+         elementosFila = ((SinglePixelPackedSampleModel) modelo).getScanlineStride();
+      }
+      else if (modelo instanceof MultiPixelPackedSampleModel) {
+         elementosFila = ((MultiPixelPackedSampleModel) modelo).getScanlineStride();
+      }
+      else {
+         return null;
+      }
+
+      // el tamaño de la imagen completa debe caber en un int
+      if ((long) elementosFila * alto > Integer.MAX_VALUE) {
+         return null;
+      }
+      return new BancoFilas(tipo, modelo, elementosFila, destino);
+   }
+
+   /**
+    * numero de bancos de un modelo de muestras
+    *
+    * @param modelo modelo de muestras
+    * @return numero de bancos
+    */
+   private static int numeroBancos(SampleModel modelo) {
+      int bancos = 1;
+      if (modelo instanceof ComponentSampleModel) {
+         for (int indice : ((ComponentSampleModel) modelo).getBankIndices()) {
+            bancos = Math.max(bancos, indice + 1);
+         }
+      }
+      return bancos;
+   }
+
+   /**
+    * devuelve la imagen que se pasa al lector como destino
+    *
+    * @return imagen sobre este banco
+    */
+   BufferedImage obtenerImagen() {
+      return imagen;
+   }
+
+   /**
+    * entrega las filas que quedan tras terminar la lectura
+    */
+   void terminar() {
+      avanzar(imagen.getHeight());
+   }
+
+   /**
+    * lee un elemento de una de las filas guardadas
+    *
+    * @param banco  banco
+    * @param indice posicion del elemento en la imagen completa
+    * @return valor del elemento
+    */
+   @Override
+   public int getElem(int banco, int indice) {
+      return datos[banco][indice % datos[banco].length];
+   }
+
+   /**
+    * escribe un elemento; si pertenece a una fila posterior a
+    * la actual, las filas anteriores estan completas y se
+    * entregan antes de escribirlo
+    *
+    * @param banco  banco
+    * @param indice posicion del elemento en la imagen completa
+    * @param valor  valor del elemento
+    */
+   @Override
+   public void setElem(int banco, int indice, int valor) {
+      int fila = indice / elementosFila;
+      if (fila != filaActual) {
+         avanzar(fila);
+      }
+      datos[banco][indice % datos[banco].length] = valor & mascara;
+   }
+
+   /**
+    * entrega las filas completas hasta la indicada (excluida)
+    * y deja libre su posicion en el anillo
+    *
+    * @param fila nueva fila actual
+    */
+   private void avanzar(int fila) {
+      if (fila < filaActual) {
+         throw new IllegalStateException("fila " + fila + " escrita fuera de orden");
+      }
+      int ancho = imagen.getWidth();
+      while (filaActual < fila) {
+         int[] colores = new int[ancho];
+         imagen.getRGB(0, filaActual, ancho, 1, colores, 0, ancho);
+         destino.accept(colores);
+         filaActual++;
+      }
+
+      // se limpia la posicion de la nueva fila, por si el
+      // lector combina bits con los ya escritos
+      if (fila < imagen.getHeight()) {
+         int inicio = (fila % filasAnillo) * elementosFila;
+         for (int[] banco : datos) {
+            Arrays.fill(banco, inicio, inicio + elementosFila, 0);
+         }
+      }
+   }
+}
@@ -0,0 +1,295 @@
+package imagen;
+
+import java.util.stream.IntStream;
+
+/**
+ * histograma de colores de una imagen: numero de pixels de
+ * cada color distinto. Se guarda en una tabla hash de
+ * direccionamiento abierto indexada directamente por el
+ * valor entero del color, sin objetos intermedios. Una
+ * posicion esta libre cuando su contador vale 0
+ */
+public class Histograma {
+   /**
+    * numero de pixels a partir del cual compensa construir
+    * el histograma en paralelo
+    */
+   private final static int minimoParalelo = 1 << 18;
+
+   /**
+    * constante multiplicativa para dispersar los colores en
+    * la tabla (hashing de Fibonacci)
+    */
+   private final static int dispersion = 0x9E3779B9;
+
+   /**
+    * color almacenado en cada posicion de la tabla
+    */
+   private int[] colores;
+
+   /**
+    * numero de pixels de cada color; 0 indica posicion libre
+    */
+   private int[] contadores;
+
+   /**
+    * numero de colores distintos almacenados
+    */
+   private int numeroColores;
+
+   /**
+    * desplazamiento para quedarse con los bits altos del
+    * hash, de acuerdo a la capacidad de la tabla
+    */
+   private int desplazamiento;
+
+   /**
+    * constructor privado: los histogramas se crean con los
+    * metodos construir
+    *
+    * @param capacidadInicial capacidad inicial aproximada
+    */
+   private Histograma(int capacidadInicial) {
+      // capacidad potencia de 2 de al menos el doble de lo
+      // pedido, para mantener la ocupacion por debajo de 1/2
+      int capacidad = Integer.highestOneBit(Math.max(16, capacidadInicial * 2 - 1)) << 1;
+      reservar(capacidad);
+   }
+
+   /**
+    * construye el histograma de un array de colores en una
+    * unica pasada
+    *
+    * @param datos colores de los pixels
+    * @return histograma construido
+    */
+   public static Histograma construir(int[] datos) {
+      return construir(datos, 0, datos.length);
+   }
+
+   /**
+    * construye el histograma de un array de colores
+    * dividiendolo en partes que se procesan en paralelo con
+    * tablas independientes, que se combinan al final
+    *
+    * @param datos colores de los pixels
+    * @return histograma construido
+    */
+   public static Histograma construirParalelo(int[] datos) {
+      // para imagenes pequeñas no compensa
+      if (datos.length < minimoParalelo) {
+         return construir(datos);
+      }
+
+      int partes = Runtime.getRuntime().availableProcessors();
+      int tamParte = (datos.length + partes - 1) / partes;
+
+      // cada parte genera su propia tabla; la reduccion las va
+      // combinando por parejas
+      return IntStream.range(0, partes).parallel().
+              mapToObj(parte -> construir(datos, Math.min(datos.length, parte * tamParte),
+                      Math.min(datos.length, (parte + 1) * tamParte))).
+              reduce(Histograma::combinar).
+              orElseGet(() -> new Histograma(0));
+   }
+
+   /**
+    * construye el histograma de un tramo de un array
+    *
+    * @param datos colores de los pixels
+    * @param desde primera posicion (incluida)
+    * @param hasta ultima posicion (excluida)
+    * @return histograma del tramo
+    */
+   private static Histograma construir(int[] datos, int desde, int hasta) {
+      Histograma histograma = new Histograma(1024);
+      for (int i = desde; i < hasta; i++) {
+         histograma.agregar(datos[i], 1);
+      }
+      return histograma;
+   }
+
+   /**
+    * devuelve el numero de colores distintos
+    *
+    * @return numero de colores
+    */
+   public int obtenerNumeroColores() {
+      return numeroColores;
+   }
+
+   /**
+    * devuelve el numero de pixels de un color
+    *
+    * @param color color a consultar
+    * @return numero de pixels con ese color (0 si no esta)
+    */
+   public int obtenerContador(int color) {
+      int posicion = obtenerPosicion(color);
+      return posicion < 0 ? 0 : contadores[posicion];
+   }
+
+   /**
+    * devuelve la posicion de un color en la tabla interna.
+    * Las posiciones estan entre 0 y obtenerCapacidad() - 1,
+    * por lo que pueden usarse para indexar arrays auxiliares
+    * con informacion de cada color
+    *
+    * @param color color a buscar
+    * @return posicion del color o -1 si no esta
+    */
+   public int obtenerPosicion(int color) {
+      int mascara = colores.length - 1;
+      int posicion = (color * dispersion) >>> desplazamiento;
+      while (contadores[posicion] != 0) {
+         if (colores[posicion] == color) {
+            return posicion;
+         }
+         posicion = (posicion + 1) & mascara;
+      }
+      return -1;
+   }
+
+   /**
+    * devuelve el tamaño de la tabla interna
+    *
+    * @return numero de posiciones de la tabla
+    */
+   public int obtenerCapacidad() {
+      return colores.length;
+   }
+
+   /**
+    * devuelve el color de una posicion de la tabla
+    *
+    * @param posicion posicion de la tabla
+    * @return color almacenado
+    */
+   public int obtenerColorPosicion(int posicion) {
+      return colores[posicion];
+   }
+
+   /**
+    * devuelve el contador de una posicion de la tabla
+    *
+    * @param posicion posicion de la tabla
+    * @return numero de pixels (0 si la posicion esta libre)
+    */
+   public int obtenerContadorPosicion(int posicion) {
+      return contadores[posicion];
+   }
+
+   /**
+    * devuelve los colores distintos en un array compacto
+    *
+    * @return array con los colores distintos
+    */
+   public int[] obtenerColores() {
+      int[] resultado = new int[numeroColores];
+      int siguiente = 0;
+      for (int posicion = 0; posicion < colores.length; posicion++) {
+         if (contadores[posicion] != 0) {
+            resultado[siguiente++] = colores[posicion];
+         }
+      }
+      return resultado;
+   }
+
+   /**
+    * devuelve los contadores en un array compacto, en el
+    * mismo orden que obtenerColores
+    *
+    * @return array con el numero de pixels de cada color
+    */
+   public int[] obtenerContadores() {
+      int[] resultado = new int[numeroColores];
+      int siguiente = 0;
+      for (int posicion = 0; posicion < contadores.length; posicion++) {
+         if (contadores[posicion] != 0) {
+            resultado[siguiente++] = contadores[posicion];
+         }
+      }
+      return resultado;
+   }
+
+   /**
+    * genera un almacen ponderado con una entrada por color
+    * distinto y su numero de pixels como peso
+    *
+    * @return almacen ponderado
+    */
+   public AlmacenPixels convertirAlmacen() {
+      return new AlmacenPixels(obtenerColores(), obtenerContadores());
+   }
+
+   /**
+    * agrega varias apariciones de un color
+    *
+    * @param color color a agregar
+    * @param veces numero de apariciones
+    */
+   private void agregar(int color, int veces) {
+      int mascara = colores.length - 1;
+      int posicion = (color * dispersion) >>> desplazamiento;
+
+      // sondeo lineal hasta encontrar el color o un hueco
+      while (contadores[posicion] != 0) {
+         if (colores[posicion] == color) {
+            contadores[posicion] += veces;
+            return;
+         }
+         posicion = (posicion + 1) & mascara;
+      }
+
+      // color nuevo
+      colores[posicion] = color;
+      contadores[posicion] = veces;
+      numeroColores++;
+
+      // se mantiene la ocupacion por debajo de 1/2
+      if (numeroColores * 2 > colores.length) {
+         redimensionar();
+      }
+   }
+
+   /**
+    * incorpora a este histograma los contadores de otro
+    *
+    * @param otro histograma a incorporar
+    * @return este histograma, ya combinado
+    */
+   private Histograma combinar(Histograma otro) {
+      for (int posicion = 0; posicion < otro.colores.length; posicion++) {
+         if (otro.contadores[posicion] != 0) {
+            agregar(otro.colores[posicion], otro.contadores[posicion]);
+         }
+      }
+      return this;
+   }
+
+   /**
+    * duplica la capacidad de la tabla y recoloca los colores
+    */
+   private void redimensionar() {
+      int[] coloresAnteriores = colores;
+      int[] contadoresAnteriores = contadores;
+      reservar(colores.length * 2);
+      for (int posicion = 0; posicion < coloresAnteriores.length; posicion++) {
+         if (contadoresAnteriores[posicion] != 0) {
+            agregar(coloresAnteriores[posicion], contadoresAnteriores[posicion]);
+         }
+      }
+   }
+
+   /**
+    * crea tablas vacias de la capacidad indicada
+    *
+    * @param capacidad capacidad (potencia de 2)
+    */
+   private void reservar(int capacidad) {
+      colores = new int[capacidad];
+      contadores = new int[capacidad];
+      desplazamiento = 32 - Integer.numberOfTrailingZeros(capacidad);
+      numeroColores = 0;
+   }
+}
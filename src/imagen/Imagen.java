@@ -1,9 +1,9 @@
 package imagen;
 
+import java.nio.IntBuffer;
 import java.util.*;
-import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.IntStream;
 
 /**
  * clase para almacenar y manejar imagenes en formato jpeg
@@ -20,27 +20,54 @@ public class Imagen {
    private final int filas;
 
    /**
-    * lista con valor de color (entre 0 y 255) para los
-    * pixels. Esto es lo que se lee directamente del archivo
-    * de datos
+    * array con el valor de color (ARGB empaquetado) de los
+    * pixels, recorridos por filas. Esto es lo que se lee
+    * directamente del archivo de datos
     */
-   private final List<Integer> datos;
+   private final int[] datos;
 
    /**
-    * constructor de la clase
+    * histograma de colores; se calcula la primera vez que se
+    * necesita y se reutiliza, ya que la imagen no cambia
+    */
+   private volatile Histograma histograma;
+
+   /**
+    * constructor de la clase. El array no se copia: pasa a
+    * ser propiedad de la imagen y no debe modificarse despues
     *
-    * @param columnas numero de filas
-    * @param filas    numero de columnas
-    * @param datos    lista con indices de colores de todos los
-    *                 pixels
+    * @param columnas numero de columnas
+    * @param filas    numero de filas
+    * @param datos    array con indices de colores de todos los
+    *                 pixels, recorridos por filas
     */
-   public Imagen(int columnas, int filas, List<Integer> datos) {
+   public Imagen(int columnas, int filas, int[] datos) {
+      // se comprueba que el tamaño del array sea coherente
+      // con las dimensiones indicadas
+      if (datos.length != columnas * filas) {
+         throw new IllegalArgumentException("tamaño de datos incorrecto: " +
+            datos.length + " para " + columnas + "x" + filas);
+      }
+
       // se asignan los datos miembro
       this.columnas = columnas;
       this.filas = filas;
       this.datos = datos;
    }
 
+   /**
+    * constructor de la clase a partir de una lista de colores;
+    * los valores se copian en el array interno
+    *
+    * @param columnas numero de columnas
+    * @param filas    numero de filas
+    * @param datos    lista con indices de colores de todos los
+    *                 pixels
+    */
+   public Imagen(int columnas, int filas, List<Integer> datos) {
+      this(columnas, filas, datos.stream().mapToInt(Integer::intValue).toArray());
+   }
+
    /**
     * devuelve el numero de pixels de ancho
     *
@@ -69,7 +96,7 @@ public class Imagen {
     */
    public int obtenerColorPixel(int columna, int fila) {
       int offset = Utilidades.convertirIndicesDesplazamiento(columna, fila, columnas);
-      return datos.get(offset);
+      return datos[offset];
    }
 
    /**
@@ -80,7 +107,73 @@ public class Imagen {
     * @return color del pixel de interes
     */
    public int obtenerColorPixel(int desplazamiento) {
-      return datos.get(desplazamiento);
+      return datos[desplazamiento];
+   }
+
+   /**
+    * devuelve el numero total de pixels de la imagen
+    *
+    * @return numero de pixels (columnas x filas)
+    */
+   public int obtenerNumeroPixels() {
+      return datos.length;
+   }
+
+   /**
+    * copia los colores de una fila completa en el array
+    * destino, que debe tener al menos tantas posiciones como
+    * columnas tiene la imagen
+    *
+    * @param fila    fila objetivo
+    * @param destino array donde se copian los colores
+    * @return el propio array destino
+    */
+   public int[] obtenerFila(int fila, int[] destino) {
+      System.arraycopy(datos, fila * columnas, destino, 0, columnas);
+      return destino;
+   }
+
+   /**
+    * devuelve una copia de los colores de una fila completa
+    *
+    * @param fila fila objetivo
+    * @return array con los colores de la fila
+    */
+   public int[] obtenerFila(int fila) {
+      return obtenerFila(fila, new int[columnas]);
+   }
+
+   /**
+    * da acceso directo al array de colores de la imagen, sin
+    * copiarlo. Como la imagen es inmutable, el array devuelto
+    * no debe modificarse
+    *
+    * @return array con los colores de todos los pixels,
+    * recorridos por filas
+    */
+   public int[] obtenerDatos() {
+      return datos;
+   }
+
+   /**
+    * devuelve una vista de solo lectura sobre los colores de
+    * todos los pixels
+    *
+    * @return buffer de solo lectura sobre el array de colores
+    */
+   public IntBuffer obtenerBufferDatos() {
+      return IntBuffer.wrap(datos).asReadOnlyBuffer();
+   }
+
+   /**
+    * devuelve una vista de solo lectura sobre los colores de
+    * una fila
+    *
+    * @param fila fila objetivo
+    * @return buffer de solo lectura con los colores de la fila
+    */
+   public IntBuffer obtenerBufferFila(int fila) {
+      return IntBuffer.wrap(datos, fila * columnas, columnas).slice().asReadOnlyBuffer();
    }
 
    /**
@@ -98,8 +191,9 @@ public class Imagen {
 
       // recorrer todo el array de datos y convertimos
       // cada indice de color en el pixel correspondiente
-      for(int i=0; i < datos.size(); i++){
-         int indiceColor = datos.get(i);
+      pixels.ensureCapacity(datos.length);
+      for(int i=0; i < datos.length; i++){
+         int indiceColor = datos[i];
 
          // agrego a la lista el nuevo objeto asociado
          // a ese indice de color
@@ -113,7 +207,50 @@ public class Imagen {
    public List<Pixel> convertirIndicesColoresPixelsFuncional() {
       // generamos la lista de salida con un map, asignando a cada elemento de los datos su pixel
       // generado con el método generarPixel(Pixel) de la interfaz RGBA
-      return datos.stream().map(pixel -> RGBA.generarPixel(pixel)).collect(Collectors.toList());
+      return Arrays.stream(datos).mapToObj(pixel -> RGBA.generarPixel(pixel)).collect(Collectors.toList());
+   }
+
+   /**
+    * convierte los datos de la imagen al almacen compacto de
+    * pixels, con las componentes RGB en arrays paralelos en
+    * lugar de un objeto Pixel por pixel
+    *
+    * @return almacen con las componentes de todos los pixels
+    */
+   public AlmacenPixels convertirIndicesColoresAlmacen() {
+      return new AlmacenPixels(datos);
+   }
+
+   /**
+    * genera un almacen con una entrada por cada color
+    * distinto de la imagen, con peso igual al numero de
+    * pixels de ese color
+    *
+    * @return almacen ponderado con los colores distintos
+    */
+   public AlmacenPixels convertirColoresDistintosAlmacen() {
+      return obtenerHistograma().convertirAlmacen();
+   }
+
+   /**
+    * devuelve el histograma de colores de la imagen. Se
+    * construye (en paralelo si la imagen es grande) en la
+    * primera llamada y las siguientes no tienen coste
+    *
+    * @return histograma de colores
+    */
+   public Histograma obtenerHistograma() {
+      Histograma resultado = histograma;
+      if (resultado == null) {
+         synchronized (this) {
+            resultado = histograma;
+            if (resultado == null) {
+               resultado = Histograma.construirParalelo(datos);
+               histograma = resultado;
+            }
+         }
+      }
+      return resultado;
    }
 
    /**
@@ -124,38 +261,17 @@ public class Imagen {
     * NOTA: por implementar
     */
    public long obtenerNumeroColores() {
-      // diccionario con pares clave - valor
-      // clave: el indice del color
-      // valor: contador de pixels con el color correpsondiente
-      Map<Integer, Integer> mapa = new HashMap<>();
-
-      // se recorren los pixels para considerar su
-      // indice de color
-      for(int i=0; i < datos.size(); i++){
-         // obtenemos el color del pixel considerado
-         int color = datos.get(i);
-         Integer contadorColor = mapa.get(color);
-
-         // si no estaba ese color, contadorColor sera
-         // null y tengo que agregar una nueva entrada.
-         // En caso contrario, modifico la entrada para
-         // cambiar el contador
-         if(contadorColor == null){
-            mapa.put(color, 1);
-         }
-         else{
-            mapa.put(color, contadorColor+1);
-         }
-      }
-
-      // se devuelve el numero de colores
-      return mapa.size();
+      // el histograma contiene una entrada por color
+      return obtenerHistograma().obtenerNumeroColores();
    }
 
    public long obtenerNumeroColoresFuncional() {
-      // pasamos la lista a stream y pasando la coleccion a un hashmap contamos las ocurrencias de cada color
-      return datos.stream().collect(Collectors.groupingBy(Function.identity(), HashMap::new,
-                      Collectors.counting())).size();
+      // se cuentan las posiciones ocupadas de la tabla del
+      // histograma
+      Histograma colores = obtenerHistograma();
+      return IntStream.range(0, colores.obtenerCapacidad()).
+              filter(posicion -> colores.obtenerContadorPosicion(posicion) != 0).
+              count();
    }
 
    public static void main(String[] args) {
@@ -0,0 +1,21 @@
+package imagen;
+
+/**
+ * enumerado para la precision de los calculos de distancia
+ * en la asignacion de pixels a centros
+ */
+public enum ModoPrecision {
+   /**
+    * distancias en double: la asignacion es exacta y coincide
+    * con la de Pixel
+    */
+   DOBLE,
+
+   /**
+    * distancias en float: se procesan el doble de pixels por
+    * registro, a cambio de que los empates casi exactos puedan
+    * resolverse de otra forma. Las medias se siguen acumulando
+    * en double
+    */
+   SIMPLE
+}
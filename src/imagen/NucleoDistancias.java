@@ -0,0 +1,110 @@
+package imagen;
+
+/**
+ * nucleo de calculo de la asignacion de pixels a su centro
+ * mas cercano, el bucle principal de las k-medias. Trabaja
+ * sobre bloques de pixels consecutivos de un almacen por
+ * columnas. Hay dos implementaciones: una vectorial, basada
+ * en el modulo jdk.incubator.vector, que calcula a la vez las
+ * distancias de varios pixels a cada centro, y una escalar
+ * que se usa cuando el modulo no esta disponible. La
+ * implementacion vectorial esta en un directorio de fuentes
+ * aparte (vectorial), que solo se compila si el JDK tiene el
+ * modulo, y se carga por nombre, de forma que si no se ha
+ * compilado o falta el modulo en ejecucion se elige
+ * automaticamente la escalar. Ambas dan exactamente la misma
+ * asignacion
+ */
+public abstract class NucleoDistancias {
+   /**
+    * nucleo usado por la aplicacion, elegido al cargar la
+    * clase
+    */
+   private final static NucleoDistancias nucleo = crearNucleo();
+
+   /**
+    * devuelve el nucleo disponible: el vectorial si se puede
+    * usar y el escalar en otro caso
+    *
+    * @return nucleo de calculo
+    */
+   public static NucleoDistancias obtenerNucleo() {
+      return nucleo;
+   }
+
+   /**
+    * intenta crear el nucleo vectorial; si el modulo no esta
+    * presente o el procesador no tiene registros vectoriales
+    * utiles, se usa el escalar
+    *
+    * @return nucleo creado
+    */
+   private static NucleoDistancias crearNucleo() {
+      try {
+         return (NucleoDistancias) Class.forName("imagen.NucleoVectorial").
+                 getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException | LinkageError e) {
+         return new NucleoEscalar();
+      }
+   }
+
+   /**
+    * devuelve un nombre descriptivo del nucleo
+    *
+    * @return nombre del nucleo
+    */
+   public abstract String obtenerNombre();
+
+   /**
+    * asigna cada pixel de un bloque a su centro mas cercano.
+    * En caso de empate se queda con el centro de menor
+    * posicion, como AlmacenPixels.obtenerMasCercano
+    *
+    * @param rojos     componentes rojas de los pixels
+    * @param verdes    componentes verdes de los pixels
+    * @param azules    componentes azules de los pixels
+    * @param desde     primer pixel del bloque
+    * @param hasta     posicion siguiente al ultimo pixel
+    * @param centros   componentes consecutivas (rojo, verde y
+    *                  azul) de los centros
+    * @param etiquetas array donde se guarda el centro de cada
+    *                  pixel
+    * @param posicion  posicion de etiquetas para el primer
+    *                  pixel del bloque
+    */
+   abstract void asignar(float[] rojos, float[] verdes, float[] azules, int desde, int hasta,
+                         double[] centros, int[] etiquetas, int posicion);
+
+   /**
+    * asigna cada pixel de un bloque a su centro mas cercano
+    * calculando las distancias en float. Los centros se
+    * redondean a float una vez por llamada
+    *
+    * @param rojos     componentes rojas de los pixels
+    * @param verdes    componentes verdes de los pixels
+    * @param azules    componentes azules de los pixels
+    * @param desde     primer pixel del bloque
+    * @param hasta     posicion siguiente al ultimo pixel
+    * @param centros   componentes consecutivas de los centros
+    * @param etiquetas array donde se guarda el centro de cada
+    *                  pixel
+    * @param posicion  posicion de etiquetas para el primer
+    *                  pixel del bloque
+    */
+   abstract void asignarSimple(float[] rojos, float[] verdes, float[] azules, int desde,
+                               int hasta, double[] centros, int[] etiquetas, int posicion);
+
+   /**
+    * redondea las componentes de los centros a float
+    *
+    * @param centros componentes consecutivas de los centros
+    * @return array con las mismas componentes en float
+    */
+   protected static float[] convertirSimple(double[] centros) {
+      float[] simples = new float[centros.length];
+      for (int c = 0; c < centros.length; c++) {
+         simples[c] = (float) centros[c];
+      }
+      return simples;
+   }
+}
@@ -0,0 +1,79 @@
+package imagen;
+
+/**
+ * nucleo de asignacion escalar: recorre los pixels del bloque
+ * de uno en uno comparando con todos los centros
+ */
+class NucleoEscalar extends NucleoDistancias {
+   /**
+    * devuelve el nombre del nucleo
+    *
+    * @return nombre del nucleo
+    */
+   @Override
+   public String obtenerNombre() {
+      return "escalar";
+   }
+
+   /**
+    * asigna cada pixel del bloque a su centro mas cercano
+    *
+    * @param rojos     componentes rojas de los pixels
+    * @param verdes    componentes verdes de los pixels
+    * @param azules    componentes azules de los pixels
+    * @param desde     primer pixel del bloque
+    * @param hasta     posicion siguiente al ultimo pixel
+    * @param centros   componentes de los centros
+    * @param etiquetas array donde se guarda el centro de cada
+    *                  pixel
+    * @param posicion  posicion de etiquetas para el primer
+    *                  pixel del bloque
+    */
+   @Override
+   void asignar(float[] rojos, float[] verdes, float[] azules, int desde, int hasta,
+                double[] centros, int[] etiquetas, int posicion) {
+      for (int i = desde; i < hasta; i++) {
+         etiquetas[posicion++] = AlmacenPixels.obtenerMasCercano(rojos[i], verdes[i], azules[i],
+                 centros);
+      }
+   }
+
+   /**
+    * asigna cada pixel del bloque a su centro mas cercano con
+    * distancias en float
+    *
+    * @param rojos     componentes rojas de los pixels
+    * @param verdes    componentes verdes de los pixels
+    * @param azules    componentes azules de los pixels
+    * @param desde     primer pixel del bloque
+    * @param hasta     posicion siguiente al ultimo pixel
+    * @param centros   componentes de los centros
+    * @param etiquetas array donde se guarda el centro de cada
+    *                  pixel
+    * @param posicion  posicion de etiquetas para el primer
+    *                  pixel del bloque
+    */
+   @Override
+   void asignarSimple(float[] rojos, float[] verdes, float[] azules, int desde, int hasta,
+                      double[] centros, int[] etiquetas, int posicion) {
+      float[] simples = convertirSimple(centros);
+      for (int i = desde; i < hasta; i++) {
+         float rojo = rojos[i];
+         float verde = verdes[i];
+         float azul = azules[i];
+         int minimo = 0;
+         float minimaDistancia = Float.MAX_VALUE;
+         for (int j = 0, base = 0; base < simples.length; j++, base += 3) {
+            float dr = rojo - simples[base];
+            float dv = verde - simples[base + 1];
+            float da = azul - simples[base + 2];
+            float distancia = dr * dr + dv * dv + da * da;
+            if (distancia < minimaDistancia) {
+               minimaDistancia = distancia;
+               minimo = j;
+            }
+         }
+         etiquetas[posicion++] = minimo;
+      }
+   }
+}
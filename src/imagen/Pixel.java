@@ -101,9 +101,10 @@ public class Pixel implements Comparable<Pixel> {
     * @return valor de distancia
     */
    public double distanciaCuadratica(Pixel otro) {
-      return Math.pow(rojo - otro.rojo, 2) +
-              Math.pow(verde - otro.verde, 2) +
-              Math.pow(azul - otro.azul, 2);
+      double dr = rojo - otro.rojo;
+      double dv = verde - otro.verde;
+      double da = azul - otro.azul;
+      return dr * dr + dv * dv + da * da;
    }
 
    /**
@@ -156,8 +157,7 @@ public class Pixel implements Comparable<Pixel> {
    public double calcularSennal() {
       // se devuelve la raiz de la suma de los valores
       // al cuadrado
-      return Math.sqrt(Math.pow(rojo, 2) + Math.pow(verde, 2) +
-              Math.pow(azul, 2));
+      return Math.sqrt(rojo * rojo + verde * verde + azul * azul);
    }
 
    /**
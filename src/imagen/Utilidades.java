@@ -1,10 +1,21 @@
 package imagen;
 
 import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import java.awt.image.*;
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IntSummaryStatistics;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -59,6 +70,111 @@ public interface Utilidades {
    }
 
 
+   /**
+    * calcula los nuevos centros a partir de la clasificacion
+    * de los pixels de un almacen: el centro de cada grupo es
+    * la media de los pixels asignados, ponderada por el peso
+    * de cada entrada si el almacen tiene pesos. Si un grupo
+    * queda vacio se conserva su centro anterior. Las
+    * componentes son multiplos de 1/256, por lo que las sumas
+    * son exactas y el resultado no depende del orden ni de
+    * que los pixels repetidos se agrupen en una entrada con
+    * peso
+    *
+    * @param pixels    almacen con los pixels
+    * @param etiquetas posicion del centro asignado a cada pixel
+    * @param centros   centros usados en la clasificacion
+    * @return lista con los nuevos centros
+    */
+   static List<Pixel> calcularMedias(AlmacenPixels pixels, int[] etiquetas,
+                                     List<Pixel> centros) {
+      int k = centros.size();
+      long[] contadores = new long[k];
+      double[] medias = new double[3 * k];
+      calcularMedias(pixels, etiquetas, AlmacenPixels.convertirCentros(centros),
+              new double[3 * k], contadores, medias);
+
+      // se crean los nuevos centros; los grupos vacios
+      // conservan el objeto de su centro
+      List<Pixel> resultado = new ArrayList<>(k);
+      for(int j=0; j < k; j++){
+         if(contadores[j] == 0){
+            resultado.add(centros.get(j));
+         }
+         else{
+            resultado.add(new Pixel(medias[3 * j], medias[3 * j + 1], medias[3 * j + 2]));
+         }
+      }
+
+      // se devuelven los nuevos centros
+      return resultado;
+   }
+
+   /**
+    * version de calcularMedias que trabaja sobre arrays
+    * reservados por quien la llama, de forma que puede usarse
+    * en cada iteracion sin crear objetos nuevos. Los centros y
+    * las medias usan el formato de AlmacenPixels.convertirCentros
+    *
+    * @param pixels     almacen con los pixels (o colores ponderados)
+    * @param etiquetas  grupo asignado a cada entrada del almacen
+    * @param centros    componentes de los centros actuales
+    * @param sumas      array de trabajo para las sumas (3 por grupo)
+    * @param contadores array donde se deja el peso de cada grupo
+    * @param medias     array donde se dejan las componentes de
+    *                   los nuevos centros
+    */
+   static void calcularMedias(AlmacenPixels pixels, int[] etiquetas, double[] centros,
+                              double[] sumas, long[] contadores, double[] medias) {
+      Arrays.fill(sumas, 0);
+      Arrays.fill(contadores, 0);
+
+      // se acumulan las componentes de cada pixel en el
+      // grupo que tiene asignado
+      for(int i=0; i < pixels.obtenerNumeroPixels(); i++){
+         int grupo = etiquetas[i];
+         int peso = pixels.obtenerPeso(i);
+         sumas[3 * grupo] += peso * pixels.obtenerRojo(i);
+         sumas[3 * grupo + 1] += peso * pixels.obtenerVerde(i);
+         sumas[3 * grupo + 2] += peso * pixels.obtenerAzul(i);
+         contadores[grupo] += peso;
+      }
+
+      // se calculan los valores medios de cada grupo; los
+      // grupos vacios conservan su centro
+      for(int j=0; j < contadores.length; j++){
+         for(int c=3 * j; c < 3 * j + 3; c++){
+            medias[c] = contadores[j] == 0 ? centros[c] : sumas[c] / contadores[j];
+         }
+      }
+   }
+
+   static List<Pixel> calcularMediasFuncional(AlmacenPixels pixels, int[] etiquetas,
+                                              List<Pixel> centros) {
+      // se acumulan suma de componentes y contador de cada grupo
+      double[][] sumas = IntStream.range(0, pixels.obtenerNumeroPixels()).collect(
+              () -> new double[centros.size()][4],
+              (acumulado, indice) -> {
+                 double[] suma = acumulado[etiquetas[indice]];
+                 int peso = pixels.obtenerPeso(indice);
+                 suma[0] += peso * pixels.obtenerRojo(indice);
+                 suma[1] += peso * pixels.obtenerVerde(indice);
+                 suma[2] += peso * pixels.obtenerAzul(indice);
+                 suma[3] += peso;
+              },
+              (acumulado, parcial) -> IntStream.range(0, acumulado.length).forEach(grupo ->
+                      IntStream.range(0, 4).forEach(componente ->
+                              acumulado[grupo][componente] += parcial[grupo][componente])));
+
+      // los grupos vacios conservan su centro
+      return IntStream.range(0, centros.size()).
+              mapToObj(grupo -> sumas[grupo][3] == 0 ? centros.get(grupo) :
+                      new Pixel(sumas[grupo][0] / sumas[grupo][3],
+                              sumas[grupo][1] / sumas[grupo][3],
+                              sumas[grupo][2] / sumas[grupo][3])).
+              collect(Collectors.toList());
+   }
+
    /**
     * calcula los valores minimos y maximos para todos
     * los pixels de una coleccion
@@ -109,6 +225,48 @@ public interface Utilidades {
    }
 
 
+   /**
+    * calcula los indices de color minimo y maximo de los
+    * pixels de un almacen
+    *
+    * @param pixels almacen de pixels a considerar
+    * @return lista con el minimo y maximo indice de
+    * colores
+    */
+   static List<Integer> obtenerMinimoMaximo(AlmacenPixels pixels) {
+      // inicializar los valores minimo y maximo
+      int minimo = pixels.obtenerIndice(0);
+      int maximo = minimo;
+
+      // se consideran todos los pixels
+      for(int i=1; i < pixels.obtenerNumeroPixels(); i++){
+         int indiceColor = pixels.obtenerIndice(i);
+         if(indiceColor < minimo){
+            minimo = indiceColor;
+         }
+         if(indiceColor > maximo){
+            maximo = indiceColor;
+         }
+      }
+
+      // creo una lista para devolver los valores calculados
+      ArrayList<Integer> minMax = new ArrayList<>();
+      minMax.add(minimo);
+      minMax.add(maximo);
+
+      // devolver la lista
+      return minMax;
+   }
+
+   static List<Integer> obtenerMinimoMaximoFuncional(AlmacenPixels pixels) {
+      // las estadisticas del flujo de indices aportan ambos valores
+      IntSummaryStatistics estadisticas = IntStream.range(0, pixels.obtenerNumeroPixels()).
+              map(pixels::obtenerIndice).
+              summaryStatistics();
+
+      return List.of(estadisticas.getMin(), estadisticas.getMax());
+   }
+
    /**
     * obtiene una lista con todos los pixels cuyo indice
     * de color pertenece al intervalo especificado por
@@ -153,6 +311,51 @@ public interface Utilidades {
       }).collect(Collectors.toList());
    }
 
+   /**
+    * obtiene las posiciones de los pixels de un almacen cuyo
+    * indice de color pertenece al intervalo especificado por
+    * minimo y maximo
+    *
+    * @param pixels almacen de pixels a analizar
+    * @param minimo valor minimo del intervalo
+    * @param maximo valor maximo del intervalo
+    * @return posiciones de los pixels que pertenecen al
+    * intervalo
+    */
+   static int[] obtenerPuntosIntervalo(AlmacenPixels pixels,
+                                       double minimo, double maximo) {
+      // primero se cuentan los pixels del intervalo para
+      // crear el array con el tamaño justo
+      int contador = 0;
+      for(int i=0; i < pixels.obtenerNumeroPixels(); i++){
+         int indiceColor = pixels.obtenerIndice(i);
+         if(indiceColor >= minimo && indiceColor <= maximo){
+            contador++;
+         }
+      }
+
+      // se guardan las posiciones
+      int[] enIntervalo = new int[contador];
+      int siguiente = 0;
+      for(int i=0; i < pixels.obtenerNumeroPixels(); i++){
+         int indiceColor = pixels.obtenerIndice(i);
+         if(indiceColor >= minimo && indiceColor <= maximo){
+            enIntervalo[siguiente++] = i;
+         }
+      }
+
+      // se devuelve el array
+      return enIntervalo;
+   }
+
+   static int[] obtenerPuntosIntervaloFuncional(AlmacenPixels pixels,
+                                                double minimo, double maximo) {
+      return IntStream.range(0, pixels.obtenerNumeroPixels()).
+              filter(indice -> pixels.obtenerIndice(indice) >= minimo &&
+                      pixels.obtenerIndice(indice) <= maximo).
+              toArray();
+   }
+
    /**
     * metodo para leer un fichero y devolver la imagen creada
     * a partir de sus datos
@@ -177,6 +380,107 @@ public interface Utilidades {
       return imagen;
    }
 
+   /**
+    * recorre las filas de un fichero de imagen sin cargarlo
+    * entero en memoria: el fichero se decodifica una unica
+    * vez, de arriba abajo, y cada fila se entrega al
+    * consumidor (como colores ARGB) en cuanto esta completa;
+    * solo se guardan dos filas a la vez (ver BancoFilas). Los
+    * ficheros PNG entrelazados y los formatos que no escriben
+    * las filas en orden (BMP, GIF) se cargan enteros y despues
+    * se entregan sus filas. Si hay un error de lectura se
+    * informa y el recorrido termina
+    *
+    * @param ruta    ruta del fichero
+    * @param destino consumidor de las filas
+    * @return true si se han entregado todas las filas
+    */
+   public static boolean leerFilas(String ruta, Consumer<int[]> destino) {
+      ImageInputStream flujo = null;
+      ImageReader lector = null;
+      try {
+         flujo = ImageIO.createImageInputStream(new File(ruta));
+         Iterator<ImageReader> lectores = ImageIO.getImageReaders(flujo);
+         if (!lectores.hasNext()) {
+            System.out.println("formato no reconocido en " + ruta);
+            return false;
+         }
+         lector = lectores.next();
+         lector.setInput(flujo, true, false);
+         int ancho = lector.getWidth(0);
+         int alto = lector.getHeight(0);
+
+         // decodificacion en una pasada sobre un banco de dos filas
+         BancoFilas banco = null;
+         if (escribeEnOrden(lector)) {
+            banco = BancoFilas.crear(lector.getImageTypes(0).next(), ancho, alto, destino);
+         }
+         if (banco != null) {
+            ImageReadParam parametros = lector.getDefaultReadParam();
+            parametros.setDestination(banco.obtenerImagen());
+            lector.read(0, parametros);
+            banco.terminar();
+            return true;
+         }
+
+         // en otro caso se carga la imagen completa
+         BufferedImage buffer = lector.read(0);
+         for (int fila = 0; fila < alto; fila++) {
+            int[] colores = new int[ancho];
+            buffer.getRGB(0, fila, ancho, 1, colores, 0, ancho);
+            destino.accept(colores);
+         }
+         return true;
+      } catch (Exception e) {
+         System.out.println("error al leer las filas de " + ruta);
+         System.out.println(e);
+         return false;
+      } finally {
+         // se liberan el lector y el fichero
+         if (lector != null) {
+            lector.dispose();
+         }
+         if (flujo != null) {
+            try {
+               flujo.close();
+            } catch (IOException e) {
+               System.out.println(e);
+            }
+         }
+      }
+   }
+
+   /**
+    * comprueba si el lector escribe cada fila de la imagen
+    * una unica vez y de arriba abajo: PNG sin entrelazar y
+    * JPEG secuencial. Las imagenes entrelazadas y las JPEG
+    * progresivas se escriben en varias pasadas
+    *
+    * @param lector lector con el fichero ya asignado
+    * @return true si las filas se escriben en orden
+    * @throws IOException si no se puede leer la cabecera
+    */
+   private static boolean escribeEnOrden(ImageReader lector) throws IOException {
+      String formato = lector.getFormatName().toLowerCase();
+      if (!formato.equals("png") && !formato.equals("jpeg")) {
+         return false;
+      }
+
+      // cabecera con el modo de codificacion: IHDR en PNG y
+      // SOF en JPEG
+      IIOMetadata metadatos = lector.getImageMetadata(0);
+      Element raiz = (Element) metadatos.getAsTree(metadatos.getNativeMetadataFormatName());
+      NodeList cabecera = raiz.getElementsByTagName(formato.equals("png") ? "IHDR" : "sof");
+      if (cabecera.getLength() == 0) {
+         return false;
+      }
+      Element nodo = (Element) cabecera.item(0);
+      if (formato.equals("png")) {
+         return "none".equals(nodo.getAttribute("interlaceMethod"));
+      }
+      return !"2".equals(nodo.getAttribute("process"));
+   }
+
    /**
     * metodo auxiliar para realizar la carga de los datos
     * de la imagen y la construccion del objeto
@@ -192,14 +496,10 @@ public interface Utilidades {
       try{
          BufferedImage buffer = ImageIO.read(flujo);
 
-         // se crea una lista con los indices de los colores
-         List<Integer> datos = new ArrayList<>();
-         int dimension = buffer.getHeight()*buffer.getWidth();
-         for(int i=0; i < dimension; i++){
-            List<Integer> indices = convertirDesplazamientoIndices(i,
-                    buffer.getWidth());
-            datos.add(buffer.getRGB(indices.get(0), indices.get(1)));
-         }
+         // se crea un array con los indices de los colores,
+         // copiados directamente desde el raster
+         int[] datos = new int[buffer.getHeight()*buffer.getWidth()];
+         convertirFilas(buffer, datos, 0, buffer.getHeight());
 
          // se puede crear la imagen
          imagen = new Imagen(buffer.getWidth(), buffer.getHeight(), datos);
@@ -216,18 +516,9 @@ public interface Utilidades {
       try{
          BufferedImage buffer = ImageIO.read(flujo);
 
-         // se crea una lista con los indices de los colores
-         int dimension = buffer.getHeight()*buffer.getWidth();
-
-         List<Integer> datos = IntStream.range(0, dimension).
-                 boxed().
-                 map(indice -> {
-                    List<Integer> indices = convertirDesplazamientoIndices(indice,
-                            buffer.getWidth());
-
-                    return buffer.getRGB(indices.get(0), indices.get(1));
-                 }).
-                 collect(Collectors.toList());
+         // se crea un array con los indices de los colores,
+         // convirtiendo en paralelo bandas de filas
+         int[] datos = extraerColores(buffer);
 
          // se puede crear la imagen
          imagen = new Imagen(buffer.getWidth(), buffer.getHeight(), datos);
@@ -239,28 +530,155 @@ public interface Utilidades {
       return imagen;
    }
 
+   /**
+    * obtiene los colores (ARGB empaquetado) de todos los
+    * pixels de una imagen en memoria. La conversion se hace
+    * en paralelo por bandas de filas
+    *
+    * @param buffer imagen en memoria
+    * @return array con los colores, recorridos por filas
+    */
+   static int[] extraerColores(BufferedImage buffer) {
+      int[] datos = new int[buffer.getHeight() * buffer.getWidth()];
+
+      // bandas de al menos 64 filas para que el reparto
+      // compense
+      int filasBanda = 64;
+      int bandas = (buffer.getHeight() + filasBanda - 1) / filasBanda;
+      IntStream.range(0, bandas).parallel().
+              forEach(banda -> convertirFilas(buffer, datos, banda * filasBanda,
+                      Math.min(buffer.getHeight(), (banda + 1) * filasBanda)));
+
+      // se devuelve el array
+      return datos;
+   }
+
+   /**
+    * copia en el array de datos los colores de un grupo de
+    * filas consecutivas. Para las organizaciones habituales
+    * de PNG y JPEG (enteros ARGB/RGB y bytes BGR/ABGR) se
+    * leen directamente los bancos de datos del raster; en
+    * otro caso se usa la lectura en bloque de getRGB, que
+    * pasa por el modelo de color
+    *
+    * @param buffer imagen en memoria
+    * @param datos  array destino, con tamaño ancho x alto
+    * @param desde  primera fila (incluida)
+    * @param hasta  ultima fila (excluida)
+    */
+   private static void convertirFilas(BufferedImage buffer, int[] datos,
+                                      int desde, int hasta) {
+      int ancho = buffer.getWidth();
+      int inicio = desde * ancho;
+      int fin = hasta * ancho;
+
+      // si el raster no permite acceso directo se usa la
+      // lectura en bloque
+      if (!esAccesoDirecto(buffer)) {
+         buffer.getRGB(0, desde, ancho, hasta - desde, datos, inicio, ancho);
+         return;
+      }
+
+      DataBuffer banco = buffer.getRaster().getDataBuffer();
+      switch (buffer.getType()) {
+         case BufferedImage.TYPE_INT_ARGB: {
+            int[] origen = ((DataBufferInt) banco).getData();
+            System.arraycopy(origen, inicio, datos, inicio, fin - inicio);
+            break;
+         }
+         case BufferedImage.TYPE_INT_RGB: {
+            int[] origen = ((DataBufferInt) banco).getData();
+            for (int i = inicio; i < fin; i++) {
+               datos[i] = 0xff000000 | origen[i];
+            }
+            break;
+         }
+         case BufferedImage.TYPE_3BYTE_BGR: {
+            byte[] origen = ((DataBufferByte) banco).getData();
+            for (int i = inicio, j = 3 * inicio; i < fin; i++, j += 3) {
+               datos[i] = 0xff000000 | ((origen[j + 2] & 0xff) << 16) |
+                       ((origen[j + 1] & 0xff) << 8) | (origen[j] & 0xff);
+            }
+            break;
+         }
+         case BufferedImage.TYPE_4BYTE_ABGR: {
+            byte[] origen = ((DataBufferByte) banco).getData();
+            for (int i = inicio, j = 4 * inicio; i < fin; i++, j += 4) {
+               datos[i] = ((origen[j] & 0xff) << 24) | ((origen[j + 3] & 0xff) << 16) |
+                       ((origen[j + 2] & 0xff) << 8) | (origen[j + 1] & 0xff);
+            }
+            break;
+         }
+         default:
+            buffer.getRGB(0, desde, ancho, hasta - desde, datos, inicio, ancho);
+      }
+   }
+
+   /**
+    * comprueba si los datos de una imagen pueden leerse
+    * directamente del banco de datos: tipo conocido, un unico
+    * banco sin desplazamientos y filas sin relleno
+    *
+    * @param buffer imagen en memoria
+    * @return true si se admite la lectura directa
+    */
+   private static boolean esAccesoDirecto(BufferedImage buffer) {
+      WritableRaster raster = buffer.getRaster();
+      DataBuffer banco = raster.getDataBuffer();
+      SampleModel modelo = raster.getSampleModel();
+      int ancho = buffer.getWidth();
+
+      // sin desplazamientos respecto al banco de datos
+      if (banco.getNumBanks() != 1 || banco.getOffset() != 0 ||
+              raster.getSampleModelTranslateX() != 0 ||
+              raster.getSampleModelTranslateY() != 0) {
+         return false;
+      }
+
+      // las filas deben ser consecutivas, sin relleno
+      boolean resultado = false;
+      switch (buffer.getType()) {
+         case BufferedImage.TYPE_INT_ARGB:
+         case BufferedImage.TYPE_INT_RGB:
+            resultado = modelo instanceof SinglePixelPackedSampleModel &&
+                    ((SinglePixelPackedSampleModel) modelo).getScanlineStride() == ancho;
+            break;
+         case BufferedImage.TYPE_3BYTE_BGR:
+         case BufferedImage.TYPE_4BYTE_ABGR:
+            resultado = modelo instanceof ComponentSampleModel &&
+                    ((ComponentSampleModel) modelo).getScanlineStride() ==
+                            ancho * ((ComponentSampleModel) modelo).getPixelStride();
+            break;
+      }
+
+      // se devuelve el resultado
+      return resultado;
+   }
+
    /**
     * metodo publico para guardar una imagen en una
-    * ruta
+    * ruta. Si la imagen tiene como mucho 256 colores (por
+    * ejemplo, el resultado de las k-medias) se guarda con
+    * paleta
     *
     * @param imagen imagen a salvar
     * @param ruta   ruta del archivo a generar
-    *               NOTA: por implementar
     */
    static void salvarImagen(Imagen imagen, String ruta) {
       try{
          FileOutputStream fichero = new FileOutputStream(ruta);
-         BufferedImage buffer = new BufferedImage(
-                 imagen.obtenerColumnas(), imagen.obtenerFilas(),
-                 BufferedImage.TYPE_INT_ARGB);
-
-         // recorrido para almacenar los pixels
-         int dimension = imagen.obtenerColumnas() * imagen.obtenerFilas();
-         for(int i=0; i < dimension; i++){
-            List<Integer> indices =
-                    convertirDesplazamientoIndices(i, imagen.obtenerColumnas());
-            buffer.setRGB(indices.get(0), indices.get(1),
-                    imagen.obtenerColorPixel(i));
+
+         // se intenta generar la version con paleta
+         BufferedImage buffer = crearImagenIndexada(imagen, detectarPaleta(imagen));
+         if(buffer == null){
+            buffer = new BufferedImage(
+                    imagen.obtenerColumnas(), imagen.obtenerFilas(),
+                    BufferedImage.TYPE_INT_ARGB);
+
+            // se copian todos los pixels de una vez desde el
+            // array de la imagen
+            buffer.setRGB(0, 0, imagen.obtenerColumnas(), imagen.obtenerFilas(),
+                    imagen.obtenerDatos(), 0, imagen.obtenerColumnas());
          }
 
          // se guarda el buffer
@@ -275,26 +693,63 @@ public interface Utilidades {
    static void salvarImagenFuncional(Imagen imagen, String ruta) {
       try{
          FileOutputStream fichero = new FileOutputStream(ruta);
-         BufferedImage buffer = new BufferedImage(
-                 imagen.obtenerColumnas(), imagen.obtenerFilas(),
-                 BufferedImage.TYPE_INT_ARGB);
 
-         // recorrido para almacenar los pixels
-         int dimension = imagen.obtenerColumnas() * imagen.obtenerFilas();
+         // se intenta generar la version con paleta; si no es
+         // posible se recorren las filas para almacenar los pixels
+         BufferedImage buffer = Optional.ofNullable(
+                 crearImagenIndexada(imagen, detectarPaleta(imagen))).
+                 orElseGet(() -> {
+                    BufferedImage argb = new BufferedImage(
+                            imagen.obtenerColumnas(), imagen.obtenerFilas(),
+                            BufferedImage.TYPE_INT_ARGB);
+                    int columnas = imagen.obtenerColumnas();
+                    int[] datos = imagen.obtenerDatos();
+
+                    IntStream.range(0, imagen.obtenerFilas()).
+                            forEach(fila -> argb.setRGB(0, fila, columnas, 1,
+                                    datos, fila * columnas, columnas));
+                    return argb;
+                 });
 
-         IntStream.range(0, dimension).
-                 boxed().
-                 map(indice -> {
-                    List<Integer> indices =
-                            convertirDesplazamientoIndices(indice, imagen.obtenerColumnas());
+         System.out.println(buffer);
 
-                    buffer.setRGB(indices.get(0), indices.get(1),
-                            imagen.obtenerColorPixel(indice));
+         // se guarda el buffer
+         ImageIO.write(buffer, "png", fichero);
+         fichero.close();
+      }catch (Exception e){
+         System.out.println("error en almacenamiento de archivo");
+         System.out.println(e);
+      }
+   }
 
-                    return 1;
-                 }).collect(Collectors.toList());
+   /**
+    * guarda una imagen con paleta usando como paleta los
+    * colores indicados, por ejemplo los centros finales de
+    * las k-medias. Si la paleta no cubre todos los colores de
+    * la imagen o tiene mas de 256 colores, se guarda con la
+    * paleta detectada en la propia imagen o sin paleta
+    *
+    * @param imagen imagen a salvar
+    * @param paleta colores de la paleta
+    * @param ruta   ruta del archivo a generar
+    */
+   static void salvarImagen(Imagen imagen, List<Pixel> paleta, String ruta) {
+      try{
+         FileOutputStream fichero = new FileOutputStream(ruta);
 
-         System.out.println(buffer);
+         // se intenta primero con la paleta indicada
+         int[] colores = paleta.stream().mapToInt(Pixel::obtenerIndice).toArray();
+         BufferedImage buffer = crearImagenIndexada(imagen, colores);
+         if(buffer == null){
+            buffer = crearImagenIndexada(imagen, detectarPaleta(imagen));
+         }
+         if(buffer == null){
+            buffer = new BufferedImage(
+                    imagen.obtenerColumnas(), imagen.obtenerFilas(),
+                    BufferedImage.TYPE_INT_ARGB);
+            buffer.setRGB(0, 0, imagen.obtenerColumnas(), imagen.obtenerFilas(),
+                    imagen.obtenerDatos(), 0, imagen.obtenerColumnas());
+         }
 
          // se guarda el buffer
          ImageIO.write(buffer, "png", fichero);
@@ -305,6 +760,103 @@ public interface Utilidades {
       }
    }
 
+   /**
+    * obtiene los colores de la imagen si son como mucho 256,
+    * para poder guardarla con paleta
+    *
+    * @param imagen imagen a analizar
+    * @return colores distintos de la imagen, o null si hay
+    * mas de 256
+    */
+   private static int[] detectarPaleta(Imagen imagen) {
+      Histograma histograma = imagen.obtenerHistograma();
+      return histograma.obtenerNumeroColores() <= 256 ?
+              histograma.obtenerColores() : null;
+   }
+
+   /**
+    * genera una imagen en memoria con paleta (IndexColorModel)
+    * de 1, 2, 4 u 8 bits por pixel segun el numero de colores.
+    * Los indices se escriben en el raster por filas completas
+    *
+    * @param imagen imagen a convertir
+    * @param paleta colores de la paleta (como mucho 256)
+    * @return imagen con paleta, o null si la paleta es nula,
+    * demasiado grande o no contiene todos los colores
+    */
+   private static BufferedImage crearImagenIndexada(Imagen imagen, int[] paleta) {
+      if(paleta == null || paleta.length == 0 || paleta.length > 256){
+         return null;
+      }
+
+      // se asocia a cada posicion del histograma la posicion
+      // de su color en la paleta
+      Histograma histograma = imagen.obtenerHistograma();
+      int[] posiciones = new int[histograma.obtenerCapacidad()];
+      Arrays.fill(posiciones, -1);
+      int cubiertos = 0;
+      for(int i=0; i < paleta.length; i++){
+         int posicion = histograma.obtenerPosicion(paleta[i]);
+         if(posicion >= 0 && posiciones[posicion] < 0){
+            posiciones[posicion] = i;
+            cubiertos++;
+         }
+      }
+
+      // todos los colores de la imagen deben estar en la paleta
+      if(cubiertos != histograma.obtenerNumeroColores()){
+         return null;
+      }
+
+      // bits por indice: 1, 2, 4 u 8
+      int bits = 8;
+      if(paleta.length <= 2){
+         bits = 1;
+      }
+      else if(paleta.length <= 4){
+         bits = 2;
+      }
+      else if(paleta.length <= 16){
+         bits = 4;
+      }
+
+      // componentes de la paleta
+      byte[] rojos = new byte[paleta.length];
+      byte[] verdes = new byte[paleta.length];
+      byte[] azules = new byte[paleta.length];
+      byte[] alfas = new byte[paleta.length];
+      for(int i=0; i < paleta.length; i++){
+         alfas[i] = (byte) (paleta[i] >>> 24);
+         rojos[i] = (byte) (paleta[i] >>> 16);
+         verdes[i] = (byte) (paleta[i] >>> 8);
+         azules[i] = (byte) paleta[i];
+      }
+      IndexColorModel modelo = new IndexColorModel(bits, paleta.length,
+              rojos, verdes, azules, alfas);
+
+      // con 8 bits un byte por pixel; con menos, los indices
+      // se empaquetan en cada byte
+      int columnas = imagen.obtenerColumnas();
+      BufferedImage buffer = new BufferedImage(columnas, imagen.obtenerFilas(),
+              bits == 8 ? BufferedImage.TYPE_BYTE_INDEXED : BufferedImage.TYPE_BYTE_BINARY,
+              modelo);
+
+      // se escriben los indices fila a fila
+      WritableRaster raster = buffer.getRaster();
+      int[] datos = imagen.obtenerDatos();
+      int[] fila = new int[columnas];
+      for(int y=0; y < imagen.obtenerFilas(); y++){
+         int inicio = y * columnas;
+         for(int x=0; x < columnas; x++){
+            fila[x] = posiciones[histograma.obtenerPosicion(datos[inicio + x])];
+         }
+         raster.setSamples(0, y, columnas, 1, 0, fila);
+      }
+
+      // se devuelve la imagen con paleta
+      return buffer;
+   }
+
    /**
     * convierte la localizacion mediante filas y columnas
     * en un desplazamiento sobre el primer pixel
@@ -8,5 +8,19 @@
  * c) RGBA: clase con metodos estaticos para manipulacion de
  * componentes de color
  * d) Utilidades: interfaz con metodos estaticos de uso general
+ * e) AlmacenPixels: almacen compacto de pixels, con las
+ * componentes de color en arrays paralelos
+ * f) Histograma: numero de pixels de cada color distinto,
+ * en una tabla hash de direccionamiento abierto
+ * g) NucleoDistancias: nucleo de asignacion de pixels a su
+ * centro mas cercano, con una implementacion vectorial
+ * (NucleoVectorial, en el directorio de fuentes vectorial) y
+ * otra escalar (NucleoEscalar) que se elige cuando el modulo
+ * jdk.incubator.vector no esta disponible
+ * h) ModoPrecision: enumerado para la precision, double o
+ * float, de los calculos de distancia de la asignacion
+ * i) BancoFilas: banco de datos de dos filas con el que
+ * Utilidades.leerFilas decodifica un fichero por filas en
+ * una unica pasada
  */
 package imagen;
\ No newline at end of file
@@ -19,4 +19,12 @@ public interface EstrategiaInicializacion {
     */
    List<Pixel> seleccionar(KMedias kmedias);
    List<Pixel> seleccionarFuncional(KMedias kmedias);
+
+   /**
+    * indica si la seleccion recorre los pixels de la imagen
+    * (el almacen de KMedias.obtenerPixels)
+    *
+    * @return true si usa el almacen de pixels
+    */
+   boolean necesitaPixels();
 }
@@ -21,5 +21,23 @@ public enum ModoInicializacion {
     * seleccion de centroides para seleccionar
     * mas centros de los colores mas presentes
     */
-   MUESTREO_ESTRATIFICADO
+   MUESTREO_ESTRATIFICADO,
+
+   /**
+    * seleccion de centroides mediante k-medias++ voraz
+    * sobre los colores distintos de la imagen
+    */
+   MUESTREO_KMEDIAS_PP,
+
+   /**
+    * seleccion de centroides con la paleta de un arbol
+    * octal
+    */
+   CUANTIZACION_OCTREE,
+
+   /**
+    * seleccion de centroides con la paleta del algoritmo
+    * de Wu
+    */
+   CUANTIZACION_WU
 }
@@ -1,23 +1,48 @@
 package inicializacion;
 
+import imagen.AlmacenPixels;
 import imagen.Pixel;
 import kmedias.KMedias;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 /**
  * clase para realizar la inicializacion de
  * centroides mediante muestreo aleatorio
  */
 public class MuestreoAleatorio implements EstrategiaInicializacion {
+   /**
+    * generador de numeros aleatorios
+    */
+   private final Random generador;
+
+   /**
+    * constructor con semilla aleatoria
+    */
+   public MuestreoAleatorio() {
+      generador = new Random();
+   }
+
+   /**
+    * constructor con semilla fija, para obtener siempre los
+    * mismos centros
+    *
+    * @param semilla semilla del generador
+    */
+   public MuestreoAleatorio(long semilla) {
+      generador = new Random(semilla);
+   }
 
    /**
     * seleccion aleatoria de centroides utilizando
-    * distribucion uniforme sobre el numero de pixels
+    * distribucion uniforme sobre el numero de pixels. Si la
+    * imagen tiene menos de k pixels se devuelven todos
     *
     * @param kmedias objeto a inicializar
     * @return lista de objetos de la clase Pixel
@@ -29,22 +54,11 @@ public class MuestreoAleatorio implements EstrategiaInicializacion {
       ArrayList<Pixel> seleccionados = new ArrayList<>();
 
       // obtener los pixels de donde se muestrea
-      List<Pixel> pixels = kmedias.obtenerPixels();
-
-      // generar un array de indices desde 0 hasta
-      // el numero de pixels - 1
-      ArrayList<Integer> indices = new ArrayList<>();
-      for(int i=0; i < pixels.size(); i++){
-         indices.add(i);
-      }
-
-      // se baraja el array de indices
-      Collections.shuffle(indices);
+      AlmacenPixels pixels = kmedias.obtenerPixels();
 
-      // se seleccionan los k primeros elementos de
-      // el array barajado de indices
-      for(int i=0; i < kmedias.obtenerK(); i++){
-         seleccionados.add(pixels.get(indices.get(i)));
+      // se toman los pixels de los indices elegidos
+      for(int indice : elegirIndices(pixels.obtenerNumeroPixels(), kmedias.obtenerK())){
+         seleccionados.add(pixels.obtenerPixel(indice));
       }
 
       // se devuelve la lista de puntos seleccionados
@@ -53,21 +67,65 @@ public class MuestreoAleatorio implements EstrategiaInicializacion {
    @Override
    public List<Pixel> seleccionarFuncional(KMedias kmedias) {
       // obtener los pixels de donde se muestrea
-      List<Pixel> pixels = kmedias.obtenerPixels();
+      AlmacenPixels pixels = kmedias.obtenerPixels();
 
-      // generar un array de indices desde 0 hasta
-      // el numero de pixels - 1
-      List<Integer> indices = IntStream.range(0, pixels.size()).
-                                   boxed().
-                                   collect(Collectors.toList());
+      // flujo con los pixels de los indices elegidos
+      return Arrays.stream(elegirIndices(pixels.obtenerNumeroPixels(), kmedias.obtenerK())).
+              mapToObj(pixels::obtenerPixel).
+              collect(Collectors.toList());
 
-      // se baraja el array de indices
-      Collections.shuffle(indices);
+   }
 
-      // se seleccionan los k primeros elementos de
-      // el array barajado de indices
-      return indices.stream().map(pixel -> pixels.get(pixel)).limit(kmedias.obtenerK()).
-              collect(Collectors.toList());
+   /**
+    * elige min(k, n) indices distintos entre 0 y n - 1. Si se
+    * eligen pocos indices respecto a n se generan al azar
+    * descartando los repetidos, sin recorrer todos los
+    * indices; si se eligen muchos, los descartes serian
+    * demasiado frecuentes y se baraja parcialmente el array de
+    * indices (Fisher-Yates), que termina siempre
+    *
+    * @param n numero de pixels
+    * @param k numero de indices deseado
+    * @return indices elegidos
+    */
+   private int[] elegirIndices(int n, int k) {
+      int m = Math.min(k, n);
+      int[] elegidos = new int[m];
+      if(2 * m <= n){
+         // muestreo con descarte de repetidos
+         Set<Integer> usados = new HashSet<>();
+         int contador = 0;
+         while(contador < m){
+            int indice = generador.nextInt(n);
+            if(usados.add(indice)){
+               elegidos[contador++] = indice;
+            }
+         }
+      }
+      else{
+         // se barajan solo las m primeras posiciones
+         int[] indices = new int[n];
+         for(int i=0; i < n; i++){
+            indices[i] = i;
+         }
+         for(int i=0; i < m; i++){
+            int j = i + generador.nextInt(n - i);
+            int auxiliar = indices[i];
+            indices[i] = indices[j];
+            indices[j] = auxiliar;
+            elegidos[i] = indices[i];
+         }
+      }
+      return elegidos;
+   }
 
+   /**
+    * la seleccion se hace sobre los pixels de la imagen
+    *
+    * @return true
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return true;
    }
 }
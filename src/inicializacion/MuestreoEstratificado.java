@@ -1,5 +1,6 @@
 package inicializacion;
 
+import imagen.AlmacenPixels;
 import imagen.Pixel;
 import kmedias.KMedias;
 import imagen.Utilidades;
@@ -14,6 +15,28 @@ import java.util.stream.IntStream;
  * mediante muestreo estratificado
  */
 public class MuestreoEstratificado implements EstrategiaInicializacion {
+   /**
+    * generador de numeros aleatorios
+    */
+   private final Random generador;
+
+   /**
+    * constructor con semilla aleatoria
+    */
+   public MuestreoEstratificado() {
+      generador = new Random();
+   }
+
+   /**
+    * constructor con semilla fija, para obtener siempre los
+    * mismos centros
+    *
+    * @param semilla semilla del generador
+    */
+   public MuestreoEstratificado(long semilla) {
+      generador = new Random(semilla);
+   }
+
    /**
     * seleccion de centroides con muestreo estratificado.
     * Requiere determinar el numero de pixels asociado a
@@ -30,23 +53,23 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
       int k = kmedias.obtenerK();
 
       // se obtienen los pixels de la imagen
-      List<Pixel> pixels = kmedias.obtenerPixels();
+      AlmacenPixels pixels = kmedias.obtenerPixels();
 
       // se crea la lista resultado
       List<Pixel> seleccionados;
 
       // agrupar los pixels de acuerdo a sus colores,
       // en los intervalos considerados
-      Map<Integer, List<Pixel>> porIntervalo =
+      Map<Integer, int[]> porIntervalo =
               agruparPixelsIntervalos(k, pixels);
 
       // se obtiene la distribucion de probabilidad
       // asociada al agrupamiento
       List<Double> distribucion = obtenerDistribucion(porIntervalo,
-              pixels.size());
+              pixels.obtenerNumeroPixels());
 
       // se realiza la seleccion
-      seleccionados = muestrear(porIntervalo, distribucion, k);
+      seleccionados = muestrear(pixels, porIntervalo, distribucion, k);
 
       // se devuelve la lista de centroides seleccionados
       return seleccionados;
@@ -58,23 +81,23 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
       int k = kmedias.obtenerK();
 
       // se obtienen los pixels de la imagen
-      List<Pixel> pixels = kmedias.obtenerPixels();
+      AlmacenPixels pixels = kmedias.obtenerPixels();
 
       // se crea la lista resultado
       List<Pixel> seleccionados;
 
       // agrupar los pixels de acuerdo a sus colores,
       // en los intervalos considerados
-      Map<Integer, List<Pixel>> porIntervalo =
+      Map<Integer, int[]> porIntervalo =
               agruparPixelsIntervalosFuncional(k, pixels);
 
       // se obtiene la distribucion de probabilidad
       // asociada al agrupamiento
       List<Double> distribucion = obtenerDistribucionFuncional(porIntervalo,
-              pixels.size());
+              pixels.obtenerNumeroPixels());
 
       // se realiza la seleccion
-      seleccionados = muestrearFuncional(porIntervalo, distribucion, k);
+      seleccionados = muestrearFuncional(pixels, porIntervalo, distribucion, k);
 
 
       // se devuelve la lista de centroides seleccionados
@@ -87,15 +110,15 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
     * de color
     *
     * @param k      numero de tramos a considerar
-    * @param pixels lista de pixels a agrupar
-    * @return mapa con agrupamientos de pixels por
-    * intervalos
+    * @param pixels almacen de pixels a agrupar
+    * @return mapa con las posiciones de los pixels de
+    * cada intervalo
     * NOTA: por implementar
     */
-   private Map<Integer, List<Pixel>> agruparPixelsIntervalos(int k,
-                                       List<Pixel> pixels) {
+   private Map<Integer, int[]> agruparPixelsIntervalos(int k,
+                                       AlmacenPixels pixels) {
       // crear el diccionario a devolver
-      Map<Integer, List<Pixel>> porIntervalo = new HashMap<>();
+      Map<Integer, int[]> porIntervalo = new HashMap<>();
 
       // determinar colores minimo y maximo del rango de colores
       List<Integer> minMax = Utilidades.obtenerMinimoMaximo(pixels);
@@ -113,7 +136,7 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
 
          // se obtienen los pixels con indices de colores
          // comprendidos en el intervalo
-         List<Pixel> enIntervalo =
+         int[] enIntervalo =
                  Utilidades.obtenerPuntosIntervalo(pixels, inicio, fin);
 
          // agrego la entrada al diccionario
@@ -123,8 +146,8 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
       // se devuelve el map
       return porIntervalo;
    }
-   private Map<Integer, List<Pixel>> agruparPixelsIntervalosFuncional(int k,
-                                                             List<Pixel> pixels) {
+   private Map<Integer, int[]> agruparPixelsIntervalosFuncional(int k,
+                                                             AlmacenPixels pixels) {
       // determinar colores minimo y maximo del rango de colores
       List<Integer> minMax = Utilidades.obtenerMinimoMaximoFuncional(pixels);
       System.out.println("maximo color: " + minMax.get(1));
@@ -156,7 +179,7 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
     * NOTA: por implementar
     */
    private List<Double> obtenerDistribucion(
-           Map<Integer, List<Pixel>> porIntervalo, int numeroPixels) {
+           Map<Integer, int[]> porIntervalo, int numeroPixels) {
       // se crea la coleccion a devolver
       List<Double> distribucion = new ArrayList<>();
 
@@ -169,8 +192,8 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
       for(int i=0; i < porIntervalo.size(); i++) {
          // se calcular el valor de probabilidad que
          // corresponde al grupo
-         valor = porIntervalo.get(i).size() / (numeroPixels*1.0);
-         System.out.println("tam grupo: " + porIntervalo.get(i).size() +
+         valor = porIntervalo.get(i).length / (numeroPixels*1.0);
+         System.out.println("tam grupo: " + porIntervalo.get(i).length +
             " - " + numeroPixels);
          System.out.println("valor: " + valor);
 
@@ -185,11 +208,11 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
       return distribucion;
    }
    private List<Double> obtenerDistribucionFuncional(
-           Map<Integer, List<Pixel>> porIntervalo, int numeroPixels) {
+           Map<Integer, int[]> porIntervalo, int numeroPixels) {
       List<Double> distribucion = new ArrayList<>();
 
       porIntervalo.values().stream().
-              mapToInt(List::size).
+              mapToInt(intervalo -> intervalo.length).
               mapToDouble(size -> size / (numeroPixels * 1.0)).
               reduce(0.0, (x, y) -> {
                  distribucion.add(x + y);
@@ -199,11 +222,11 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
       return distribucion;
    }
    private List<Double> obtenerDistribucionFuncionalV2(
-           Map<Integer, List<Pixel>> porIntervalo, int numeroPixels) {
+           Map<Integer, int[]> porIntervalo, int numeroPixels) {
       List<Double> distribucion = new ArrayList<>();
 
       List<Double> acumulados = porIntervalo.entrySet().stream().map(intervalo -> {
-         double valor = intervalo.getValue().size() / (numeroPixels * 1.0);
+         double valor = intervalo.getValue().length / (numeroPixels * 1.0);
          return valor;
       }).collect(Collectors.toList());
 
@@ -219,6 +242,7 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
     * se realiza el muestreo usando los pixels en la
     * distribucion y las probabilidades asociadas
     *
+    * @param pixels       almacen con los pixels
     * @param porIntervalo agrupamiento de pixels por
     *                     intervalo
     * @param distribucion distribucion de probabilidad
@@ -228,16 +252,13 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
     * centroides
     * NOTA: por implementar
     */
-   private List<Pixel> muestrear(
-           Map<Integer, List<Pixel>> porIntervalo,
+   private List<Pixel> muestrear(AlmacenPixels pixels,
+           Map<Integer, int[]> porIntervalo,
            List<Double> distribucion, int k) {
       // se crea la lista de pixels a devolver
       List<Pixel> seleccionados = new ArrayList<>();
 
 
-      // se crea el generador de numeros aleatorios
-      Random generador = new Random();
-
       // se realiza el muestreo mediante generacion
       // de numeros aleatorios
       double semilla;
@@ -252,7 +273,7 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
 
          // se selecciona pixel del intervalo correspondiente
          Pixel seleccionado =
-             seleccionarPixelTramo(porIntervalo.get(indiceIntervalo));
+             seleccionarPixelTramo(pixels, porIntervalo.get(indiceIntervalo));
 
          // se agrega el pixel seleccionado a la lista de
          // seleccionados
@@ -262,13 +283,11 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
       // se devuelve la lista de pixels seleccionados
       return seleccionados;
    }
-   private List<Pixel> muestrearFuncional(
-           Map<Integer, List<Pixel>> porIntervalo,
+   private List<Pixel> muestrearFuncional(AlmacenPixels pixels,
+           Map<Integer, int[]> porIntervalo,
            List<Double> distribucion, int k) {
       // se crea la lista de pixels a devolver
       List<Pixel> seleccionados = new ArrayList<>();
-      // se crea el generador de numeros aleatorios
-      Random generador = new Random();
 
       // se realiza el muestreo mediante generacion
       // de numeros aleatorios
@@ -276,7 +295,7 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
       return IntStream.range(0, k).boxed().map(indice -> {
             double semilla = generador.nextDouble();
             int indiceIntervalo = obtenerTramoFuncional(semilla, distribucion);
-            return seleccionarPixelTramo(porIntervalo.get(indiceIntervalo));
+            return seleccionarPixelTramo(pixels, porIntervalo.get(indiceIntervalo));
          }
       ).collect(Collectors.toList());
    }
@@ -318,19 +337,29 @@ public class MuestreoEstratificado implements EstrategiaInicializacion {
 
 
    /**
-    * se selecciona de forma aleatoria un pixel de la lista
-    * de pixels pasados como argumentos
+    * se selecciona de forma aleatoria un pixel entre las
+    * posiciones de un tramo
     *
-    * @param pixels lista de pixels a considerar
+    * @param pixels     almacen con los pixels
+    * @param posiciones posiciones de los pixels del tramo
     * @return pixel seleccionado de forma aleatoria
     */
-   private Pixel seleccionarPixelTramo(List<Pixel> pixels) {
+   private Pixel seleccionarPixelTramo(AlmacenPixels pixels, int[] posiciones) {
       // se selecciona un indice entre 0 y el numero de pixels
-      // de la lista pasada como argumento
-      Random generador = new Random();
-      int indice = generador.nextInt(pixels.size());
+      // del tramo pasado como argumento
+      int indice = generador.nextInt(posiciones.length);
 
       // se devuelve el pixel asociado al indice
-      return pixels.get(indice);
+      return pixels.obtenerPixel(posiciones[indice]);
+   }
+
+   /**
+    * la seleccion se hace sobre los pixels de la imagen
+    *
+    * @return true
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return true;
    }
 }
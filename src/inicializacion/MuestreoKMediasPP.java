@@ -0,0 +1,379 @@
+package inicializacion;
+
+import imagen.AlmacenPixels;
+import imagen.Pixel;
+import kmedias.KMedias;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * clase para la seleccion de centroides mediante k-medias++
+ * voraz sobre los colores distintos de la imagen, ponderados
+ * por su numero de pixels: cada nuevo centro se elige entre
+ * unos pocos candidatos muestreados con probabilidad
+ * proporcional al peso por la distancia cuadratica al centro
+ * mas cercano ya elegido, quedandose con el que mas reduce el
+ * error. Si la imagen tiene muchos colores distintos, antes se
+ * realiza un sobremuestreo al estilo de k-medias||: unas pocas
+ * rondas en paralelo, cada una de las cuales elige de golpe
+ * unos 2k colores con la misma probabilidad, y la seleccion
+ * voraz se hace sobre esos candidatos, ponderados por el peso
+ * de los colores que tienen mas cerca
+ */
+public class MuestreoKMediasPP implements EstrategiaInicializacion {
+   /**
+    * numero de colores distintos a partir del cual se realiza
+    * el sobremuestreo previo
+    */
+   private final static int umbralSobremuestreo = 1 << 16;
+
+   /**
+    * numero de rondas del sobremuestreo
+    */
+   private final static int rondas = 5;
+
+   /**
+    * colores elegidos en cada ronda del sobremuestreo, en
+    * multiplos de k
+    */
+   private final static int factorSobremuestreo = 2;
+
+   /**
+    * generador de numeros aleatorios
+    */
+   private final Random generador;
+
+   /**
+    * constructor con semilla aleatoria
+    */
+   public MuestreoKMediasPP() {
+      generador = new Random();
+   }
+
+   /**
+    * constructor con semilla fija, para obtener siempre los
+    * mismos centros
+    *
+    * @param semilla semilla del generador
+    */
+   public MuestreoKMediasPP(long semilla) {
+      generador = new Random(semilla);
+   }
+
+   /**
+    * seleccion de centroides mediante k-medias++ voraz
+    *
+    * @param kmedias objeto a inicializar
+    * @return lista de pixels seleccionados como
+    * centroides
+    */
+   @Override
+   public List<Pixel> seleccionar(KMedias kmedias) {
+      int k = kmedias.obtenerK();
+
+      // colores distintos con su numero de pixels
+      AlmacenPixels colores = kmedias.obtenerImagen().convertirColoresDistintosAlmacen();
+      int n = colores.obtenerNumeroPixels();
+      double[] puntos = new double[3 * n];
+      double[] pesos = new double[n];
+      for (int i = 0; i < n; i++) {
+         puntos[3 * i] = colores.obtenerRojo(i);
+         puntos[3 * i + 1] = colores.obtenerVerde(i);
+         puntos[3 * i + 2] = colores.obtenerAzul(i);
+         pesos[i] = colores.obtenerPeso(i);
+      }
+
+      // si hay muchos colores se eligen antes los candidatos
+      if (n > umbralSobremuestreo && n > factorSobremuestreo * rondas * k) {
+         double[][] candidatos = sobremuestrear(puntos, pesos, k);
+         puntos = candidatos[0];
+         pesos = candidatos[1];
+      }
+
+      // seleccion voraz sobre los colores o los candidatos
+      int[] elegidos = seleccionarVoraz(puntos, pesos, k);
+
+      // se crean los centros
+      List<Pixel> seleccionados = new ArrayList<>();
+      for (int j = 0; j < k; j++) {
+         // si hay menos colores que centros se repiten
+         int i = elegidos[j % elegidos.length];
+         seleccionados.add(new Pixel(puntos[3 * i], puntos[3 * i + 1], puntos[3 * i + 2]));
+      }
+
+      // se devuelve la lista de centroides seleccionados
+      return seleccionados;
+   }
+
+   @Override
+   public List<Pixel> seleccionarFuncional(KMedias kmedias) {
+      int k = kmedias.obtenerK();
+
+      // colores distintos con su numero de pixels
+      AlmacenPixels colores = kmedias.obtenerImagen().convertirColoresDistintosAlmacen();
+      int n = colores.obtenerNumeroPixels();
+      double[] puntosColores = IntStream.range(0, 3 * n).
+              mapToDouble(c -> c % 3 == 0 ? colores.obtenerRojo(c / 3) :
+                      c % 3 == 1 ? colores.obtenerVerde(c / 3) : colores.obtenerAzul(c / 3)).
+              toArray();
+      double[] pesosColores = IntStream.range(0, n).
+              mapToDouble(colores::obtenerPeso).
+              toArray();
+
+      // si hay muchos colores se eligen antes los candidatos
+      double[][] candidatos = n > umbralSobremuestreo && n > factorSobremuestreo * rondas * k ?
+              sobremuestrear(puntosColores, pesosColores, k) :
+              new double[][]{puntosColores, pesosColores};
+      double[] puntos = candidatos[0];
+
+      // seleccion voraz y creacion de los centros, repitiendo
+      // colores si hay menos que centros
+      int[] elegidos = seleccionarVoraz(puntos, candidatos[1], k);
+      return IntStream.range(0, k).
+              map(j -> elegidos[j % elegidos.length]).
+              mapToObj(i -> new Pixel(puntos[3 * i], puntos[3 * i + 1], puntos[3 * i + 2])).
+              collect(Collectors.toList());
+   }
+
+   /**
+    * k-medias++ voraz: el primer centro se elige con
+    * probabilidad proporcional al peso y cada uno de los
+    * siguientes entre 2 + ln k candidatos muestreados segun el
+    * peso por la distancia cuadratica al centro mas cercano,
+    * quedandose con el que deja menor error
+    *
+    * @param puntos componentes de los puntos
+    * @param pesos  peso de cada punto
+    * @param k      numero de centros
+    * @return posiciones de los puntos elegidos (menos de k si
+    * no hay mas puntos con peso)
+    */
+   private int[] seleccionarVoraz(double[] puntos, double[] pesos, int k) {
+      int n = pesos.length;
+      int intentos = 2 + (int) Math.log(k);
+      int[] elegidos = new int[k];
+
+      // primer centro, segun el peso
+      elegidos[0] = muestrear(pesos, null, sumar(pesos, null));
+      double[] minimas = new double[n];
+      double potencial = actualizarMinimas(puntos, pesos, elegidos[0], null, minimas);
+
+      // arrays para las distancias del candidato en prueba y
+      // del mejor candidato
+      double[] prueba = new double[n];
+      double[] mejores = new double[n];
+      int numeroElegidos = 1;
+      while (numeroElegidos < k && potencial > 0) {
+         // se prueban varios candidatos y se queda el que
+         // deja menor error
+         int mejor = -1;
+         double mejorPotencial = Double.MAX_VALUE;
+         for (int intento = 0; intento < intentos; intento++) {
+            int candidato = muestrear(pesos, minimas, potencial);
+            double nuevo = actualizarMinimas(puntos, pesos, candidato, minimas, prueba);
+            if (nuevo < mejorPotencial) {
+               mejorPotencial = nuevo;
+               mejor = candidato;
+               double[] auxiliar = mejores;
+               mejores = prueba;
+               prueba = auxiliar;
+            }
+         }
+         elegidos[numeroElegidos++] = mejor;
+
+         // las distancias del mejor pasan a ser las actuales
+         double[] auxiliar = minimas;
+         minimas = mejores;
+         mejores = auxiliar;
+         potencial = mejorPotencial;
+      }
+
+      // si todos los puntos coinciden con algun centro no
+      // hay mas candidatos
+      int[] resultado = new int[numeroElegidos];
+      System.arraycopy(elegidos, 0, resultado, 0, numeroElegidos);
+      return resultado;
+   }
+
+   /**
+    * sobremuestreo de k-medias||: tras elegir un punto segun el
+    * peso, en cada ronda se elige cada punto de forma
+    * independiente con probabilidad 2k por su peso por su
+    * distancia cuadratica al candidato mas cercano, dividido
+    * por el error total. Los puntos se recorren en paralelo; el
+    * numero aleatorio de cada punto se obtiene de su posicion y
+    * de la ronda, por lo que no depende del reparto entre hilos
+    *
+    * @param puntos componentes de los puntos
+    * @param pesos  peso de cada punto
+    * @param k      numero de centros
+    * @return componentes de los candidatos y peso de cada uno
+    * (suma de los pesos de los puntos que tiene mas cerca)
+    */
+   private double[][] sobremuestrear(double[] puntos, double[] pesos, int k) {
+      int n = pesos.length;
+      double[] minimas = new double[n];
+      int[] cercanos = new int[n];
+      List<Integer> candidatos = new ArrayList<>();
+
+      // primer candidato segun el peso
+      int primero = muestrear(pesos, null, sumar(pesos, null));
+      candidatos.add(primero);
+      IntStream.range(0, n).parallel().forEach(i ->
+              minimas[i] = distanciaCuadratica(puntos, i, primero));
+      double potencial = sumar(pesos, minimas);
+
+      double elegidosRonda = factorSobremuestreo * k;
+      for (int ronda = 0; ronda < rondas && potencial > 0; ronda++) {
+         // eleccion independiente de cada punto
+         long semilla = generador.nextLong();
+         double escala = elegidosRonda / potencial;
+         int[] nuevos = IntStream.range(0, n).parallel().
+                 filter(i -> uniforme(semilla, i) < escala * pesos[i] * minimas[i]).
+                 toArray();
+
+         // distancias al candidato mas cercano
+         int desde = candidatos.size();
+         for (int i : nuevos) {
+            candidatos.add(i);
+         }
+         int[] posiciones = candidatos.stream().mapToInt(Integer::intValue).toArray();
+         IntStream.range(0, n).parallel().forEach(i -> {
+            for (int c = desde; c < posiciones.length; c++) {
+               double distancia = distanciaCuadratica(puntos, i, posiciones[c]);
+               if (distancia < minimas[i]) {
+                  minimas[i] = distancia;
+                  cercanos[i] = c;
+               }
+            }
+         });
+         potencial = sumar(pesos, minimas);
+      }
+
+      // componentes y pesos de los candidatos
+      int m = candidatos.size();
+      double[] componentes = new double[3 * m];
+      double[] pesosCandidatos = new double[m];
+      for (int c = 0; c < m; c++) {
+         System.arraycopy(puntos, 3 * candidatos.get(c), componentes, 3 * c, 3);
+      }
+      for (int i = 0; i < n; i++) {
+         pesosCandidatos[cercanos[i]] += pesos[i];
+      }
+      return new double[][]{componentes, pesosCandidatos};
+   }
+
+   /**
+    * calcula la distancia cuadratica de cada punto al centro
+    * mas cercano al añadir un nuevo centro
+    *
+    * @param puntos    componentes de los puntos
+    * @param pesos     peso de cada punto
+    * @param centro    posicion del nuevo centro
+    * @param anteriores distancias a los centros anteriores
+    *                   (null si no hay)
+    * @param minimas   array donde se guardan las nuevas
+    *                  distancias
+    * @return error total: suma de pesos por distancias
+    */
+   private static double actualizarMinimas(double[] puntos, double[] pesos, int centro,
+                                           double[] anteriores, double[] minimas) {
+      double potencial = 0;
+      for (int i = 0; i < pesos.length; i++) {
+         double distancia = distanciaCuadratica(puntos, i, centro);
+         minimas[i] = anteriores == null ? distancia : Math.min(anteriores[i], distancia);
+         potencial += pesos[i] * minimas[i];
+      }
+      return potencial;
+   }
+
+   /**
+    * elige un punto con probabilidad proporcional a su peso
+    * multiplicado por su distancia
+    *
+    * @param pesos     peso de cada punto
+    * @param distancias distancia de cada punto (null para
+    *                   usar solo el peso)
+    * @param total     suma de los productos
+    * @return posicion del punto elegido
+    */
+   private int muestrear(double[] pesos, double[] distancias, double total) {
+      double objetivo = generador.nextDouble() * total;
+      double acumulado = 0;
+      int ultimo = 0;
+      for (int i = 0; i < pesos.length; i++) {
+         double valor = distancias == null ? pesos[i] : pesos[i] * distancias[i];
+         if (valor > 0) {
+            acumulado += valor;
+            ultimo = i;
+            if (acumulado > objetivo) {
+               return i;
+            }
+         }
+      }
+
+      // por redondeo se puede llegar al final
+      return ultimo;
+   }
+
+   /**
+    * suma de pesos multiplicados por distancias
+    *
+    * @param pesos      peso de cada punto
+    * @param distancias distancia de cada punto (null para
+    *                   sumar solo los pesos)
+    * @return suma
+    */
+   private static double sumar(double[] pesos, double[] distancias) {
+      double suma = 0;
+      for (int i = 0; i < pesos.length; i++) {
+         suma += distancias == null ? pesos[i] : pesos[i] * distancias[i];
+      }
+      return suma;
+   }
+
+   /**
+    * distancia cuadratica entre dos puntos
+    *
+    * @param puntos componentes de los puntos
+    * @param i1     posicion del primer punto
+    * @param i2     posicion del segundo punto
+    * @return distancia cuadratica
+    */
+   private static double distanciaCuadratica(double[] puntos, int i1, int i2) {
+      double dr = puntos[3 * i1] - puntos[3 * i2];
+      double dv = puntos[3 * i1 + 1] - puntos[3 * i2 + 1];
+      double da = puntos[3 * i1 + 2] - puntos[3 * i2 + 2];
+      return dr * dr + dv * dv + da * da;
+   }
+
+   /**
+    * numero pseudoaleatorio uniforme en [0, 1) obtenido a
+    * partir de una semilla y una posicion (mezcla splitmix64)
+    *
+    * @param semilla semilla de la ronda
+    * @param i       posicion del punto
+    * @return numero en [0, 1)
+    */
+   private static double uniforme(long semilla, int i) {
+      long z = semilla + (i + 1) * 0x9E3779B97F4A7C15L;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      z = z ^ (z >>> 31);
+      return (z >>> 11) * 0x1.0p-53;
+   }
+
+   /**
+    * el muestreo se hace sobre los colores distintos
+    *
+    * @return false
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return false;
+   }
+}
@@ -0,0 +1,72 @@
+package inicializacion;
+
+import cuantizacion.EstrategiaCuantizacion;
+import imagen.Pixel;
+import kmedias.KMedias;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * clase para seleccionar los centroides iniciales con la
+ * paleta de un cuantizador de color, de forma que las
+ * k-medias solo tienen que refinarla con unas pocas
+ * iteraciones
+ */
+public class SeleccionCuantizador implements EstrategiaInicializacion {
+   /**
+    * cuantizador usado para obtener la paleta
+    */
+   private final EstrategiaCuantizacion cuantizador;
+
+   /**
+    * constructor de la clase
+    *
+    * @param cuantizador cuantizador a usar
+    */
+   public SeleccionCuantizador(EstrategiaCuantizacion cuantizador) {
+      this.cuantizador = cuantizador;
+   }
+
+   /**
+    * seleccion de centroides con la paleta del cuantizador.
+    * Si la paleta tiene menos de k colores se repiten
+    *
+    * @param kmedias objeto a inicializar
+    * @return lista de pixels seleccionados como
+    * centroides
+    */
+   @Override
+   public List<Pixel> seleccionar(KMedias kmedias) {
+      int k = kmedias.obtenerK();
+      List<Pixel> paleta = cuantizador.calcularPaleta(kmedias.obtenerImagen(), k);
+
+      // se completan los k centros
+      List<Pixel> seleccionados = new ArrayList<>();
+      for (int j = 0; j < k; j++) {
+         seleccionados.add(paleta.get(j % paleta.size()));
+      }
+      return seleccionados;
+   }
+
+   @Override
+   public List<Pixel> seleccionarFuncional(KMedias kmedias) {
+      List<Pixel> paleta = cuantizador.calcularPaleta(kmedias.obtenerImagen(),
+              kmedias.obtenerK());
+      return IntStream.range(0, kmedias.obtenerK()).
+              mapToObj(j -> paleta.get(j % paleta.size())).
+              collect(Collectors.toList());
+   }
+
+   /**
+    * el cuantizador trabaja con el histograma de la imagen
+    *
+    * @return false
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return false;
+   }
+}
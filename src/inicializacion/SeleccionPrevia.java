@@ -0,0 +1,376 @@
+package inicializacion;
+
+import imagen.AlmacenPixels;
+import imagen.Pixel;
+import kmedias.KMedias;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * clase para tomar como centroides iniciales los centros
+ * finales de una ejecucion anterior, por ejemplo sobre el
+ * fotograma previo de un video o una foto parecida. Si la
+ * imagen apenas cambia, las k-medias parten casi de la
+ * solucion y convergen en muy pocas iteraciones. Si k ha
+ * cambiado poco respecto al numero de centros anteriores, se
+ * ajustan: para aumentar k se divide el grupo de mayor error
+ * y para reducirlo se fusiona el par de grupos cuya union
+ * aumenta menos el error
+ */
+public class SeleccionPrevia implements EstrategiaInicializacion {
+   /**
+    * centros de la ejecucion anterior
+    */
+   private final List<Pixel> centros;
+
+   /**
+    * estrategia a usar si el numero de centros difiere
+    * demasiado de k
+    */
+   private final EstrategiaInicializacion alternativa;
+
+   /**
+    * constructor de la clase
+    *
+    * @param centros     centros de la ejecucion anterior
+    * @param alternativa estrategia para el caso en que el
+    *                    numero de centros no se pueda ajustar
+    *                    a k
+    */
+   public SeleccionPrevia(List<Pixel> centros, EstrategiaInicializacion alternativa) {
+      this.centros = new ArrayList<>(centros);
+      this.alternativa = alternativa;
+   }
+
+   /**
+    * seleccion de los centros anteriores, ajustados a k si es
+    * necesario
+    *
+    * @param kmedias objeto a inicializar
+    * @return lista de pixels seleccionados como
+    * centroides
+    */
+   @Override
+   public List<Pixel> seleccionar(KMedias kmedias) {
+      int k = kmedias.obtenerK();
+      if (centros.size() == k) {
+         // se devuelve una copia, que el algoritmo puede modificar
+         return new ArrayList<>(centros);
+      }
+      if (!esAjustable(centros.size(), k)) {
+         return alternativa.seleccionar(kmedias);
+      }
+      return ajustar(kmedias.obtenerPixels(), k);
+   }
+
+   @Override
+   public List<Pixel> seleccionarFuncional(KMedias kmedias) {
+      int k = kmedias.obtenerK();
+      return centros.size() == k ? new ArrayList<>(centros) :
+              esAjustable(centros.size(), k) ? ajustar(kmedias.obtenerPixels(), k) :
+                      alternativa.seleccionarFuncional(kmedias);
+   }
+
+   /**
+    * determina si un numero de centros anteriores se puede
+    * ajustar a k: la diferencia debe ser como mucho de una
+    * cuarta parte de los centros (y al menos de 2). Para
+    * cambios mayores es mejor empezar de nuevo
+    *
+    * @param previos numero de centros anteriores
+    * @param k       numero de centros deseado
+    * @return true si se ajustan los centros anteriores
+    */
+   public static boolean esAjustable(int previos, int k) {
+      return previos > 0 && Math.abs(k - previos) <= Math.max(2, previos / 4);
+   }
+
+   /**
+    * ajusta los centros anteriores a k grupos. Se asignan los
+    * pixels a los centros anteriores y se obtienen el peso,
+    * la media y el error de cada grupo; despues se dividen o
+    * fusionan grupos hasta tener k. Los centros devueltos son
+    * las medias de los grupos resultantes
+    *
+    * @param pixels almacen con los pixels de la imagen
+    * @param k      numero de centros deseado
+    * @return lista con los k centros
+    */
+   private List<Pixel> ajustar(AlmacenPixels pixels, int k) {
+      int grupos = centros.size();
+      int capacidad = Math.max(grupos, k);
+      double[] pesos = new double[capacidad];
+      double[] sumas = new double[3 * capacidad];
+      double[] cuadrados = new double[3 * capacidad];
+
+      // se asignan los pixels a los centros anteriores
+      int n = pixels.obtenerNumeroPixels();
+      int[] etiquetas = new int[n];
+      pixels.asignarBloque(0, n, AlmacenPixels.convertirCentros(centros), etiquetas, 0);
+      acumular(pixels, etiquetas, -1, pesos, sumas, cuadrados);
+
+      // los grupos vacios conservan su centro como media
+      double[] medias = new double[3 * capacidad];
+      for (int j = 0; j < grupos; j++) {
+         calcularMedia(j, pesos, sumas, medias, centros.get(j));
+      }
+
+      // se divide el grupo de mayor error hasta llegar a k
+      while (grupos < k) {
+         dividir(pixels, etiquetas, grupos, pesos, sumas, cuadrados, medias);
+         grupos++;
+      }
+
+      // se fusiona el par mas cercano hasta llegar a k
+      while (grupos > k) {
+         fusionar(grupos, pesos, sumas, cuadrados, medias);
+         grupos--;
+      }
+
+      // se crean los centros a partir de las medias
+      List<Pixel> ajustados = new ArrayList<>(k);
+      for (int j = 0; j < k; j++) {
+         ajustados.add(new Pixel(medias[3 * j], medias[3 * j + 1], medias[3 * j + 2]));
+      }
+      return ajustados;
+   }
+
+   /**
+    * acumula el peso, las sumas y las sumas de cuadrados de
+    * las componentes de los pixels de cada grupo
+    *
+    * @param pixels    almacen con los pixels
+    * @param etiquetas grupo de cada pixel
+    * @param grupo     grupo a acumular, o -1 para todos
+    * @param pesos     pesos de los grupos
+    * @param sumas     sumas de las componentes (3 por grupo)
+    * @param cuadrados sumas de los cuadrados (3 por grupo)
+    */
+   private static void acumular(AlmacenPixels pixels, int[] etiquetas, int grupo,
+                                double[] pesos, double[] sumas, double[] cuadrados) {
+      for (int i = 0; i < etiquetas.length; i++) {
+         int j = etiquetas[i];
+         if (grupo < 0 || j == grupo) {
+            double peso = pixels.obtenerPeso(i);
+            double rojo = pixels.obtenerRojo(i);
+            double verde = pixels.obtenerVerde(i);
+            double azul = pixels.obtenerAzul(i);
+            pesos[j] += peso;
+            sumas[3 * j] += peso * rojo;
+            sumas[3 * j + 1] += peso * verde;
+            sumas[3 * j + 2] += peso * azul;
+            cuadrados[3 * j] += peso * rojo * rojo;
+            cuadrados[3 * j + 1] += peso * verde * verde;
+            cuadrados[3 * j + 2] += peso * azul * azul;
+         }
+      }
+   }
+
+   /**
+    * calcula la media de un grupo; si esta vacio se usa el
+    * centro indicado
+    *
+    * @param j       grupo
+    * @param pesos   pesos de los grupos
+    * @param sumas   sumas de las componentes
+    * @param medias  array donde se guarda la media
+    * @param defecto centro para un grupo vacio
+    */
+   private static void calcularMedia(int j, double[] pesos, double[] sumas, double[] medias,
+                                     Pixel defecto) {
+      if (pesos[j] > 0) {
+         for (int c = 0; c < 3; c++) {
+            medias[3 * j + c] = sumas[3 * j + c] / pesos[j];
+         }
+      } else {
+         double[] componentes = AlmacenPixels.convertirCentros(List.of(defecto));
+         System.arraycopy(componentes, 0, medias, 3 * j, 3);
+      }
+   }
+
+   /**
+    * calcula la varianza (error por unidad de peso) de una
+    * componente de un grupo
+    *
+    * @param j         grupo
+    * @param c         componente
+    * @param pesos     pesos de los grupos
+    * @param sumas     sumas de las componentes
+    * @param cuadrados sumas de los cuadrados
+    * @return varianza, o 0 si el grupo esta vacio
+    */
+   private static double calcularVarianza(int j, int c, double[] pesos, double[] sumas,
+                                          double[] cuadrados) {
+      if (pesos[j] == 0) {
+         return 0;
+      }
+      double media = sumas[3 * j + c] / pesos[j];
+      return Math.max(cuadrados[3 * j + c] / pesos[j] - media * media, 0);
+   }
+
+   /**
+    * divide el grupo de mayor error en dos: los nuevos
+    * centros se separan una desviacion tipica a cada lado de
+    * la media, en la componente de mayor varianza, y los
+    * pixels del grupo se reparten entre ambos. El nuevo grupo
+    * ocupa la posicion indicada. Los grupos sin varianza (con
+    * todos sus pixels iguales) no se dividen: separar sus
+    * centros cero desviaciones daria dos centros iguales. Si
+    * ningun grupo tiene varianza la imagen no tiene mas colores
+    * que grupos y el nuevo grupo queda vacio, con el centro
+    * del grupo de mas peso
+    *
+    * @param pixels    almacen con los pixels
+    * @param etiquetas grupo de cada pixel
+    * @param nuevo     posicion del nuevo grupo
+    * @param pesos     pesos de los grupos
+    * @param sumas     sumas de las componentes
+    * @param cuadrados sumas de los cuadrados
+    * @param medias    medias de los grupos
+    */
+   private static void dividir(AlmacenPixels pixels, int[] etiquetas, int nuevo,
+                               double[] pesos, double[] sumas, double[] cuadrados,
+                               double[] medias) {
+      // grupo de mayor error y su componente de mayor varianza;
+      // solo se consideran los grupos con error
+      int elegido = -1;
+      int eje = 0;
+      double mayorError = 0;
+      double mayorVarianza = 0;
+      for (int j = 0; j < nuevo; j++) {
+         double error = 0;
+         int ejeGrupo = 0;
+         double varianzaGrupo = -1;
+         for (int c = 0; c < 3; c++) {
+            double varianza = calcularVarianza(j, c, pesos, sumas, cuadrados);
+            error += varianza * pesos[j];
+            if (varianza > varianzaGrupo) {
+               varianzaGrupo = varianza;
+               ejeGrupo = c;
+            }
+         }
+         if (error > mayorError) {
+            mayorError = error;
+            elegido = j;
+            eje = ejeGrupo;
+            mayorVarianza = varianzaGrupo;
+         }
+      }
+      if (elegido < 0) {
+         int pesado = 0;
+         for (int j = 1; j < nuevo; j++) {
+            if (pesos[j] > pesos[pesado]) {
+               pesado = j;
+            }
+         }
+         System.arraycopy(medias, 3 * pesado, medias, 3 * nuevo, 3);
+         return;
+      }
+
+      // los dos centros, a ambos lados de la media
+      double desviacion = Math.sqrt(mayorVarianza);
+      double[] centro = new double[3];
+      System.arraycopy(medias, 3 * elegido, centro, 0, 3);
+      centro[eje] -= desviacion;
+      System.arraycopy(centro, 0, medias, 3 * elegido, 3);
+      centro[eje] += 2 * desviacion;
+      System.arraycopy(centro, 0, medias, 3 * nuevo, 3);
+
+      // se reparten los pixels del grupo entre los dos centros
+      double[] pareja = new double[6];
+      System.arraycopy(medias, 3 * elegido, pareja, 0, 3);
+      System.arraycopy(medias, 3 * nuevo, pareja, 3, 3);
+      for (int i = 0; i < etiquetas.length; i++) {
+         if (etiquetas[i] == elegido && pixels.obtenerMasCercano(i, pareja) == 1) {
+            etiquetas[i] = nuevo;
+         }
+      }
+
+      // se recalculan los datos de ambos grupos
+      for (int j : new int[]{elegido, nuevo}) {
+         pesos[j] = 0;
+         for (int c = 0; c < 3; c++) {
+            sumas[3 * j + c] = 0;
+            cuadrados[3 * j + c] = 0;
+         }
+      }
+      acumular(pixels, etiquetas, elegido, pesos, sumas, cuadrados);
+      acumular(pixels, etiquetas, nuevo, pesos, sumas, cuadrados);
+      for (int j : new int[]{elegido, nuevo}) {
+         if (pesos[j] > 0) {
+            for (int c = 0; c < 3; c++) {
+               medias[3 * j + c] = sumas[3 * j + c] / pesos[j];
+            }
+         }
+      }
+   }
+
+   /**
+    * fusiona el par de grupos cuya union aumenta menos el
+    * error (criterio de Ward): peso a * peso b / (peso a +
+    * peso b) por la distancia cuadratica entre sus medias. El
+    * ultimo grupo pasa a ocupar la posicion liberada
+    *
+    * @param grupos    numero de grupos actual
+    * @param pesos     pesos de los grupos
+    * @param sumas     sumas de las componentes
+    * @param cuadrados sumas de los cuadrados
+    * @param medias    medias de los grupos
+    */
+   private static void fusionar(int grupos, double[] pesos, double[] sumas,
+                                double[] cuadrados, double[] medias) {
+      // se busca el par de menor coste
+      int primero = 0;
+      int segundo = 1;
+      double menorCoste = Double.MAX_VALUE;
+      for (int a = 0; a < grupos; a++) {
+         for (int b = a + 1; b < grupos; b++) {
+            double total = pesos[a] + pesos[b];
+            double coste = 0;
+            if (total > 0) {
+               double distancia = 0;
+               for (int c = 0; c < 3; c++) {
+                  double diferencia = medias[3 * a + c] - medias[3 * b + c];
+                  distancia += diferencia * diferencia;
+               }
+               coste = pesos[a] * pesos[b] / total * distancia;
+            }
+            if (coste < menorCoste) {
+               menorCoste = coste;
+               primero = a;
+               segundo = b;
+            }
+         }
+      }
+
+      // el segundo se une al primero; si ambos estan vacios se
+      // conserva la media del primero
+      pesos[primero] += pesos[segundo];
+      for (int c = 0; c < 3; c++) {
+         sumas[3 * primero + c] += sumas[3 * segundo + c];
+         cuadrados[3 * primero + c] += cuadrados[3 * segundo + c];
+         if (pesos[primero] > 0) {
+            medias[3 * primero + c] = sumas[3 * primero + c] / pesos[primero];
+         }
+      }
+
+      // el ultimo grupo ocupa el hueco del segundo
+      int ultimo = grupos - 1;
+      pesos[segundo] = pesos[ultimo];
+      System.arraycopy(sumas, 3 * ultimo, sumas, 3 * segundo, 3);
+      System.arraycopy(cuadrados, 3 * ultimo, cuadrados, 3 * segundo, 3);
+      System.arraycopy(medias, 3 * ultimo, medias, 3 * segundo, 3);
+   }
+
+   /**
+    * los pixels se usan al ajustar el numero de centros y en
+    * la estrategia de respaldo
+    *
+    * @return true
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return true;
+   }
+}
@@ -1,5 +1,6 @@
 package inicializacion;
 
+import imagen.AlmacenPixels;
 import imagen.Pixel;
 import imagen.Utilidades;
 import kmedias.KMedias;
@@ -26,7 +27,7 @@ public class SeleccionUniforme implements EstrategiaInicializacion {
    @Override
    public List<Pixel> seleccionar(KMedias kmedias) {
       // se obtienen los pixels de la imagen
-      List<Pixel> pixels = kmedias.obtenerPixels();
+      AlmacenPixels pixels = kmedias.obtenerPixels();
 
       // se obtiene el valor de k
       int k = kmedias.obtenerK();
@@ -63,7 +64,7 @@ public class SeleccionUniforme implements EstrategiaInicializacion {
    @Override
    public List<Pixel> seleccionarFuncional(KMedias kmedias) {
       // se obtienen los pixels de la imagen
-      List<Pixel> pixels = kmedias.obtenerPixels();
+      AlmacenPixels pixels = kmedias.obtenerPixels();
 
       // se obtiene el valor de k
       int k = kmedias.obtenerK();
@@ -83,4 +84,14 @@ public class SeleccionUniforme implements EstrategiaInicializacion {
               map(indice -> new Pixel(minMax.get(0) + (int) Math.round(incremento * indice))
               ).collect(Collectors.toList());
    }
+
+   /**
+    * la seleccion se hace sobre los pixels de la imagen
+    *
+    * @return true
+    */
+   @Override
+   public boolean necesitaPixels() {
+      return true;
+   }
 }
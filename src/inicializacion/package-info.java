@@ -4,11 +4,17 @@
  * a) ModoInicializacion: enumerado con los modos disponibles
  * b) EstrategiaInicializacion: clase base de la que derivan los
  * comportamientos
- * c) ConvergenciaIteraciones: se detiene tras alcanzar un determinado
- * numero de iteraciones
- * d) ConvergenciaEstabilidad: se detiene si los cambios en los centroides
- * no son muy grandes
- * e) ConvergenciaRuido: se detiene si el ruido obtenido al filtrar supera
- * un determinado umbral
+ * c) MuestreoAleatorio: selecciona pixels al azar
+ * d) SeleccionUniforme: selecciona colores repartidos en el rango
+ * de colores de la imagen
+ * e) MuestreoEstratificado: selecciona mas centros de los colores
+ * mas presentes
+ * f) MuestreoKMediasPP: k-medias++ voraz sobre los colores distintos,
+ * con sobremuestreo en paralelo si hay muchos colores
+ * g) SeleccionCuantizador: toma la paleta de un cuantizador de color,
+ * como el arbol octal o el algoritmo de Wu
+ * h) SeleccionPrevia: reutiliza los centros de una ejecucion
+ * anterior sobre una imagen parecida; si k cambia poco divide
+ * o fusiona grupos
  */
 package inicializacion;
\ No newline at end of file
@@ -1,17 +1,19 @@
 package kmedias;
 
+import algoritmo.*;
 import convergencia.*;
+import cuantizacion.Cuantizador;
+import cuantizacion.ModoCuantizacion;
+import imagen.AlmacenPixels;
 import imagen.Utilidades;
 import inicializacion.*;
 import imagen.Imagen;
+import imagen.ModoPrecision;
 import imagen.Pixel;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.function.DoublePredicate;
 import java.util.stream.IntStream;
 
 /**
@@ -27,10 +29,16 @@ public class KMedias {
    private final Imagen imagen;
 
    /**
-    * coleccion de datos sobre los pixels que componen
-    * la imagen
+    * almacen compacto con las componentes de los pixels
+    * que componen la imagen; se crea la primera vez que se
+    * pide
     */
-   private final List<Pixel> pixels;
+   private AlmacenPixels pixels;
+
+   /**
+    * precision de los calculos de distancia
+    */
+   private final ModoPrecision precision;
 
    /**
     * numero de grupos a formar
@@ -48,17 +56,24 @@ public class KMedias {
     */
    private final EstrategiaConvergencia parada;
 
+   /**
+    * atributo para delegar la forma de realizar las
+    * iteraciones; null para el modo clasico, que usa los
+    * metodos propios de la clase
+    */
+   private final EstrategiaAlgoritmo algoritmo;
+
    /**
     * contador de iteraciones ejecutadas por el algoritmo
     */
    private int iteraciones;
 
    /**
-    * clasificacion de pixels en los grupos. Las claves
-    * son los centroides y los valores las listas de
-    * pixels propias de cada grupo
+    * clasificacion de pixels en los grupos: para cada
+    * pixel se guarda la posicion de su centroide en la
+    * lista de centros al inicio de la iteracion
     */
-   private Map<Pixel, List<Pixel>> clasificacion;
+   private int[] clasificacion;
 
    /**
     * lista de centroides de la iteracion al inicio
@@ -71,12 +86,59 @@ public class KMedias {
     */
    private List<Pixel> centrosT2;
 
+   /**
+    * componentes de los centroides al inicio de la iteracion,
+    * en el formato de AlmacenPixels.convertirCentros
+    */
+   private double[] componentesT1;
+
+   /**
+    * componentes de los centroides al final de la iteracion;
+    * se intercambia con componentesT1 al pasar a la siguiente
+    */
+   private double[] componentesT2;
+
+   /**
+    * array de trabajo para las sumas de componentes de cada
+    * grupo
+    */
+   private double[] sumas;
+
+   /**
+    * array de trabajo con el numero de pixels de cada grupo
+    */
+   private long[] contadores;
+
    /**
     * valor final determinado por el detector
     * de convergencia
     */
    private double medidaConvergencia;
 
+   /**
+    * calculos de distancias evitados por la estrategia de
+    * algoritmo en cada iteracion
+    */
+   private final List<Long> distanciasEvitadas = new ArrayList<>();
+
+   /**
+    * observador que recibe el error cuadratico al final de
+    * cada iteracion; si devuelve false se abandonan las
+    * iteraciones. Null si no hay observador
+    */
+   private DoublePredicate observador;
+
+   /**
+    * indica si el observador ha abandonado las iteraciones
+    */
+   private boolean cancelado;
+
+   /**
+    * error cuadratico de la ultima iteracion del modo
+    * clasico; solo se calcula si hay observador
+    */
+   private double errorClasico = Double.NaN;
+
    /**
     * constructor privado para evitar creacion de
     * objetos que no pase por el metodo factoria
@@ -85,20 +147,30 @@ public class KMedias {
     * @param k             numero de colores a considerar
     * @param inicializador estrategia de inicializacion
     * @param parada        estretagia de convergencia
+    * @param algoritmo     estrategia de iteracion (null para
+    *                      el modo clasico)
+    * @param precision     precision de los calculos de
+    *                      distancia de la asignacion
+    * @param pixels        almacen con los pixels de la imagen,
+    *                      compartido con otros objetos, o null
+    *                      para crearlo
     */
    private KMedias(Imagen imagen, int k, EstrategiaInicializacion inicializador,
-                   EstrategiaConvergencia parada) {
+                   EstrategiaConvergencia parada, EstrategiaAlgoritmo algoritmo,
+                   ModoPrecision precision, AlmacenPixels pixels) {
       // se asigna valor a los datos miembro
       this.imagen = imagen;
       this.k = k;
       this.inicializador = inicializador;
       this.parada = parada;
+      this.algoritmo = algoritmo;
+      this.precision = precision;
 
-      // se obtienen los puntos de la imagen. Esto lo hace
-      // el metodo generarPixels, que pasa de la descripcion
-      // de los indices de color (de 0 a 255) a niveles de
-      // RGB
-      pixels = imagen.convertirIndicesColoresPixels();
+      // el almacen con los pixels de la imagen solo se crea
+      // si alguien lo pide (ver obtenerPixels): las estrategias
+      // que declaran no necesitarlo (necesitaPixels) trabajan
+      // con los colores distintos y no lo usan
+      this.pixels = pixels;
 
       // se inicializa el contador de iteraciones
       iteraciones = 1;
@@ -121,6 +193,240 @@ public class KMedias {
                                   ModoInicializacion modoInicializacion,
                                   ModoConvergencia modoConvergencia,
                                   int maxIteraciones, double umbral, Imagen imagen) {
+      return factoria(k, modoInicializacion, modoConvergencia, maxIteraciones,
+              umbral, imagen, ModoAlgoritmo.CLASICO);
+   }
+
+   /**
+    * metodo factoria con seleccion de la forma de realizar
+    * las iteraciones; en el modo paralelo se usan todos los
+    * procesadores disponibles
+    *
+    * @param k                  numero de colores a considerar
+    * @param modoInicializacion estretegia de inicializacion
+    * @param modoConvergencia   estretegia de convergencia
+    * @param maxIteraciones     maximo numero de iteraciones a realizar
+    * @param umbral             umbral a considerar para la convergencia
+    * @param imagen             imagen a analizar
+    * @param modoAlgoritmo      forma de realizar las iteraciones
+    * @return objeto de la clase KMedias construido de acuerdo
+    * a la parametrizacion pasada como argumento
+    */
+   public static KMedias factoria(int k,
+                                  ModoInicializacion modoInicializacion,
+                                  ModoConvergencia modoConvergencia,
+                                  int maxIteraciones, double umbral, Imagen imagen,
+                                  ModoAlgoritmo modoAlgoritmo) {
+      return factoria(k, modoInicializacion, modoConvergencia, maxIteraciones,
+              umbral, imagen, modoAlgoritmo, Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * metodo factoria con seleccion de la forma de realizar
+    * las iteraciones y del numero de hilos a usar
+    *
+    * @param k                  numero de colores a considerar
+    * @param modoInicializacion estretegia de inicializacion
+    * @param modoConvergencia   estretegia de convergencia
+    * @param maxIteraciones     maximo numero de iteraciones a realizar
+    * @param umbral             umbral a considerar para la convergencia
+    * @param imagen             imagen a analizar
+    * @param modoAlgoritmo      forma de realizar las iteraciones
+    * @param hilos              numero de hilos para el modo paralelo
+    * @return objeto de la clase KMedias construido de acuerdo
+    * a la parametrizacion pasada como argumento
+    */
+   public static KMedias factoria(int k,
+                                  ModoInicializacion modoInicializacion,
+                                  ModoConvergencia modoConvergencia,
+                                  int maxIteraciones, double umbral, Imagen imagen,
+                                  ModoAlgoritmo modoAlgoritmo, int hilos) {
+      return factoria(k, modoInicializacion, modoConvergencia, maxIteraciones,
+              umbral, imagen, modoAlgoritmo, hilos,
+              AlgoritmoMiniLotes.tamLotePredeterminado,
+              AlgoritmoMiniLotes.pasadasPredeterminadas);
+   }
+
+   /**
+    * metodo factoria con seleccion de la forma de realizar
+    * las iteraciones, del numero de hilos y de los parametros
+    * del modo por mini lotes
+    *
+    * @param k                  numero de colores a considerar
+    * @param modoInicializacion estretegia de inicializacion
+    * @param modoConvergencia   estretegia de convergencia
+    * @param maxIteraciones     maximo numero de iteraciones a realizar
+    * @param umbral             umbral a considerar para la convergencia
+    * @param imagen             imagen a analizar
+    * @param modoAlgoritmo      forma de realizar las iteraciones
+    * @param hilos              numero de hilos para el modo paralelo
+    * @param tamLote            pixels por lote en el modo por mini lotes
+    * @param pasadas            lotes por iteracion en el modo por mini
+    *                           lotes
+    * @return objeto de la clase KMedias construido de acuerdo
+    * a la parametrizacion pasada como argumento
+    */
+   public static KMedias factoria(int k,
+                                  ModoInicializacion modoInicializacion,
+                                  ModoConvergencia modoConvergencia,
+                                  int maxIteraciones, double umbral, Imagen imagen,
+                                  ModoAlgoritmo modoAlgoritmo, int hilos,
+                                  int tamLote, int pasadas) {
+      return factoria(k, modoInicializacion, modoConvergencia, maxIteraciones,
+              umbral, imagen, modoAlgoritmo, hilos, tamLote, pasadas, ModoPrecision.DOBLE);
+   }
+
+   /**
+    * metodo factoria con seleccion de la forma de realizar
+    * las iteraciones, del numero de hilos, de los parametros
+    * del modo por mini lotes y de la precision de los calculos
+    * de distancia
+    *
+    * @param k                  numero de colores a considerar
+    * @param modoInicializacion estretegia de inicializacion
+    * @param modoConvergencia   estretegia de convergencia
+    * @param maxIteraciones     maximo numero de iteraciones a realizar
+    * @param umbral             umbral a considerar para la convergencia
+    * @param imagen             imagen a analizar
+    * @param modoAlgoritmo      forma de realizar las iteraciones
+    * @param hilos              numero de hilos para el modo paralelo
+    * @param tamLote            pixels por lote en el modo por mini lotes
+    * @param pasadas            lotes por iteracion en el modo por mini
+    *                           lotes
+    * @param precision          precision de los calculos de distancia
+    *                           de la asignacion
+    * @return objeto de la clase KMedias construido de acuerdo
+    * a la parametrizacion pasada como argumento
+    */
+   public static KMedias factoria(int k,
+                                  ModoInicializacion modoInicializacion,
+                                  ModoConvergencia modoConvergencia,
+                                  int maxIteraciones, double umbral, Imagen imagen,
+                                  ModoAlgoritmo modoAlgoritmo, int hilos,
+                                  int tamLote, int pasadas, ModoPrecision precision) {
+      return crear(k, crearInicializador(modoInicializacion), modoConvergencia, maxIteraciones,
+              umbral, imagen, crearAlgoritmo(modoAlgoritmo, hilos, tamLote, pasadas),
+              precision, null);
+   }
+
+   /**
+    * metodo factoria con semilla fija: los modos aleatorios de
+    * inicializacion y el modo por mini lotes usan generadores
+    * creados a partir de la semilla, de forma que dos objetos
+    * con la misma parametrizacion dan el mismo resultado
+    *
+    * @param k                  numero de colores a considerar
+    * @param modoInicializacion estretegia de inicializacion
+    * @param semilla            semilla de los generadores
+    * @param modoConvergencia   estretegia de convergencia
+    * @param maxIteraciones     maximo numero de iteraciones a realizar
+    * @param umbral             umbral a considerar para la convergencia
+    * @param imagen             imagen a analizar
+    * @param modoAlgoritmo      forma de realizar las iteraciones
+    * @param hilos              numero de hilos para el modo paralelo
+    * @param tamLote            pixels por lote en el modo por mini lotes
+    * @param pasadas            lotes por iteracion en el modo por mini
+    *                           lotes
+    * @param precision          precision de los calculos de distancia
+    *                           de la asignacion
+    * @return objeto de la clase KMedias construido de acuerdo
+    * a la parametrizacion pasada como argumento
+    */
+   public static KMedias factoria(int k,
+                                  ModoInicializacion modoInicializacion, long semilla,
+                                  ModoConvergencia modoConvergencia,
+                                  int maxIteraciones, double umbral, Imagen imagen,
+                                  ModoAlgoritmo modoAlgoritmo, int hilos,
+                                  int tamLote, int pasadas, ModoPrecision precision) {
+      return crear(k, crearInicializador(modoInicializacion, semilla), modoConvergencia,
+              maxIteraciones, umbral, imagen,
+              crearAlgoritmo(modoAlgoritmo, hilos, tamLote, pasadas, semilla), precision, null);
+   }
+
+   /**
+    * metodo factoria con arranque en caliente: los centros
+    * iniciales son los finales de una ejecucion anterior,
+    * normalmente sobre una imagen parecida (el fotograma
+    * previo de un video). Si el numero de centros no es k se
+    * usa el modo de inicializacion indicado
+    *
+    * @param k                  numero de colores a considerar
+    * @param centrosPrevios     centros finales de la ejecucion
+    *                           anterior
+    * @param modoInicializacion estretegia de inicializacion si no
+    *                           se pueden usar los centros previos
+    * @param modoConvergencia   estretegia de convergencia
+    * @param maxIteraciones     maximo numero de iteraciones a realizar
+    * @param umbral             umbral a considerar para la convergencia
+    * @param imagen             imagen a analizar
+    * @param modoAlgoritmo      forma de realizar las iteraciones
+    * @param hilos              numero de hilos para el modo paralelo
+    * @param tamLote            pixels por lote en el modo por mini lotes
+    * @param pasadas            lotes por iteracion en el modo por mini
+    *                           lotes
+    * @param precision          precision de los calculos de distancia
+    *                           de la asignacion
+    * @return objeto de la clase KMedias construido de acuerdo
+    * a la parametrizacion pasada como argumento
+    */
+   public static KMedias factoria(int k, List<Pixel> centrosPrevios,
+                                  ModoInicializacion modoInicializacion,
+                                  ModoConvergencia modoConvergencia,
+                                  int maxIteraciones, double umbral, Imagen imagen,
+                                  ModoAlgoritmo modoAlgoritmo, int hilos,
+                                  int tamLote, int pasadas, ModoPrecision precision) {
+      return crear(k, new SeleccionPrevia(centrosPrevios, crearInicializador(modoInicializacion)),
+              modoConvergencia, maxIteraciones, umbral, imagen,
+              crearAlgoritmo(modoAlgoritmo, hilos, tamLote, pasadas), precision, null);
+   }
+
+   /**
+    * metodo factoria para los reinicios: cada objeto recibe
+    * una semilla propia para la inicializacion y los mini
+    * lotes y todos comparten el mismo almacen de pixels, que
+    * solo se lee
+    *
+    * @param k                  numero de colores a considerar
+    * @param modoInicializacion estretegia de inicializacion
+    * @param semilla            semilla de los generadores
+    * @param modoConvergencia   estretegia de convergencia
+    * @param maxIteraciones     maximo numero de iteraciones a realizar
+    * @param umbral             umbral a considerar para la convergencia
+    * @param imagen             imagen a analizar
+    * @param modoAlgoritmo      forma de realizar las iteraciones
+    * @param hilos              numero de hilos para el modo paralelo
+    * @param tamLote            pixels por lote en el modo por mini lotes
+    * @param pasadas            lotes por iteracion en el modo por mini
+    *                           lotes
+    * @param precision          precision de los calculos de distancia
+    *                           de la asignacion
+    * @param pixels             almacen compartido con los pixels de la
+    *                           imagen y la precision ya fijada, o null
+    *                           si ninguna estrategia lo necesita
+    * @return objeto de la clase KMedias construido de acuerdo
+    * a la parametrizacion pasada como argumento
+    */
+   static KMedias factoria(int k,
+                           ModoInicializacion modoInicializacion, long semilla,
+                           ModoConvergencia modoConvergencia,
+                           int maxIteraciones, double umbral, Imagen imagen,
+                           ModoAlgoritmo modoAlgoritmo, int hilos,
+                           int tamLote, int pasadas, ModoPrecision precision,
+                           AlmacenPixels pixels) {
+      return crear(k, crearInicializador(modoInicializacion, semilla), modoConvergencia,
+              maxIteraciones, umbral, imagen,
+              crearAlgoritmo(modoAlgoritmo, hilos, tamLote, pasadas, semilla),
+              precision, pixels);
+   }
+
+   /**
+    * crea la estrategia de inicializacion de un modo
+    *
+    * @param modoInicializacion modo de inicializacion
+    * @return estrategia de inicializacion
+    */
+   private static EstrategiaInicializacion crearInicializador(
+           ModoInicializacion modoInicializacion) {
       EstrategiaInicializacion inicializador = null;
       switch (modoInicializacion) {
          case MUESTREO_ALEATORIO:
@@ -132,8 +438,124 @@ public class KMedias {
          case MUESTREO_ESTRATIFICADO:
             inicializador = new MuestreoEstratificado();
             break;
+         case MUESTREO_KMEDIAS_PP:
+            inicializador = new MuestreoKMediasPP();
+            break;
+         case CUANTIZACION_OCTREE:
+            inicializador = new SeleccionCuantizador(
+                    Cuantizador.crearEstrategia(ModoCuantizacion.OCTREE));
+            break;
+         case CUANTIZACION_WU:
+            inicializador = new SeleccionCuantizador(
+                    Cuantizador.crearEstrategia(ModoCuantizacion.WU));
+            break;
+      }
+      return inicializador;
+   }
+
+   /**
+    * crea la estrategia de inicializacion de un modo con una
+    * semilla fija para los modos aleatorios; el resto de modos
+    * no dependen de la semilla
+    *
+    * @param modoInicializacion modo de inicializacion
+    * @param semilla            semilla del generador
+    * @return estrategia de inicializacion
+    */
+   private static EstrategiaInicializacion crearInicializador(
+           ModoInicializacion modoInicializacion, long semilla) {
+      EstrategiaInicializacion inicializador = null;
+      switch (modoInicializacion) {
+         case MUESTREO_ALEATORIO:
+            inicializador = new MuestreoAleatorio(semilla);
+            break;
+         case MUESTREO_ESTRATIFICADO:
+            inicializador = new MuestreoEstratificado(semilla);
+            break;
+         case MUESTREO_KMEDIAS_PP:
+            inicializador = new MuestreoKMediasPP(semilla);
+            break;
+         default:
+            inicializador = crearInicializador(modoInicializacion);
+            break;
+      }
+      return inicializador;
+   }
+
+   /**
+    * crea la estrategia de algoritmo de un modo; null para el
+    * modo clasico, que usa los metodos propios de la clase
+    *
+    * @param modoAlgoritmo forma de realizar las iteraciones
+    * @param hilos         numero de hilos para el modo paralelo
+    * @param tamLote       pixels por lote en el modo por mini lotes
+    * @param pasadas       lotes por iteracion en el modo por mini
+    *                      lotes
+    * @return estrategia de algoritmo
+    */
+   private static EstrategiaAlgoritmo crearAlgoritmo(ModoAlgoritmo modoAlgoritmo, int hilos,
+                                                     int tamLote, int pasadas) {
+      EstrategiaAlgoritmo algoritmo = null;
+      switch (modoAlgoritmo) {
+         case CLASICO:
+            // se usan los metodos propios de la clase
+            break;
+         case HISTOGRAMA:
+            algoritmo = new AlgoritmoHistograma();
+            break;
+         case PARALELO:
+            algoritmo = new AlgoritmoParalelo(hilos);
+            break;
+         case ELKAN:
+            algoritmo = new AlgoritmoElkan();
+            break;
+         case HAMERLY:
+            algoritmo = new AlgoritmoHamerly();
+            break;
+         case YINYANG:
+            algoritmo = new AlgoritmoYinyang();
+            break;
+         case ARBOL_KD:
+            algoritmo = new AlgoritmoArbolKd();
+            break;
+         case MINI_LOTES:
+            algoritmo = new AlgoritmoMiniLotes(tamLote, pasadas);
+            break;
+      }
+      return algoritmo;
+   }
+
+   /**
+    * crea la estrategia de algoritmo de un modo con una semilla
+    * fija para el modo por mini lotes; el resto de modos no
+    * dependen de la semilla
+    *
+    * @param modoAlgoritmo forma de realizar las iteraciones
+    * @param hilos         numero de hilos para el modo paralelo
+    * @param tamLote       pixels por lote en el modo por mini lotes
+    * @param pasadas       lotes por iteracion en el modo por mini
+    *                      lotes
+    * @param semilla       semilla del generador
+    * @return estrategia de algoritmo
+    */
+   private static EstrategiaAlgoritmo crearAlgoritmo(ModoAlgoritmo modoAlgoritmo, int hilos,
+                                                     int tamLote, int pasadas, long semilla) {
+      if (modoAlgoritmo == ModoAlgoritmo.MINI_LOTES) {
+         return new AlgoritmoMiniLotes(tamLote, pasadas, semilla);
       }
+      return crearAlgoritmo(modoAlgoritmo, hilos, tamLote, pasadas);
+   }
 
+   /**
+    * crea la estrategia de convergencia de un modo
+    *
+    * @param modoConvergencia estretegia de convergencia
+    * @param maxIteraciones   maximo numero de iteraciones a realizar
+    * @param umbral           umbral a considerar para la convergencia
+    * @return estrategia de convergencia
+    */
+   private static EstrategiaConvergencia crearConvergencia(ModoConvergencia modoConvergencia,
+                                                           int maxIteraciones, double umbral) {
       EstrategiaConvergencia parada = null;
       switch (modoConvergencia) {
          case ITERACIONES:
@@ -146,9 +568,57 @@ public class KMedias {
             parada = new ConvergenciaRuido(umbral, maxIteraciones);
             break;
       }
+      return parada;
+   }
+
+   /**
+    * indica si con los modos indicados hace falta el almacen
+    * con todos los pixels de la imagen; lo declara cada una de
+    * las estrategias. Si no hace falta, no merece la pena
+    * crearlo por adelantado
+    *
+    * @param modoInicializacion estretegia de inicializacion
+    * @param modoConvergencia   estretegia de convergencia
+    * @param modoAlgoritmo      forma de realizar las iteraciones
+    * @return true si alguna estrategia usa el almacen de pixels
+    */
+   static boolean necesitaPixels(ModoInicializacion modoInicializacion,
+                                 ModoConvergencia modoConvergencia,
+                                 ModoAlgoritmo modoAlgoritmo) {
+      EstrategiaAlgoritmo algoritmo = crearAlgoritmo(modoAlgoritmo, 1,
+              AlgoritmoMiniLotes.tamLotePredeterminado,
+              AlgoritmoMiniLotes.pasadasPredeterminadas);
+      return crearInicializador(modoInicializacion).necesitaPixels() ||
+              crearConvergencia(modoConvergencia, 1, 0).necesitaPixels() ||
+              algoritmo == null || algoritmo.necesitaPixels();
+   }
 
+   /**
+    * crea el objeto con la estrategia de convergencia
+    * correspondiente al modo indicado
+    *
+    * @param k                numero de colores a considerar
+    * @param inicializador    estrategia de inicializacion
+    * @param modoConvergencia estretegia de convergencia
+    * @param maxIteraciones   maximo numero de iteraciones a realizar
+    * @param umbral           umbral a considerar para la convergencia
+    * @param imagen           imagen a analizar
+    * @param algoritmo        estrategia de iteracion (null para el
+    *                         modo clasico)
+    * @param precision        precision de los calculos de distancia
+    * @param pixels           almacen compartido, o null para crearlo
+    *                         cuando se pida
+    * @return objeto creado
+    */
+   private static KMedias crear(int k, EstrategiaInicializacion inicializador,
+                                ModoConvergencia modoConvergencia,
+                                int maxIteraciones, double umbral, Imagen imagen,
+                                EstrategiaAlgoritmo algoritmo, ModoPrecision precision,
+                                AlmacenPixels pixels) {
       // se crea el objeto y se devuelve
-      return new KMedias(imagen, k, inicializador, parada);
+      return new KMedias(imagen, k, inicializador,
+              crearConvergencia(modoConvergencia, maxIteraciones, umbral), algoritmo,
+              precision, pixels);
    }
 
    /**
@@ -161,14 +631,41 @@ public class KMedias {
    }
 
    /**
-    * accede al atributo con la lista de pixels
+    * accede a la imagen a procesar
+    *
+    * @return devuelve la imagen original
+    */
+   public Imagen obtenerImagen() {
+      return imagen;
+   }
+
+   /**
+    * accede al atributo con el almacen de pixels. La primera
+    * vez se obtienen los puntos de la imagen: esto lo hace el
+    * metodo convertirIndicesColoresAlmacen, que pasa de la
+    * descripcion de los indices de color (de 0 a 255) a
+    * niveles de RGB. Un almacen compartido ya tiene fijada la
+    * precision y no se modifica
     *
-    * @return devuelve la lista de pixels
+    * @return devuelve el almacen de pixels
     */
-   public List<Pixel> obtenerPixels() {
+   public AlmacenPixels obtenerPixels() {
+      if (pixels == null) {
+         pixels = imagen.convertirIndicesColoresAlmacen();
+         pixels.establecerPrecision(precision);
+      }
       return pixels;
    }
 
+   /**
+    * accede a la precision de los calculos de distancia
+    *
+    * @return precision
+    */
+   public ModoPrecision obtenerPrecision() {
+      return precision;
+   }
+
    /**
     * accede al valor de k
     *
@@ -208,16 +705,62 @@ public class KMedias {
       return medidaConvergencia;
    }
 
+   /**
+    * obtiene el error cuadratico de la ultima iteracion (suma
+    * de distancias cuadraticas de cada pixel a su centro). Lo
+    * calculan las estrategias de algoritmo; en el modo clasico
+    * solo se calcula si hay observador y en otro caso se
+    * devuelve NaN
+    *
+    * @return error cuadratico
+    */
+   public double obtenerErrorCuadratico() {
+      return algoritmo == null ? errorClasico : algoritmo.obtenerErrorCuadratico();
+   }
+
+   /**
+    * fija el observador que recibe el error cuadratico al
+    * final de cada iteracion y decide si se continua
+    *
+    * @param observador observador; devuelve false para
+    *                   abandonar las iteraciones
+    */
+   void establecerObservador(DoublePredicate observador) {
+      this.observador = observador;
+   }
+
+   /**
+    * indica si el observador ha abandonado las iteraciones
+    *
+    * @return true si las iteraciones no llegaron a converger
+    */
+   boolean estaCancelado() {
+      return cancelado;
+   }
+
+   /**
+    * obtiene los calculos de distancias evitados en cada
+    * iteracion por las estrategias que usan cotas (0 en el
+    * resto; lista vacia en el modo clasico)
+    *
+    * @return lista con las distancias evitadas por iteracion
+    */
+   public List<Long> obtenerDistanciasEvitadas() {
+      return distanciasEvitadas;
+   }
+
    /**
     * metodo principal de funcionamiento del algoritmo
     * para generar la agrupacion. El resultado sera una
     * nueva imagen despues de haber realizado el
     * agrupamiento de los pixels
     *
+    * @param funcional indica si se usa la version funcional;
+    *                  solo se considera en el modo clasico
     * @return imagen generada tras el filtrado
     */
    public Imagen agrupar(boolean funcional) {
-      if (funcional) {
+      if (funcional && algoritmo == null) {
          // se produce la inicializacion de los centroides para
          // empezar el proceso
 
@@ -232,256 +775,267 @@ public class KMedias {
          return aplicarFiltroFuncional();
       }
       else {
-         // se produce la inicializacion de los centroides para
-         // empezar el proceso
+         // se obtienen los centros finales y se crea una nueva
+         // imagen a partir de la actual, pero aplicando el
+         // filtro dado por el resultado del algoritmo de
+         // agrupamiento
+         calcularCentros();
+         return aplicarFiltro();
+      }
 
-         centrosT1 = inicializador.seleccionar(this);
+   }
 
+   /**
+    * realiza la inicializacion y las iteraciones sin aplicar
+    * el filtro a la imagen
+    *
+    * @return centros finales
+    */
+   List<Pixel> calcularCentros() {
+      // se produce la inicializacion de los centroides para
+      // empezar el proceso
+      centrosT1 = inicializador.seleccionar(this);
+
+      if (algoritmo != null) {
+         // se delegan las iteraciones en la estrategia elegida
+         algoritmo.preparar(this);
+         iterarAlgoritmo();
+      }
+      else {
          // se llama al metodo que realiza el bucle principal
          // de calculo de distancias - asignacion - determinacion
          // de nuevos centroides, hasta que haya convergencia
          iterar();
-         // se crea una nueva imagen a partir de la actual,
-         // pero aplicando el filtro dado por el resultado
-         // del algoritmo de agrupamiento
-         return aplicarFiltro();
       }
-
+      return centrosT1;
    }
 
    /**
     * metodo que implementa el bucle principal del
     * algoritmo: repite el proceso hasta obtener la
-    * convergencia deseada. Por tanto, el criterio de
-    * parada tendra que llemarse desde el
-    * NOTA: por implementar
+    * convergencia deseada. Los arrays de trabajo se
+    * reservan antes de empezar y se reutilizan en todas
+    * las iteraciones
     */
    private void iterar() {
-      // clasificar los pixels por distancia a los
-      // centroides iniciales
-      clasificacion = clasificar();
-
-      // se actualizan los centroides
-      actualizar();
+      // se reservan los arrays de trabajo
+      reservar();
+
+      boolean convergencia = false;
+      while (!convergencia) {
+         // clasificar los pixels por distancia a los
+         // centroides iniciales
+         clasificar();
+
+         // el error solo se calcula si alguien lo observa
+         if (observador != null) {
+            errorClasico = calcularError();
+         }
 
-      // comprobar si hay convergencia
-      boolean convergencia = parada.convergencia(this);
+         // se actualizan los centroides
+         actualizar();
 
-      // se actualizan los centroides
-      centrosT1 = centrosT2;
+         // comprobar si hay convergencia
+         convergencia = parada.convergencia(this) || abandonar();
 
-      // si no hay convergencia, vuelvo a iterar de
-      // forma recursiva
-      if(!convergencia){
-         // incremento el contador de iteraciones
-         iteraciones++;
+         // se actualizan los centroides: los centros finales
+         // pasan a ser los iniciales y los arrays y la lista
+         // de los iniciales se reutilizan en la siguiente
+         intercambiar();
 
-         // se produce la llamada recursiva
-         iterar();
-      }
-      else{
-         // se obtiene la medida obtenida para la
-         // convergencia
-         medidaConvergencia = parada.obtenerMedida();
+         // si no hay convergencia se incrementa el contador
+         if (!convergencia) {
+            iteraciones++;
+         }
       }
+
+      // al acabar ambas listas apuntan a los centros finales
+      centrosT2 = centrosT1;
+
+      // se obtiene la medida obtenida para la convergencia
+      medidaConvergencia = parada.obtenerMedida();
    }
    private void iterarFuncional() {
-      // clasificar los pixels por distancia a los
-      // centroides iniciales
-      clasificacion = clasificarFuncional();
+      // el array de clasificacion se reserva una unica vez
+      clasificacion = new int[obtenerPixels().obtenerNumeroPixels()];
 
-      // se actualizan los centroides
-      actualizarFuncional();
+      boolean convergencia = false;
+      while (!convergencia) {
+         // clasificar los pixels por distancia a los
+         // centroides iniciales
+         clasificarFuncional();
 
-      // comprobar si hay convergencia
-      boolean convergencia = parada.convergenciaFuncional(this);
+         // se actualizan los centroides
+         actualizarFuncional();
 
-      // se actualizan los centroides
-      centrosT1 = centrosT2;
+         // comprobar si hay convergencia
+         convergencia = parada.convergenciaFuncional(this);
 
-      // si no hay convergencia, vuelvo a iterar de
-      // forma recursiva
-      if(!convergencia){
-         // incremento el contador de iteraciones
-         iteraciones++;
+         // se actualizan los centroides
+         centrosT1 = centrosT2;
 
-         // se produce la llamada recursiva
-         iterarFuncional();
-      }
-      else{
-         // se obtiene la medida obtenida para la
-         // convergencia
-         medidaConvergencia = parada.obtenerMedida();
+         // si no hay convergencia se incrementa el contador
+         if (!convergencia) {
+            iteraciones++;
+         }
       }
+
+      // se obtiene la medida obtenida para la convergencia
+      medidaConvergencia = parada.obtenerMedida();
    }
 
+   /**
+    * reserva los arrays usados por el bucle principal y
+    * prepara las dos listas de centros que se alternan entre
+    * iteraciones
+    */
+   private void reservar() {
+      clasificacion = new int[obtenerPixels().obtenerNumeroPixels()];
+      componentesT1 = AlmacenPixels.convertirCentros(centrosT1);
+      componentesT2 = new double[componentesT1.length];
+      sumas = new double[componentesT1.length];
+      contadores = new long[centrosT1.size()];
+
+      // copias modificables de los centros iniciales
+      centrosT2 = new ArrayList<>(centrosT1);
+      centrosT1 = new ArrayList<>(centrosT1);
+   }
 
    /**
-    * metodo auxiliar que produce los nuevos grupos
-    * obtenidos tras el calculo de distancias. Los
-    * datos se devuelven en un diccionario en que la
-    * clave es un centroide y el valor todos los pixels
-    * agrupados al mismo
-    *
-    * @return NOTA: pos implementar
+    * intercambia los centros inicial y final al pasar a la
+    * siguiente iteracion
     */
-   private Map<Pixel, List<Pixel>> clasificar() {
-      // para cada pixel tenemos que obtener el centroide
-      // mas cercano. El resultado se almacena en un
-      // diccionario en que la clave seran los centros
-      // y los valores las listas de pixels asociados
-      Map<Pixel, List<Pixel>> resultado = new HashMap<>();
-
-      // se agregan los centroides al resultado
-      for(Pixel centro : centrosT1){
-         resultado.put(centro, new ArrayList<>());
-      }
-      // procesado de los pixels uno por uno
-      for(Pixel pixel : pixels){
-         // se obtiene el centro mas cercano
-         Pixel centroMasCercano = pixel.obtenerMasCercano(centrosT1);
+   private void intercambiar() {
+      double[] componentes = componentesT1;
+      componentesT1 = componentesT2;
+      componentesT2 = componentes;
 
-         // actualizo la lista correspondiente
-         List<Pixel> grupo = resultado.get(centroMasCercano);
-         grupo.add(pixel);
+      List<Pixel> centros = centrosT1;
+      centrosT1 = centrosT2;
+      centrosT2 = centros;
+   }
 
+
+   /**
+    * bucle principal cuando las iteraciones se delegan en
+    * una estrategia de algoritmo: repite asignacion y
+    * actualizacion hasta que haya convergencia
+    */
+   private void iterarAlgoritmo() {
+      boolean convergencia = false;
+      while (!convergencia) {
+         // la estrategia clasifica y obtiene los nuevos centros
+         centrosT2 = algoritmo.iterar(centrosT1);
+         distanciasEvitadas.add(algoritmo.obtenerDistanciasEvitadas());
+
+         // comprobar si hay convergencia
+         convergencia = parada.convergencia(this) || abandonar();
+
+         // se actualizan los centroides
+         centrosT1 = centrosT2;
+
+         // si no hay convergencia se incrementa el contador
+         if (!convergencia) {
+            iteraciones++;
+         }
       }
-      // se devuelve el mapa resultante
-      return resultado;
+
+      // se obtiene la medida obtenida para la convergencia
+      medidaConvergencia = parada.obtenerMedida();
    }
-   private Map<Pixel, List<Pixel>> clasificarFuncional() {
-      // para cada pixel tenemos que obtener el centroide
-      // mas cercano. El resultado se almacena en un
-      // diccionario en que la clave seran los centros
-      // y los valores las listas de pixels asociados
 
-      Map<Pixel, List<Pixel>> resultado = centrosT1.stream().collect(Collectors.groupingBy(
-                      pixel -> pixel, HashMap::new, Collectors.toList()
-              ));
+   /**
+    * consulta al observador, si lo hay, con el error de la
+    * iteracion
+    *
+    * @return true si el observador abandona las iteraciones
+    */
+   private boolean abandonar() {
+      if (observador != null && !observador.test(obtenerErrorCuadratico())) {
+         cancelado = true;
+      }
+      return cancelado;
+   }
 
-      pixels.stream().map(pixel -> {
-         // se obtiene el centro mas cercano
-         Pixel centroMasCercano = pixel.obtenerMasCercano(centrosT1);
+   /**
+    * calcula el error cuadratico de la clasificacion actual
+    * respecto a los centros al inicio de la iteracion
+    *
+    * @return suma de distancias cuadraticas
+    */
+   private double calcularError() {
+      double error = 0;
+      for (int i = 0; i < clasificacion.length; i++) {
+         int grupo = clasificacion[i];
+         error += pixels.distanciaCuadratica(i, componentesT1[3 * grupo],
+                 componentesT1[3 * grupo + 1], componentesT1[3 * grupo + 2]);
+      }
+      return error;
+   }
 
-         List<Pixel> grupo = resultado.get(centroMasCercano);
-         grupo.add(pixel);
-         return 1;
-      }).collect(Collectors.toList());
+   /**
+    * metodo auxiliar que produce los nuevos grupos
+    * obtenidos tras el calculo de distancias. Para cada
+    * pixel se guarda en el array de clasificacion la
+    * posicion del centroide asignado
+    */
+   private void clasificar() {
+      // para cada pixel tenemos que obtener el centroide
+      // mas cercano; se hace por bloques con el nucleo de
+      // distancias
+      pixels.asignarBloque(0, clasificacion.length, componentesT1, clasificacion, 0);
+   }
+   private void clasificarFuncional() {
+      // para cada pixel tenemos que obtener el centroide
+      // mas cercano; cada posicion del array se escribe
+      // una sola vez
+      double[] centros = AlmacenPixels.convertirCentros(centrosT1);
 
-      return resultado;
+      IntStream.range(0, clasificacion.length).
+              forEach(indice -> clasificacion[indice] = pixels.obtenerMasCercano(indice, centros));
    }
 
    /**
-    * actualizacion de la lista de centros obtenidos de acuerdo
-    * a la clasificacion y centroides pasados como argumento
-    * NOTA: por implementar
+    * actualizacion de los centros obtenidos de acuerdo a la
+    * clasificacion y centroides actuales. Las medias se
+    * calculan sobre los arrays de trabajo; solo se crean
+    * los objetos Pixel de los centros de la lista
     */
    private void actualizar() {
-      // se crea almacen para centros finales
-      centrosT2 = new ArrayList<>();
-
-      // se calcula la medida para cada grupo de la
-      // clasificacion realizada
-      for(int i=0; i < clasificacion.size(); i++){
-         List<Pixel> grupo = clasificacion.get(centrosT1.get(i));
-
-         // se comprueba que el grupo no este vacio
-         if(!grupo.isEmpty()){
-            centrosT2.add(Utilidades.calcularMedia(grupo));
+      // se calcula la media de cada grupo de la clasificacion
+      // realizada; los grupos vacios conservan su centro
+      Utilidades.calcularMedias(pixels, clasificacion, componentesT1, sumas,
+              contadores, componentesT2);
+
+      // se actualiza la lista de centros finales
+      for(int j=0; j < contadores.length; j++){
+         if(contadores[j] == 0){
+            centrosT2.set(j, centrosT1.get(j));
          }
          else{
-            centrosT2.add(centrosT1.get(i));
+            centrosT2.set(j, new Pixel(componentesT2[3 * j], componentesT2[3 * j + 1],
+                    componentesT2[3 * j + 2]));
          }
       }
    }
 
    private void actualizarFuncional() {
-      // se crea almacen para centros finales
-      centrosT2 = new ArrayList<>();
-
-      // se calcula la medida para cada grupo de la
-      // clasificacion realizada
-
-      IntStream.range(0, clasificacion.size()).boxed().
-              map(indice -> {
-                List<Pixel> grupo = clasificacion.get(centrosT1.get(indice));
-
-                if (grupo.isEmpty()) {
-                   centrosT2.add(centrosT1.get(indice));
-                }
-                else {
-                   centrosT2.add(Utilidades.calcularMediaFuncional(grupo));
-                }
-                return 1;
-              }).collect(Collectors.toList());
-   }
-
-   private void actualizarFuncionalV2() {
-      // se crea almacen para centros finales
-      centrosT2 = new ArrayList<>();
-
-      // se calcula la medida para cada grupo de la
-      // clasificacion realizada
-
-      IntStream.range(0, clasificacion.size()).boxed().
-              forEach(indice -> {
-                 List<Pixel> grupo = clasificacion.get(centrosT1.get(indice));
-
-                 if (grupo.isEmpty()) {
-                    centrosT2.add(centrosT1.get(indice));
-                 }
-                 else {
-                    centrosT2.add(Utilidades.calcularMediaFuncional(grupo));
-                 }
-              });
+      // se calcula la media de cada grupo de la clasificacion
+      // realizada; los grupos vacios conservan su centro
+      centrosT2 = Utilidades.calcularMediasFuncional(pixels, clasificacion, centrosT1);
    }
 
    /**
     * metodo para aplicar el filtro a la imagen y generar
-    * asi la imagen resultante
+    * asi la imagen resultante. El centro mas cercano se
+    * calcula una vez por color distinto de la imagen
     *
     * @return imagen procesada
-    * NOTA: por implementar
     */
    private Imagen aplicarFiltro() {
-      // se crea una nueva imagen usando unicamente los
-      // centros finales como pixels
-      List<Integer> pixels = new ArrayList<>();
-
-      // considero todos los pixels de la imagen
-      int dimension = imagen.obtenerColumnas()*imagen.obtenerFilas();
-
-      // recorrido de los pixels
-      for(int i=0; i < dimension; i++){
-         int colorPixel = imagen.obtenerColorPixel(i);
-         Pixel pixel = new Pixel(colorPixel);
-
-         // se obtiene el mas cercano
-         Pixel masCercano = pixel.obtenerMasCercano(centrosT1);
-
-         // se agrega a la lista de pixels finales
-         pixels.add(masCercano.obtenerIndice());
-      }
-
-      // devuelve la imagen creada
-      return new Imagen(imagen.obtenerColumnas(), imagen.obtenerFilas(),
-              pixels);
+      return new MapeoPaleta(centrosT1).aplicar(imagen);
    }
    private Imagen aplicarFiltroFuncional() {
-      // considero todos los pixels de la imagen
-      int dimension = imagen.obtenerColumnas()*imagen.obtenerFilas();
-
-      List<Integer> pixels = IntStream.range(0, dimension).boxed().map(indice -> {
-         int color = imagen.obtenerColorPixel(indice);
-         Pixel pixel = new Pixel(color);
-
-         // se obtiene el mas cercano
-         Pixel masCercano = pixel.obtenerMasCercanoFuncional(centrosT1);
-         return masCercano.obtenerIndice();
-      }).collect(Collectors.toList());
-
-      // devuelve la imagen creada
-      return new Imagen(imagen.obtenerColumnas(), imagen.obtenerFilas(),
-              pixels);
+      return new MapeoPaleta(centrosT1).aplicarFuncional(imagen);
    }
 }
@@ -0,0 +1,377 @@
+package kmedias;
+
+import imagen.ComponentesRGBA;
+import imagen.Pixel;
+import imagen.RGBA;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * clase para aplicar el algoritmo de las k-medias en linea
+ * (MacQueen) sobre pixels que llegan de uno en uno, por
+ * ejemplo por filas a medida que se decodifica un fichero,
+ * sin tener nunca la imagen completa en memoria. Los k
+ * primeros colores distintos son los centros iniciales; cada
+ * pixel siguiente se asigna a su centro mas cercano y el
+ * centro se desplaza hacia el pixel, de forma que cada centro
+ * es en todo momento la media de los pixels que ha recibido.
+ * Solo se guardan unos pocos valores por centro. Como los
+ * primeros colores suelen salir de la misma zona de la imagen,
+ * de forma opcional se realiza una consolidacion periodica:
+ * el centro cuya eliminacion menos aumenta el error se funde
+ * con su centro mas cercano y se vuelve a situar en el pixel
+ * peor representado del centro con mas error acumulado. La
+ * paleta obtenida se aplica despues en un segundo recorrido
+ * de las filas
+ */
+public class KMediasEnLinea {
+   /**
+    * numero de grupos a formar
+    */
+   private final int k;
+
+   /**
+    * pixels entre consolidaciones; 0 si no se consolida
+    */
+   private final long periodoConsolidacion;
+
+   /**
+    * componentes de los centros (rojo, verde y azul
+    * consecutivos)
+    */
+   private final double[] centros;
+
+   /**
+    * numero de pixels recibidos por cada centro
+    */
+   private final long[] contadores;
+
+   /**
+    * numero de centros ya inicializados
+    */
+   private int numeroCentros;
+
+   /**
+    * numero de pixels procesados
+    */
+   private long procesados;
+
+   /**
+    * suma de las distancias cuadraticas de los pixels de cada
+    * centro en el momento de asignarlos
+    */
+   private final double[] errores;
+
+   /**
+    * pixel de cada centro mas alejado de el desde la ultima
+    * consolidacion
+    */
+   private final int[] peoresColores;
+
+   /**
+    * distancia cuadratica de cada centro a su pixel peor
+    * representado; negativa al empezar cada periodo
+    */
+   private final double[] peoresDistancias;
+
+   /**
+    * numero de centros recolocados en las consolidaciones
+    */
+   private int recolocaciones;
+
+   /**
+    * constructor sin consolidacion periodica
+    *
+    * @param k numero de colores a obtener
+    */
+   public KMediasEnLinea(int k) {
+      this(k, 0);
+   }
+
+   /**
+    * constructor de la clase
+    *
+    * @param k                    numero de colores a obtener
+    * @param periodoConsolidacion pixels entre consolidaciones
+    *                             (0 para no consolidar)
+    */
+   public KMediasEnLinea(int k, long periodoConsolidacion) {
+      if (k < 1) {
+         throw new IllegalArgumentException("numero de colores no valido: " + k);
+      }
+      if (periodoConsolidacion < 0) {
+         throw new IllegalArgumentException("periodo de consolidacion no valido: " +
+                 periodoConsolidacion);
+      }
+      this.k = k;
+      this.periodoConsolidacion = periodoConsolidacion;
+      centros = new double[3 * k];
+      contadores = new long[k];
+      errores = new double[k];
+      peoresColores = new int[k];
+      peoresDistancias = new double[k];
+      Arrays.fill(peoresDistancias, -1);
+   }
+
+   /**
+    * procesa un pixel: se asigna a su centro mas cercano y el
+    * centro se desplaza hacia el con tasa 1 / numero de pixels
+    * del centro
+    *
+    * @param color color del pixel (ARGB empaquetado)
+    */
+   public void procesar(int color) {
+      double rojo = RGBA.obtenerComponente(color, ComponentesRGBA.ROJO);
+      double verde = RGBA.obtenerComponente(color, ComponentesRGBA.VERDE);
+      double azul = RGBA.obtenerComponente(color, ComponentesRGBA.AZUL);
+      procesados++;
+
+      // centro mas cercano con el mismo criterio que el modo
+      // clasico: en caso de empate el de menor posicion
+      int grupo = 0;
+      double minima = Double.MAX_VALUE;
+      for (int j = 0, base = 0; j < numeroCentros; j++, base += 3) {
+         double dr = rojo - centros[base];
+         double dv = verde - centros[base + 1];
+         double da = azul - centros[base + 2];
+         double distancia = dr * dr + dv * dv + da * da;
+         if (distancia < minima) {
+            minima = distancia;
+            grupo = j;
+         }
+      }
+
+      if (numeroCentros < k && minima > 0) {
+         // color nuevo mientras faltan centros: pasa a ser un
+         // centro
+         grupo = numeroCentros++;
+         asignarCentro(grupo, rojo, verde, azul, 1);
+      }
+      else {
+         double tasa = 1.0 / ++contadores[grupo];
+         int base = 3 * grupo;
+         centros[base] += tasa * (rojo - centros[base]);
+         centros[base + 1] += tasa * (verde - centros[base + 1]);
+         centros[base + 2] += tasa * (azul - centros[base + 2]);
+
+         // se acumula el error y se recuerda el pixel peor
+         // representado del centro
+         errores[grupo] += minima;
+         if (minima > peoresDistancias[grupo]) {
+            peoresDistancias[grupo] = minima;
+            peoresColores[grupo] = color;
+         }
+      }
+
+      if (periodoConsolidacion > 0 && procesados % periodoConsolidacion == 0) {
+         consolidar();
+      }
+   }
+
+   /**
+    * procesa todos los pixels de una fila. Puede usarse como
+    * consumidor de Utilidades.leerFilas para procesar un
+    * fichero a medida que se decodifica
+    *
+    * @param fila colores de la fila
+    */
+   public void procesarFila(int[] fila) {
+      for (int color : fila) {
+         procesar(color);
+      }
+   }
+
+   /**
+    * procesa todas las filas de una fuente
+    *
+    * @param filas iterador sobre las filas
+    */
+   public void procesarFilas(Iterator<int[]> filas) {
+      while (filas.hasNext()) {
+         procesarFila(filas.next());
+      }
+   }
+
+   /**
+    * procesa un flujo de colores en su orden
+    *
+    * @param colores flujo de colores
+    */
+   public void procesarFuncional(IntStream colores) {
+      colores.sequential().forEachOrdered(this::procesar);
+   }
+
+   /**
+    * consolidacion periodica: se busca el centro con mas error
+    * acumulado y el centro cuya fusion con su vecino mas
+    * cercano aumenta menos el error. Si ese aumento es menor
+    * que la mitad del error del primero, el segundo se funde
+    * con su vecino, conservando la media de ambos, y se
+    * recoloca en el pixel peor representado del primero. Se
+    * recoloca como mucho un centro en cada consolidacion
+    */
+   private void consolidar() {
+      if (numeroCentros < k || k < 2) {
+         return;
+      }
+
+      // centro con mas error que tiene un pixel para
+      // recolocar
+      int donante = -1;
+      for (int j = 0; j < k; j++) {
+         if (peoresDistancias[j] > 0 && (donante < 0 || errores[j] > errores[donante])) {
+            donante = j;
+         }
+      }
+
+      if (donante >= 0) {
+         // aumento del error al fundir cada centro con su
+         // vecino mas cercano: n1 n2 / (n1 + n2) por la
+         // distancia cuadratica entre ambos
+         int recolocado = -1;
+         int vecinoRecolocado = -1;
+         double menorCoste = Double.MAX_VALUE;
+         for (int j1 = 0; j1 < k; j1++) {
+            if (j1 == donante) {
+               continue;
+            }
+            int vecino = -1;
+            double minima = Double.MAX_VALUE;
+            for (int j2 = 0; j2 < k; j2++) {
+               if (j2 != j1) {
+                  double distancia = distanciaEntreCentros(j1, j2);
+                  if (distancia < minima) {
+                     minima = distancia;
+                     vecino = j2;
+                  }
+               }
+            }
+            double coste = minima * contadores[j1] * contadores[vecino] /
+                    (double) (contadores[j1] + contadores[vecino]);
+            if (coste < menorCoste) {
+               menorCoste = coste;
+               recolocado = j1;
+               vecinoRecolocado = vecino;
+            }
+         }
+
+         if (menorCoste < 0.5 * errores[donante]) {
+            // se funde con su vecino
+            long total = contadores[vecinoRecolocado] + contadores[recolocado];
+            for (int c = 0; c < 3; c++) {
+               centros[3 * vecinoRecolocado + c] =
+                       (centros[3 * vecinoRecolocado + c] * contadores[vecinoRecolocado] +
+                               centros[3 * recolocado + c] * contadores[recolocado]) / total;
+            }
+            contadores[vecinoRecolocado] = total;
+            errores[vecinoRecolocado] += errores[recolocado] + menorCoste;
+
+            // se recoloca en el pixel peor representado del
+            // donante, que se espera que reparta su error
+            int color = peoresColores[donante];
+            asignarCentro(recolocado, RGBA.obtenerComponente(color, ComponentesRGBA.ROJO),
+                    RGBA.obtenerComponente(color, ComponentesRGBA.VERDE),
+                    RGBA.obtenerComponente(color, ComponentesRGBA.AZUL), 1);
+            errores[recolocado] = 0;
+            errores[donante] *= 0.5;
+            recolocaciones++;
+         }
+      }
+
+      // comienza un nuevo periodo
+      Arrays.fill(peoresDistancias, -1);
+   }
+
+   /**
+    * fija las componentes y el contador de un centro
+    *
+    * @param j        posicion del centro
+    * @param rojo     componente roja
+    * @param verde    componente verde
+    * @param azul     componente azul
+    * @param contador numero de pixels del centro
+    */
+   private void asignarCentro(int j, double rojo, double verde, double azul, long contador) {
+      centros[3 * j] = rojo;
+      centros[3 * j + 1] = verde;
+      centros[3 * j + 2] = azul;
+      contadores[j] = contador;
+   }
+
+   /**
+    * distancia cuadratica entre dos centros
+    *
+    * @param j1 posicion del primer centro
+    * @param j2 posicion del segundo centro
+    * @return distancia cuadratica
+    */
+   private double distanciaEntreCentros(int j1, int j2) {
+      double dr = centros[3 * j1] - centros[3 * j2];
+      double dv = centros[3 * j1 + 1] - centros[3 * j2 + 1];
+      double da = centros[3 * j1 + 2] - centros[3 * j2 + 2];
+      return dr * dr + dv * dv + da * da;
+   }
+
+   /**
+    * obtiene los centros actuales. Si la fuente tenia menos
+    * de k colores distintos se devuelven solo los encontrados
+    *
+    * @return lista de centros
+    */
+   public List<Pixel> obtenerCentros() {
+      List<Pixel> resultado = new ArrayList<>(numeroCentros);
+      for (int j = 0; j < numeroCentros; j++) {
+         resultado.add(new Pixel(centros[3 * j], centros[3 * j + 1], centros[3 * j + 2]));
+      }
+      return resultado;
+   }
+
+   /**
+    * obtiene el numero de pixels recibido por cada centro
+    *
+    * @return array con los contadores (copia)
+    */
+   public long[] obtenerContadores() {
+      return contadores.clone();
+   }
+
+   /**
+    * obtiene el numero de pixels procesados
+    *
+    * @return pixels procesados
+    */
+   public long obtenerPixelsProcesados() {
+      return procesados;
+   }
+
+   /**
+    * obtiene el numero de centros recolocados en las
+    * consolidaciones
+    *
+    * @return numero de recolocaciones
+    */
+   public int obtenerRecolocaciones() {
+      return recolocaciones;
+   }
+
+   /**
+    * segundo recorrido: sustituye cada pixel de las filas por
+    * el color mas cercano de la paleta obtenida y entrega cada
+    * fila filtrada al consumidor, sin guardar las filas
+    *
+    * @param filas   iterador sobre las filas
+    * @param destino consumidor de las filas filtradas
+    */
+   public void aplicar(Iterator<int[]> filas, Consumer<int[]> destino) {
+      MapeoPaleta mapeo = new MapeoPaleta(obtenerCentros());
+      while (filas.hasNext()) {
+         int[] fila = filas.next();
+         destino.accept(mapeo.aplicarFila(fila, new int[fila.length]));
+      }
+   }
+}
@@ -0,0 +1,281 @@
+package kmedias;
+
+import algoritmo.ModoAlgoritmo;
+import convergencia.ModoConvergencia;
+import imagen.AlmacenPixels;
+import imagen.Imagen;
+import imagen.ModoPrecision;
+import imagen.Pixel;
+import inicializacion.ModoInicializacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.function.DoublePredicate;
+import java.util.stream.IntStream;
+
+/**
+ * clase para ejecutar varias veces el algoritmo de las
+ * k-medias con distintas semillas de inicializacion y quedarse
+ * con el resultado de menor error cuadratico. Los reinicios se
+ * ejecutan a la vez en un conjunto de hilos y comparten el
+ * almacen de pixels de la imagen, que solo se lee. Al final de
+ * cada iteracion cada reinicio compara su error con el menor
+ * error conocido: si, suponiendo que siga mejorando al mismo
+ * ritmo que en la ultima iteracion, no puede bajar de ese
+ * error, se abandona. Solo tiene sentido con inicializaciones
+ * aleatorias; con las deterministas todos los reinicios dan
+ * el mismo resultado
+ */
+public class KMediasReinicios {
+   /**
+    * iteraciones minimas antes de poder abandonar un reinicio
+    */
+   public final static int iteracionesMinimas = 3;
+
+   /**
+    * margen relativo sobre el menor error conocido: un
+    * reinicio solo se abandona si su error previsto lo supera
+    * en mas de este margen
+    */
+   public final static double holgura = 0.02;
+
+   /**
+    * imagen a analizar
+    */
+   private final Imagen imagen;
+
+   /**
+    * numero de hilos en que se ejecutan los reinicios
+    */
+   private final int hilos;
+
+   /**
+    * objetos KMedias de cada reinicio
+    */
+   private final List<KMedias> reinicios;
+
+   /**
+    * menor error cuadratico comunicado por los reinicios
+    */
+   private final DoubleAccumulator menorError =
+           new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+
+   /**
+    * posicion del reinicio elegido; -1 antes de agrupar
+    */
+   private int mejor = -1;
+
+   /**
+    * constructor privado: los objetos se crean con el metodo
+    * factoria
+    *
+    * @param imagen    imagen a analizar
+    * @param hilos     numero de hilos
+    * @param reinicios objetos KMedias de cada reinicio
+    */
+   private KMediasReinicios(Imagen imagen, int hilos, List<KMedias> reinicios) {
+      this.imagen = imagen;
+      this.hilos = hilos;
+      this.reinicios = reinicios;
+   }
+
+   /**
+    * metodo factoria: crea un objeto KMedias por reinicio con
+    * la misma parametrizacion, la semilla base mas su posicion
+    * y un unico almacen de pixels
+    *
+    * @param reinicios          numero de reinicios
+    * @param semilla            semilla base de las inicializaciones
+    * @param k                  numero de colores a considerar
+    * @param modoInicializacion estretegia de inicializacion
+    * @param modoConvergencia   estretegia de convergencia
+    * @param maxIteraciones     maximo numero de iteraciones a realizar
+    * @param umbral             umbral a considerar para la convergencia
+    * @param imagen             imagen a analizar
+    * @param modoAlgoritmo      forma de realizar las iteraciones
+    * @param hilos              numero de hilos para los reinicios; cada
+    *                           reinicio usa un unico hilo (tambien en
+    *                           el modo paralelo), ya que el paralelismo
+    *                           esta entre reinicios
+    * @param tamLote            pixels por lote en el modo por mini lotes
+    * @param pasadas            lotes por iteracion en el modo por mini
+    *                           lotes
+    * @param precision          precision de los calculos de distancia
+    * @return objeto construido de acuerdo a la parametrizacion
+    */
+   public static KMediasReinicios factoria(int reinicios, long semilla, int k,
+                                           ModoInicializacion modoInicializacion,
+                                           ModoConvergencia modoConvergencia,
+                                           int maxIteraciones, double umbral, Imagen imagen,
+                                           ModoAlgoritmo modoAlgoritmo, int hilos,
+                                           int tamLote, int pasadas,
+                                           ModoPrecision precision) {
+      if (reinicios < 1) {
+         throw new IllegalArgumentException("numero de reinicios no valido: " + reinicios);
+      }
+      if (hilos < 1) {
+         throw new IllegalArgumentException("numero de hilos no valido: " + hilos);
+      }
+
+      // almacen compartido por todos los reinicios; si ninguna
+      // estrategia lo usa no se crea y los reinicios trabajan
+      // solo con los colores distintos
+      AlmacenPixels pixels = null;
+      if (KMedias.necesitaPixels(modoInicializacion, modoConvergencia, modoAlgoritmo)) {
+         pixels = imagen.convertirIndicesColoresAlmacen();
+         pixels.establecerPrecision(precision);
+      }
+
+      // los reinicios ya se reparten los hilos, por lo que cada
+      // uno se ejecuta con uno solo: con un hilo el modo paralelo
+      // trabaja en el hilo que lo llama, sin conjunto de hilos
+      // propio, y en total no hay mas de hilos hilos a la vez
+      List<KMedias> lista = new ArrayList<>(reinicios);
+      for (int r = 0; r < reinicios; r++) {
+         lista.add(KMedias.factoria(k, modoInicializacion, semilla + r, modoConvergencia,
+                 maxIteraciones, umbral, imagen, modoAlgoritmo, 1, tamLote, pasadas,
+                 precision, pixels));
+      }
+      return new KMediasReinicios(imagen, hilos, lista);
+   }
+
+   /**
+    * ejecuta los reinicios a la vez y genera la imagen filtrada
+    * con los centros del reinicio de menor error
+    *
+    * @return imagen generada tras el filtrado
+    */
+   public Imagen agrupar() {
+      // cada reinicio observa su error en cada iteracion
+      menorError.reset();
+      for (KMedias kmedias : reinicios) {
+         kmedias.establecerObservador(new Observador());
+      }
+
+      ForkJoinPool hilosTrabajo = new ForkJoinPool(Math.min(hilos, reinicios.size()));
+      try {
+         hilosTrabajo.submit(() -> IntStream.range(0, reinicios.size()).parallel().
+                 forEach(r -> reinicios.get(r).calcularCentros())).join();
+      } finally {
+         hilosTrabajo.shutdown();
+      }
+
+      // se elige el reinicio completado con menor error; si
+      // el error no baja en cada iteracion (mini lotes) podrian
+      // abandonarse todos, y entonces se consideran todos
+      mejor = elegir(true);
+      if (mejor < 0) {
+         mejor = elegir(false);
+      }
+
+      // se aplica el filtro con los centros elegidos
+      return new MapeoPaleta(obtenerCentros()).aplicar(imagen);
+   }
+
+   /**
+    * busca el reinicio de menor error
+    *
+    * @param completados true para considerar solo los
+    *                    reinicios no abandonados
+    * @return posicion del reinicio, o -1 si no hay ninguno
+    */
+   private int elegir(boolean completados) {
+      int elegido = -1;
+      for (int r = 0; r < reinicios.size(); r++) {
+         KMedias kmedias = reinicios.get(r);
+         if ((!completados || !kmedias.estaCancelado()) && (elegido < 0 ||
+                 kmedias.obtenerErrorCuadratico() <
+                         reinicios.get(elegido).obtenerErrorCuadratico())) {
+            elegido = r;
+         }
+      }
+      return elegido;
+   }
+
+   /**
+    * devuelve el objeto KMedias del reinicio elegido
+    *
+    * @return reinicio de menor error
+    */
+   public KMedias obtenerMejor() {
+      return reinicios.get(mejor);
+   }
+
+   /**
+    * devuelve los centros finales del reinicio elegido
+    *
+    * @return lista de centros
+    */
+   public List<Pixel> obtenerCentros() {
+      return obtenerMejor().obtenerCentrosT1();
+   }
+
+   /**
+    * devuelve el error cuadratico de la ultima iteracion de
+    * cada reinicio, completado o abandonado
+    *
+    * @return errores de los reinicios
+    */
+   public double[] obtenerErrores() {
+      return reinicios.stream().mapToDouble(KMedias::obtenerErrorCuadratico).toArray();
+   }
+
+   /**
+    * devuelve el numero de reinicios abandonados
+    *
+    * @return reinicios abandonados
+    */
+   public int obtenerCancelados() {
+      return (int) reinicios.stream().filter(KMedias::estaCancelado).count();
+   }
+
+   /**
+    * observador de un reinicio: comunica su error y decide si
+    * debe abandonarse. Si el error baja de forma geometrica,
+    * con razon r entre las dos ultimas mejoras, lo que aun
+    * puede mejorar es como mucho la ultima mejora por
+    * r / (1 - r); el reinicio se abandona si ni con esa mejora
+    * baja del menor error conocido mas la holgura
+    */
+   private class Observador implements DoublePredicate {
+      /**
+       * iteraciones observadas
+       */
+      private int iteraciones;
+
+      /**
+       * error de la iteracion anterior
+       */
+      private double errorAnterior = Double.NaN;
+
+      /**
+       * mejora del error en la iteracion anterior
+       */
+      private double mejoraAnterior = Double.NaN;
+
+      /**
+       * recibe el error de la iteracion
+       *
+       * @param error error cuadratico de la iteracion
+       * @return true para continuar, false para abandonar
+       */
+      @Override
+      public boolean test(double error) {
+         menorError.accumulate(error);
+         iteraciones++;
+         double mejora = errorAnterior - error;
+         double razon = mejora / mejoraAnterior;
+         errorAnterior = error;
+         mejoraAnterior = mejora;
+         if (iteraciones < iteracionesMinimas || Double.isNaN(razon) || razon >= 1) {
+            return true;
+         }
+
+         // error previsto al converger
+         double previsto = mejora > 0 && razon > 0 ? error - mejora * razon / (1 - razon) : error;
+         return previsto <= menorError.get() * (1 + holgura);
+      }
+   }
+}
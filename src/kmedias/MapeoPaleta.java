@@ -0,0 +1,143 @@
+package kmedias;
+
+import imagen.AlmacenPixels;
+import imagen.ComponentesRGBA;
+import imagen.Histograma;
+import imagen.Imagen;
+import imagen.Pixel;
+import imagen.RGBA;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * clase para sustituir cada pixel de una imagen por el color
+ * mas cercano de una paleta. El centro mas cercano se calcula
+ * una unica vez por cada color distinto de la imagen y se
+ * guarda en una tabla alineada con el histograma de la
+ * imagen, de forma que el recorrido de los pixels se reduce a
+ * una consulta en la tabla por pixel
+ */
+public class MapeoPaleta {
+   /**
+    * componentes de los colores de la paleta (rojo, verde y
+    * azul consecutivos)
+    */
+   private final double[] centros;
+
+   /**
+    * indices de color de la paleta
+    */
+   private final int[] indices;
+
+   /**
+    * constructor de la clase
+    *
+    * @param paleta colores de la paleta (centros finales)
+    */
+   public MapeoPaleta(List<Pixel> paleta) {
+      centros = AlmacenPixels.convertirCentros(paleta);
+      indices = paleta.stream().mapToInt(Pixel::obtenerIndice).toArray();
+   }
+
+   /**
+    * devuelve la posicion en la paleta del color mas cercano
+    * a un color dado
+    *
+    * @param color color a considerar
+    * @return posicion del color de la paleta mas cercano
+    */
+   public int obtenerMasCercano(int color) {
+      return AlmacenPixels.obtenerMasCercano(
+              RGBA.obtenerComponente(color, ComponentesRGBA.ROJO),
+              RGBA.obtenerComponente(color, ComponentesRGBA.VERDE),
+              RGBA.obtenerComponente(color, ComponentesRGBA.AZUL), centros);
+   }
+
+   /**
+    * devuelve el color de la paleta mas cercano a un color dado
+    *
+    * @param color color a considerar
+    * @return indice de color de la paleta
+    */
+   public int obtenerColorMasCercano(int color) {
+      return indices[obtenerMasCercano(color)];
+   }
+
+   /**
+    * genera la imagen resultante de sustituir cada pixel por
+    * el color mas cercano de la paleta
+    *
+    * @param imagen imagen a procesar
+    * @return imagen con los colores de la paleta
+    */
+   public Imagen aplicar(Imagen imagen) {
+      // se resuelve el color de cada entrada ocupada del
+      // histograma de la imagen: los colores distintos se
+      // asignan en un unico bloque con el nucleo de distancias,
+      // en el mismo orden en que aparecen en el histograma
+      Histograma histograma = imagen.obtenerHistograma();
+      AlmacenPixels colores = new AlmacenPixels(histograma.obtenerColores());
+      int[] grupos = new int[colores.obtenerNumeroPixels()];
+      colores.asignarBloque(0, grupos.length, centros, grupos, 0);
+      int[] sustitutos = new int[histograma.obtenerCapacidad()];
+      for (int posicion = 0, siguiente = 0; posicion < sustitutos.length; posicion++) {
+         if (histograma.obtenerContadorPosicion(posicion) != 0) {
+            sustitutos[posicion] = indices[grupos[siguiente++]];
+         }
+      }
+
+      // recorrido de los pixels: una consulta por pixel
+      int[] datos = imagen.obtenerDatos();
+      int[] filtrados = new int[datos.length];
+      for (int i = 0; i < datos.length; i++) {
+         filtrados[i] = sustitutos[histograma.obtenerPosicion(datos[i])];
+      }
+
+      // devuelve la imagen creada
+      return new Imagen(imagen.obtenerColumnas(), imagen.obtenerFilas(), filtrados);
+   }
+
+   /**
+    * sustituye los colores de una fila por los mas cercanos de
+    * la paleta sin necesidad de tener la imagen completa, para
+    * filtrar imagenes que se recorren por filas. Los pixels
+    * consecutivos del mismo color reutilizan el resultado
+    * anterior
+    *
+    * @param fila    colores de la fila
+    * @param destino array donde se escriben los colores de la
+    *                paleta, de al menos el tamaño de la fila
+    * @return el propio array destino
+    */
+   public int[] aplicarFila(int[] fila, int[] destino) {
+      int anterior = 0;
+      int sustituto = 0;
+      for (int i = 0; i < fila.length; i++) {
+         if (i == 0 || fila[i] != anterior) {
+            anterior = fila[i];
+            sustituto = obtenerColorMasCercano(anterior);
+         }
+         destino[i] = sustituto;
+      }
+      return destino;
+   }
+
+   public Imagen aplicarFuncional(Imagen imagen) {
+      // color sustituto de cada posicion ocupada del histograma
+      Histograma histograma = imagen.obtenerHistograma();
+      int[] sustitutos = IntStream.range(0, histograma.obtenerCapacidad()).
+              map(posicion -> histograma.obtenerContadorPosicion(posicion) == 0 ? 0 :
+                      obtenerColorMasCercano(histograma.obtenerColorPosicion(posicion))).
+              toArray();
+
+      // consulta en la tabla para cada pixel
+      int[] datos = imagen.obtenerDatos();
+      int[] filtrados = IntStream.range(0, datos.length).
+              map(indice -> sustitutos[histograma.obtenerPosicion(datos[indice])]).
+              toArray();
+
+      // devuelve la imagen creada
+      return new Imagen(imagen.obtenerColumnas(), imagen.obtenerFilas(), filtrados);
+   }
+}
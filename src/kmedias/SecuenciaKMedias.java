@@ -0,0 +1,314 @@
+package kmedias;
+
+import algoritmo.ModoAlgoritmo;
+import convergencia.ModoConvergencia;
+import imagen.Imagen;
+import imagen.ModoPrecision;
+import imagen.Pixel;
+import inicializacion.ModoInicializacion;
+
+import java.util.List;
+import java.util.function.DoublePredicate;
+
+/**
+ * clase para aplicar las k-medias a una secuencia de imagenes
+ * parecidas, como los fotogramas de un video o una rafaga de
+ * fotos. Cada imagen se agrupa partiendo de los centros
+ * finales de la anterior (arranque en caliente), por lo que
+ * suele bastar con una o dos iteraciones. Si la imagen cambia
+ * mucho (por ejemplo, en un cambio de plano) el error de los
+ * centros anteriores sobre la nueva imagen se dispara: si el
+ * error medio por pixel de la primera iteracion supera al de
+ * la imagen anterior en mas de la deriva permitida, se
+ * abandona y se vuelve a inicializar desde cero
+ */
+public class SecuenciaKMedias {
+   /**
+    * numero de colores a considerar
+    */
+   private final int k;
+
+   /**
+    * inicializacion de la primera imagen y de los reinicios
+    */
+   private final ModoInicializacion modoInicializacion;
+
+   /**
+    * estrategia de convergencia
+    */
+   private final ModoConvergencia modoConvergencia;
+
+   /**
+    * maximo numero de iteraciones
+    */
+   private final int maxIteraciones;
+
+   /**
+    * umbral de la convergencia
+    */
+   private final double umbral;
+
+   /**
+    * forma de realizar las iteraciones
+    */
+   private final ModoAlgoritmo modoAlgoritmo;
+
+   /**
+    * numero de hilos para el modo paralelo
+    */
+   private final int hilos;
+
+   /**
+    * pixels por lote en el modo por mini lotes
+    */
+   private final int tamLote;
+
+   /**
+    * lotes por iteracion en el modo por mini lotes
+    */
+   private final int pasadas;
+
+   /**
+    * precision de los calculos de distancia
+    */
+   private final ModoPrecision precision;
+
+   /**
+    * aumento relativo permitido del error medio por pixel de
+    * la primera iteracion respecto al de la imagen anterior;
+    * infinito para no comprobarlo nunca
+    */
+   private final double deriva;
+
+   /**
+    * mejora relativa del error por debajo de la cual se dan
+    * por terminadas las iteraciones; 0 para usar solo el
+    * criterio de convergencia
+    */
+   private final double tolerancia;
+
+   /**
+    * centros finales de la ultima imagen; null al empezar la
+    * secuencia
+    */
+   private List<Pixel> centros;
+
+   /**
+    * error medio por pixel de la ultima imagen
+    */
+   private double errorReferencia;
+
+   /**
+    * objeto KMedias de la ultima imagen
+    */
+   private KMedias ultimo;
+
+   /**
+    * numero de imagenes agrupadas
+    */
+   private int imagenes;
+
+   /**
+    * numero de imagenes en que se ha abandonado el arranque
+    * en caliente
+    */
+   private int reinicios;
+
+   /**
+    * constructor privado: los objetos se crean con el metodo
+    * factoria
+    */
+   private SecuenciaKMedias(int k, ModoInicializacion modoInicializacion,
+                            ModoConvergencia modoConvergencia, int maxIteraciones,
+                            double umbral, ModoAlgoritmo modoAlgoritmo, int hilos,
+                            int tamLote, int pasadas, ModoPrecision precision,
+                            double deriva, double tolerancia) {
+      this.k = k;
+      this.modoInicializacion = modoInicializacion;
+      this.modoConvergencia = modoConvergencia;
+      this.maxIteraciones = maxIteraciones;
+      this.umbral = umbral;
+      this.modoAlgoritmo = modoAlgoritmo;
+      this.hilos = hilos;
+      this.tamLote = tamLote;
+      this.pasadas = pasadas;
+      this.precision = precision;
+      this.deriva = deriva;
+      this.tolerancia = tolerancia;
+   }
+
+   /**
+    * metodo factoria: los parametros son los de KMedias.factoria
+    * mas los que controlan el arranque en caliente
+    *
+    * @param k                  numero de colores a considerar
+    * @param modoInicializacion estretegia de inicializacion de la
+    *                           primera imagen y de los reinicios
+    * @param modoConvergencia   estretegia de convergencia
+    * @param maxIteraciones     maximo numero de iteraciones a realizar
+    * @param umbral             umbral a considerar para la convergencia
+    * @param modoAlgoritmo      forma de realizar las iteraciones
+    * @param hilos              numero de hilos para el modo paralelo
+    * @param tamLote            pixels por lote en el modo por mini lotes
+    * @param pasadas            lotes por iteracion en el modo por mini
+    *                           lotes
+    * @param precision          precision de los calculos de distancia
+    * @param deriva             aumento relativo del error permitido
+    *                           antes de reiniciar (por ejemplo 0.5);
+    *                           infinito para no reiniciar nunca
+    * @param tolerancia         mejora relativa minima del error para
+    *                           seguir iterando; 0 para no usarla
+    * @return objeto construido de acuerdo a la parametrizacion
+    */
+   public static SecuenciaKMedias factoria(int k, ModoInicializacion modoInicializacion,
+                                           ModoConvergencia modoConvergencia,
+                                           int maxIteraciones, double umbral,
+                                           ModoAlgoritmo modoAlgoritmo, int hilos,
+                                           int tamLote, int pasadas,
+                                           ModoPrecision precision, double deriva,
+                                           double tolerancia) {
+      if (!(deriva >= 0)) {
+         throw new IllegalArgumentException("deriva no valida: " + deriva);
+      }
+      if (!(tolerancia >= 0)) {
+         throw new IllegalArgumentException("tolerancia no valida: " + tolerancia);
+      }
+      return new SecuenciaKMedias(k, modoInicializacion, modoConvergencia, maxIteraciones,
+              umbral, modoAlgoritmo, hilos, tamLote, pasadas, precision, deriva, tolerancia);
+   }
+
+   /**
+    * agrupa la siguiente imagen de la secuencia partiendo de
+    * los centros de la anterior, o desde cero si es la
+    * primera o si los centros anteriores no sirven
+    *
+    * @param imagen imagen a analizar
+    * @return imagen generada tras el filtrado
+    */
+   public Imagen agrupar(Imagen imagen) {
+      double numeroPixels = (double) imagen.obtenerFilas() * imagen.obtenerColumnas();
+      Observador observador = null;
+      if (centros != null) {
+         // arranque en caliente, vigilando la primera iteracion
+         ultimo = KMedias.factoria(k, centros, modoInicializacion, modoConvergencia,
+                 maxIteraciones, umbral, imagen, modoAlgoritmo, hilos, tamLote, pasadas,
+                 precision);
+         observador = new Observador(errorReferencia * numeroPixels * (1 + deriva));
+         ultimo.establecerObservador(observador);
+         ultimo.calcularCentros();
+      }
+      if (observador == null || observador.derivado) {
+         // primera imagen o cambio brusco: inicializacion completa
+         if (observador != null) {
+            reinicios++;
+         }
+         ultimo = KMedias.factoria(k, modoInicializacion, modoConvergencia, maxIteraciones,
+                 umbral, imagen, modoAlgoritmo, hilos, tamLote, pasadas, precision);
+         ultimo.establecerObservador(new Observador(Double.POSITIVE_INFINITY));
+         ultimo.calcularCentros();
+      }
+
+      // se guardan los centros y el error para la siguiente
+      centros = ultimo.obtenerCentrosT2();
+      errorReferencia = ultimo.obtenerErrorCuadratico() / numeroPixels;
+      imagenes++;
+
+      // se aplica el filtro con los centros obtenidos
+      return new MapeoPaleta(centros).aplicar(imagen);
+   }
+
+   /**
+    * olvida los centros anteriores, de forma que la siguiente
+    * imagen se inicializa desde cero. Util cuando se sabe que
+    * hay un cambio de escena
+    */
+   public void reiniciar() {
+      centros = null;
+   }
+
+   /**
+    * devuelve el objeto KMedias de la ultima imagen agrupada
+    *
+    * @return ultimo objeto KMedias, o null si aun no hay
+    */
+   public KMedias obtenerUltimo() {
+      return ultimo;
+   }
+
+   /**
+    * devuelve los centros finales de la ultima imagen
+    *
+    * @return lista de centros, o null si aun no hay
+    */
+   public List<Pixel> obtenerCentros() {
+      return centros;
+   }
+
+   /**
+    * devuelve el numero de imagenes agrupadas
+    *
+    * @return imagenes agrupadas
+    */
+   public int obtenerImagenes() {
+      return imagenes;
+   }
+
+   /**
+    * devuelve el numero de imagenes en que el arranque en
+    * caliente se abandono por deriva del error
+    *
+    * @return numero de reinicios
+    */
+   public int obtenerReinicios() {
+      return reinicios;
+   }
+
+   /**
+    * observador de las iteraciones: en la primera comprueba
+    * la deriva del error y en las siguientes detiene las
+    * iteraciones cuando la mejora relativa no llega a la
+    * tolerancia
+    */
+   private class Observador implements DoublePredicate {
+      /**
+       * error maximo admitido en la primera iteracion
+       */
+      private final double limite;
+
+      /**
+       * error de la iteracion anterior; NaN en la primera
+       */
+      private double errorAnterior = Double.NaN;
+
+      /**
+       * indica si la primera iteracion supero el limite
+       */
+      private boolean derivado;
+
+      /**
+       * constructor de la clase
+       *
+       * @param limite error maximo de la primera iteracion
+       */
+      Observador(double limite) {
+         this.limite = limite;
+      }
+
+      /**
+       * recibe el error de la iteracion
+       *
+       * @param error error cuadratico de la iteracion
+       * @return true para continuar, false para terminar
+       */
+      @Override
+      public boolean test(double error) {
+         double anterior = errorAnterior;
+         errorAnterior = error;
+         if (Double.isNaN(anterior)) {
+            derivado = error > limite;
+            return !derivado;
+         }
+         return tolerancia == 0 || anterior - error > tolerancia * anterior;
+      }
+   }
+}
@@ -1,6 +1,14 @@
 /**
  * paquete para aportar la implementacion del algoritmo de
  * las K-medias para el filtrado de imagenes y reduccion
- * del numero de colores; solo incluye la clase KMedias
+ * del numero de colores. Incluye la clase KMedias y la
+ * clase MapeoPaleta, que sustituye los pixels de una imagen
+ * por los colores de una paleta. La clase KMediasEnLinea
+ * obtiene la paleta recorriendo los pixels por filas, sin
+ * cargar la imagen completa, y la clase KMediasReinicios
+ * ejecuta a la vez varias inicializaciones aleatorias y se
+ * queda con la de menor error. La clase SecuenciaKMedias
+ * agrupa una secuencia de imagenes parecidas partiendo en
+ * cada una de los centros de la anterior
  */
 package kmedias;
\ No newline at end of file
@@ -0,0 +1,153 @@
+package lotes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * etapa del procesamiento por lotes: un grupo de hilos toma
+ * trabajos de una cola de entrada, les aplica una operacion y
+ * los deja en la cola de salida. Las colas son limitadas, de
+ * forma que una etapa rapida se detiene cuando la siguiente no
+ * da abasto. El trabajo fin se reenvia a la propia cola de
+ * entrada para que lo vean todos los hilos, y el ultimo hilo
+ * en terminar lo pasa a la salida
+ */
+class Etapa {
+   /**
+    * hilos de la etapa
+    */
+   private final List<Thread> hilos = new ArrayList<>();
+
+   /**
+    * cola de trabajos pendientes
+    */
+   private final BlockingQueue<Trabajo> entrada;
+
+   /**
+    * cola de trabajos procesados; null en la ultima etapa
+    */
+   private final BlockingQueue<Trabajo> salida;
+
+   /**
+    * operacion de la etapa; devuelve null si el trabajo no
+    * puede continuar
+    */
+   private final UnaryOperator<Trabajo> operacion;
+
+   /**
+    * tiempos de la operacion para cada trabajo
+    */
+   private final Latencias latencias;
+
+   /**
+    * hilos que aun no han recibido el trabajo fin
+    */
+   private final AtomicInteger activos;
+
+   /**
+    * trabajos que no han podido completarse
+    */
+   private final AtomicInteger fallidos = new AtomicInteger();
+
+   /**
+    * constructor de la clase
+    *
+    * @param nombre    nombre de la etapa
+    * @param hilos     numero de hilos
+    * @param entrada   cola de trabajos pendientes
+    * @param salida    cola de trabajos procesados, o null
+    * @param operacion operacion a aplicar a cada trabajo
+    */
+   Etapa(String nombre, int hilos, BlockingQueue<Trabajo> entrada,
+         BlockingQueue<Trabajo> salida, UnaryOperator<Trabajo> operacion) {
+      if (hilos < 1) {
+         throw new IllegalArgumentException("numero de hilos no valido: " + hilos);
+      }
+      this.entrada = entrada;
+      this.salida = salida;
+      this.operacion = operacion;
+      latencias = new Latencias(nombre);
+      activos = new AtomicInteger(hilos);
+      for (int i = 0; i < hilos; i++) {
+         this.hilos.add(new Thread(this::procesar, nombre + "-" + i));
+      }
+   }
+
+   /**
+    * arranca los hilos de la etapa
+    */
+   void iniciar() {
+      hilos.forEach(Thread::start);
+   }
+
+   /**
+    * espera a que terminen todos los hilos de la etapa
+    *
+    * @throws InterruptedException si se interrumpe la espera
+    */
+   void esperar() throws InterruptedException {
+      for (Thread hilo : hilos) {
+         hilo.join();
+      }
+   }
+
+   /**
+    * devuelve los tiempos de la operacion
+    *
+    * @return latencias de la etapa
+    */
+   Latencias obtenerLatencias() {
+      return latencias;
+   }
+
+   /**
+    * devuelve el numero de trabajos que no se han completado
+    *
+    * @return trabajos fallidos
+    */
+   int obtenerFallidos() {
+      return fallidos.get();
+   }
+
+   /**
+    * bucle de cada hilo: procesa trabajos hasta recibir el
+    * trabajo fin
+    */
+   private void procesar() {
+      try {
+         Trabajo trabajo = entrada.take();
+         while (trabajo != Trabajo.fin) {
+            long inicio = System.nanoTime();
+            Trabajo resultado = null;
+            try {
+               resultado = operacion.apply(trabajo);
+            } catch (RuntimeException e) {
+               // un error en una imagen no detiene el lote
+               System.out.println("error procesando " + trabajo.obtenerOrigen());
+               System.out.println(e);
+            }
+            latencias.registrar(System.nanoTime() - inicio);
+
+            // se pasa el trabajo a la etapa siguiente
+            if (resultado == null) {
+               fallidos.incrementAndGet();
+            } else if (salida != null) {
+               salida.put(resultado);
+            }
+            trabajo = entrada.take();
+         }
+
+         // se devuelve el fin para el resto de hilos; el ultimo
+         // avisa a la etapa siguiente
+         entrada.put(Trabajo.fin);
+         if (activos.decrementAndGet() == 0 && salida != null) {
+            salida.put(Trabajo.fin);
+         }
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
@@ -0,0 +1,85 @@
+package lotes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * clase para registrar los tiempos de las imagenes que pasan
+ * por una etapa y obtener sus percentiles. Se puede usar
+ * desde varios hilos a la vez
+ */
+public class Latencias {
+   /**
+    * nombre de la etapa
+    */
+   private final String nombre;
+
+   /**
+    * tiempos registrados, en nanosegundos
+    */
+   private final List<Long> tiempos = new ArrayList<>();
+
+   /**
+    * constructor de la clase
+    *
+    * @param nombre nombre de la etapa
+    */
+   public Latencias(String nombre) {
+      this.nombre = nombre;
+   }
+
+   /**
+    * registra el tiempo de una imagen
+    *
+    * @param nanos tiempo en nanosegundos
+    */
+   public synchronized void registrar(long nanos) {
+      tiempos.add(nanos);
+   }
+
+   /**
+    * devuelve el numero de tiempos registrados
+    *
+    * @return numero de imagenes
+    */
+   public synchronized int obtenerContador() {
+      return tiempos.size();
+   }
+
+   /**
+    * calcula un percentil de los tiempos por el metodo del
+    * rango mas cercano: el menor tiempo que es mayor o igual
+    * que el porcentaje indicado de los tiempos
+    *
+    * @param porcentaje percentil deseado, entre 0 y 100
+    * @return tiempo en milisegundos, o NaN si no hay tiempos
+    */
+   public synchronized double obtenerPercentil(double porcentaje) {
+      if (porcentaje < 0 || porcentaje > 100) {
+         throw new IllegalArgumentException("percentil no valido: " + porcentaje);
+      }
+      if (tiempos.isEmpty()) {
+         return Double.NaN;
+      }
+
+      // se ordena una copia para no alterar el registro
+      List<Long> ordenados = new ArrayList<>(tiempos);
+      Collections.sort(ordenados);
+      int rango = (int) Math.ceil(porcentaje / 100 * ordenados.size());
+      return ordenados.get(Math.max(rango - 1, 0)) / 1e6;
+   }
+
+   /**
+    * genera una linea con el nombre de la etapa y sus
+    * percentiles 50, 90 y 99 y el maximo
+    *
+    * @return linea de informe
+    */
+   @Override
+   public String toString() {
+      return String.format("%-14s %6d %9.1f %9.1f %9.1f %9.1f", nombre, obtenerContador(),
+              obtenerPercentil(50), obtenerPercentil(90), obtenerPercentil(99),
+              obtenerPercentil(100));
+   }
+}
@@ -0,0 +1,413 @@
+package lotes;
+
+import algoritmo.AlgoritmoMiniLotes;
+import algoritmo.ModoAlgoritmo;
+import convergencia.ModoConvergencia;
+import imagen.Imagen;
+import imagen.ModoPrecision;
+import imagen.Utilidades;
+import inicializacion.ModoInicializacion;
+import kmedias.KMedias;
+import kmedias.SecuenciaKMedias;
+
+import javax.imageio.ImageIO;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * aplicacion de linea de ordenes para filtrar un lote de
+ * imagenes sin interfaz grafica. El proceso se divide en tres
+ * etapas que trabajan a la vez sobre imagenes distintas:
+ * carga, agrupamiento con las k-medias y almacenamiento. Entre
+ * etapas hay colas limitadas, de forma que en memoria solo
+ * estan las imagenes que se procesan y unas pocas en espera.
+ * Cada imagen se agrupa en un solo hilo, tambien con el
+ * algoritmo PARALELO (que recibe un unico hilo y calcula en
+ * el hilo que lo llama), y el paralelismo se obtiene
+ * procesando varias imagenes a la vez, de forma que -hilos
+ * limita los procesadores usados al agrupar. La excepcion es
+ * la inicializacion MUESTREO_KMEDIAS_PP, cuyas rondas usan el
+ * conjunto de hilos comun de Java. Con la opcion
+ * -deriva cada hilo de agrupamiento parte de los centros de
+ * la ultima imagen que agrupo; con un hilo de carga y otro de
+ * agrupamiento las imagenes se agrupan en orden, como los
+ * fotogramas de un video. Al final se informa del numero de
+ * imagenes por segundo y de los percentiles del tiempo de
+ * cada etapa
+ */
+public class ProcesadorLotes {
+   /**
+    * numero de colores de la imagen filtrada
+    */
+   private int k;
+
+   /**
+    * forma de inicializar los centros
+    */
+   private ModoInicializacion modoInicializacion = ModoInicializacion.MUESTREO_ALEATORIO;
+
+   /**
+    * criterio de parada
+    */
+   private ModoConvergencia modoConvergencia = ModoConvergencia.ITERACIONES;
+
+   /**
+    * maximo numero de iteraciones
+    */
+   private int maxIteraciones = 10;
+
+   /**
+    * umbral de los criterios de estabilidad y ruido
+    */
+   private double umbral = 0;
+
+   /**
+    * forma de realizar las iteraciones
+    */
+   private ModoAlgoritmo modoAlgoritmo = ModoAlgoritmo.CLASICO;
+
+   /**
+    * precision de los calculos de distancia
+    */
+   private ModoPrecision precision = ModoPrecision.DOBLE;
+
+   /**
+    * hilos de carga de imagenes
+    */
+   private int lectores = 1;
+
+   /**
+    * hilos de agrupamiento: por defecto, uno por procesador
+    */
+   private int agrupadores = Runtime.getRuntime().availableProcessors();
+
+   /**
+    * hilos de almacenamiento de imagenes
+    */
+   private int escritores = 1;
+
+   /**
+    * capacidad de las colas entre etapas
+    */
+   private int capacidad = 2;
+
+   /**
+    * aumento relativo del error permitido al partir de los
+    * centros de la imagen anterior; NaN para agrupar cada
+    * imagen desde cero
+    */
+   private double deriva = Double.NaN;
+
+   /**
+    * mejora relativa minima del error para seguir iterando
+    * cuando se encadenan imagenes
+    */
+   private double tolerancia = 0;
+
+   /**
+    * secuencia de cada hilo de agrupamiento cuando se
+    * encadenan imagenes: cada hilo parte de los centros de la
+    * ultima imagen que agrupo
+    */
+   private final ThreadLocal<SecuenciaKMedias> secuencias = ThreadLocal.withInitial(() ->
+           SecuenciaKMedias.factoria(k, modoInicializacion, modoConvergencia, maxIteraciones,
+                   umbral, modoAlgoritmo, 1, AlgoritmoMiniLotes.tamLotePredeterminado,
+                   AlgoritmoMiniLotes.pasadasPredeterminadas, precision, deriva, tolerancia));
+
+   /**
+    * tiempos desde el inicio de la carga de cada imagen hasta
+    * el final de su almacenamiento, incluidas las esperas
+    */
+   private final Latencias total = new Latencias("total");
+
+   /**
+    * busca las imagenes a procesar: todos los ficheros de
+    * imagen de un directorio o los que cumplen un patron
+    * (por ejemplo data/*.png). Se devuelven ordenadas por nombre
+    *
+    * @param entrada directorio o patron
+    * @return rutas de las imagenes
+    * @throws IOException si no se puede leer el directorio
+    */
+   static List<Path> buscarImagenes(String entrada) throws IOException {
+      Path ruta = Paths.get(entrada);
+      Path directorio;
+      String patron;
+      if (Files.isDirectory(ruta)) {
+         // se admiten las extensiones que sabe leer ImageIO
+         directorio = ruta;
+         patron = "*.{" + String.join(",", ImageIO.getReaderFileSuffixes()) + "}";
+      } else {
+         directorio = ruta.getParent() == null ? Paths.get(".") : ruta.getParent();
+         patron = ruta.getFileName().toString();
+      }
+
+      List<Path> imagenes = new ArrayList<>();
+      try (DirectoryStream<Path> ficheros = Files.newDirectoryStream(directorio, patron)) {
+         for (Path fichero : ficheros) {
+            if (Files.isRegularFile(fichero)) {
+               imagenes.add(fichero);
+            }
+         }
+      }
+      Collections.sort(imagenes);
+      return imagenes;
+   }
+
+   /**
+    * procesa un lote de imagenes e informa de los tiempos
+    *
+    * @param imagenes rutas de las imagenes
+    * @param salida   directorio donde se guardan las imagenes
+    *                 filtradas, en PNG y con el mismo nombre
+    * @throws IOException          si no se puede crear el
+    *                              directorio de salida
+    * @throws InterruptedException si se interrumpe la espera
+    */
+   void procesar(List<Path> imagenes, Path salida) throws IOException, InterruptedException {
+      Files.createDirectories(salida);
+
+      // la cola de entrada contiene todos los trabajos desde
+      // el principio; las intermedias son limitadas
+      BlockingQueue<Trabajo> pendientes = new LinkedBlockingQueue<>();
+      BlockingQueue<Trabajo> cargadas = new ArrayBlockingQueue<>(capacidad);
+      BlockingQueue<Trabajo> filtradas = new ArrayBlockingQueue<>(capacidad);
+      for (Path imagen : imagenes) {
+         // se conserva la extension original si no es png, para
+         // que barco.png y barco.jpeg no den el mismo fichero
+         String nombre = imagen.getFileName().toString();
+         if (!nombre.toLowerCase(Locale.ROOT).endsWith(".png")) {
+            nombre += ".png";
+         }
+         pendientes.add(new Trabajo(imagen, salida.resolve(nombre)));
+      }
+      pendientes.add(Trabajo.fin);
+
+      // se crean las etapas
+      List<Etapa> etapas = Arrays.asList(
+              new Etapa("carga", lectores, pendientes, cargadas, this::cargar),
+              new Etapa("agrupamiento", agrupadores, cargadas, filtradas, this::agrupar),
+              new Etapa("almacenamiento", escritores, filtradas, null, this::salvar));
+
+      // se arrancan y se espera a que terminen
+      long inicio = System.nanoTime();
+      for (Etapa etapa : etapas) {
+         etapa.iniciar();
+      }
+      for (Etapa etapa : etapas) {
+         etapa.esperar();
+      }
+      double segundos = (System.nanoTime() - inicio) / 1e9;
+
+      // se informa del resultado
+      int fallidas = etapas.stream().mapToInt(Etapa::obtenerFallidos).sum();
+      int procesadas = total.obtenerContador();
+      System.out.println("imagenes procesadas: " + procesadas + " (fallidas: " + fallidas + ")");
+      System.out.printf(Locale.ROOT, "tiempo total: %.2f s%n", segundos);
+      System.out.printf(Locale.ROOT, "rendimiento: %.2f imagenes/s%n", procesadas / segundos);
+      System.out.printf(Locale.ROOT, "%-14s %6s %9s %9s %9s %9s%n", "etapa (ms)", "n", "p50",
+              "p90", "p99", "max");
+      for (Etapa etapa : etapas) {
+         System.out.println(etapa.obtenerLatencias());
+      }
+      System.out.println(total);
+   }
+
+   /**
+    * operacion de la etapa de carga
+    *
+    * @param trabajo trabajo a procesar
+    * @return trabajo con la imagen cargada, o null si no se
+    * ha podido leer
+    */
+   private Trabajo cargar(Trabajo trabajo) {
+      trabajo.marcarInicio();
+      Imagen imagen = Utilidades.cargarImagen(trabajo.obtenerOrigen().toString());
+      if (imagen == null) {
+         return null;
+      }
+      trabajo.asignarImagen(imagen);
+      return trabajo;
+   }
+
+   /**
+    * operacion de la etapa de agrupamiento: la imagen cargada
+    * se sustituye por la filtrada
+    *
+    * @param trabajo trabajo a procesar
+    * @return trabajo con la imagen filtrada y su paleta
+    */
+   private Trabajo agrupar(Trabajo trabajo) {
+      if (!Double.isNaN(deriva)) {
+         // se parte de los centros de la imagen anterior
+         SecuenciaKMedias secuencia = secuencias.get();
+         trabajo.asignarImagen(secuencia.agrupar(trabajo.obtenerImagen()));
+         trabajo.asignarPaleta(secuencia.obtenerCentros());
+         return trabajo;
+      }
+
+      // un unico hilo por imagen: el paralelismo esta entre
+      // los hilos de la etapa
+      KMedias kmedias = KMedias.factoria(k, modoInicializacion, modoConvergencia,
+              maxIteraciones, umbral, trabajo.obtenerImagen(), modoAlgoritmo, 1,
+              AlgoritmoMiniLotes.tamLotePredeterminado,
+              AlgoritmoMiniLotes.pasadasPredeterminadas, precision);
+      trabajo.asignarImagen(kmedias.agrupar(false));
+      trabajo.asignarPaleta(kmedias.obtenerCentrosT1());
+      return trabajo;
+   }
+
+   /**
+    * operacion de la etapa de almacenamiento
+    *
+    * @param trabajo trabajo a procesar
+    * @return el mismo trabajo
+    */
+   private Trabajo salvar(Trabajo trabajo) {
+      Utilidades.salvarImagen(trabajo.obtenerImagen(), trabajo.obtenerPaleta(),
+              trabajo.obtenerDestino().toString());
+      total.registrar(System.nanoTime() - trabajo.obtenerInicio());
+      return trabajo;
+   }
+
+   /**
+    * interpreta las opciones de la linea de ordenes, de la
+    * forma -opcion valor
+    *
+    * @param opciones argumentos a partir del cuarto
+    */
+   private void interpretarOpciones(String[] opciones) {
+      if (opciones.length % 2 != 0) {
+         throw new IllegalArgumentException("falta el valor de " +
+                 opciones[opciones.length - 1]);
+      }
+      for (int i = 0; i < opciones.length; i += 2) {
+         String valor = opciones[i + 1];
+         switch (opciones[i]) {
+            case "-inicializacion":
+               modoInicializacion = ModoInicializacion.valueOf(valor);
+               break;
+            case "-convergencia":
+               modoConvergencia = ModoConvergencia.valueOf(valor);
+               break;
+            case "-iteraciones":
+               maxIteraciones = Integer.parseInt(valor);
+               break;
+            case "-umbral":
+               umbral = Double.parseDouble(valor);
+               break;
+            case "-algoritmo":
+               modoAlgoritmo = ModoAlgoritmo.valueOf(valor);
+               break;
+            case "-precision":
+               precision = ModoPrecision.valueOf(valor);
+               break;
+            case "-lectores":
+               lectores = Integer.parseInt(valor);
+               break;
+            case "-hilos":
+               agrupadores = Integer.parseInt(valor);
+               break;
+            case "-escritores":
+               escritores = Integer.parseInt(valor);
+               break;
+            case "-cola":
+               capacidad = Integer.parseInt(valor);
+               break;
+            case "-deriva":
+               deriva = Double.parseDouble(valor);
+               break;
+            case "-tolerancia":
+               tolerancia = Double.parseDouble(valor);
+               break;
+            default:
+               throw new IllegalArgumentException("opcion desconocida: " + opciones[i]);
+         }
+      }
+      if (capacidad < 1) {
+         throw new IllegalArgumentException("capacidad de cola no valida: " + capacidad);
+      }
+      if (deriva < 0) {
+         throw new IllegalArgumentException("deriva no valida: " + deriva);
+      }
+      if (tolerancia < 0) {
+         throw new IllegalArgumentException("tolerancia no valida: " + tolerancia);
+      }
+   }
+
+   /**
+    * muestra la forma de uso de la aplicacion
+    */
+   private static void mostrarUso() {
+      System.out.println("uso: java lotes.ProcesadorLotes entrada salida k [opciones]");
+      System.out.println("   entrada: directorio o patron de ficheros (por ejemplo " +
+              "'data/*.png')");
+      System.out.println("   salida: directorio para las imagenes filtradas");
+      System.out.println("   k: numero de colores");
+      System.out.println("opciones:");
+      System.out.println("   -inicializacion " + Arrays.toString(ModoInicializacion.values()));
+      System.out.println("   -convergencia " + Arrays.toString(ModoConvergencia.values()));
+      System.out.println("   -iteraciones maximo de iteraciones (10)");
+      System.out.println("   -umbral umbral de estabilidad o ruido (0)");
+      System.out.println("   -algoritmo " + Arrays.toString(ModoAlgoritmo.values()));
+      System.out.println("   -precision " + Arrays.toString(ModoPrecision.values()));
+      System.out.println("   -lectores hilos de carga (1)");
+      System.out.println("   -hilos hilos de agrupamiento, uno por imagen (uno por " +
+              "procesador)");
+      System.out.println("   -escritores hilos de almacenamiento (1)");
+      System.out.println("   -cola capacidad de las colas entre etapas (2)");
+      System.out.println("   -deriva partir de los centros de la imagen anterior del " +
+              "mismo hilo,");
+      System.out.println("      reiniciando si el error crece mas de esta fraccion " +
+              "(por ejemplo 0.5)");
+      System.out.println("   -tolerancia con -deriva, mejora relativa minima del error " +
+              "para seguir iterando (0)");
+   }
+
+   /**
+    * metodo main para lanzar la aplicacion
+    *
+    * @param args entrada, salida, k y opciones
+    */
+   public static void main(String[] args) {
+      if (args.length < 3) {
+         mostrarUso();
+         return;
+      }
+
+      ProcesadorLotes procesador = new ProcesadorLotes();
+      try {
+         procesador.k = Integer.parseInt(args[2]);
+         procesador.interpretarOpciones(Arrays.copyOfRange(args, 3, args.length));
+      } catch (IllegalArgumentException e) {
+         System.out.println(e.getMessage());
+         mostrarUso();
+         return;
+      }
+
+      try {
+         List<Path> imagenes = buscarImagenes(args[0]);
+         if (imagenes.isEmpty()) {
+            System.out.println("no hay imagenes en " + args[0]);
+            return;
+         }
+         procesador.procesar(imagenes, Paths.get(args[1]));
+      } catch (IOException e) {
+         System.out.println("error de acceso a ficheros");
+         System.out.println(e);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+}
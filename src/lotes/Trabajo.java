@@ -0,0 +1,127 @@
+package lotes;
+
+import imagen.Imagen;
+import imagen.Pixel;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * clase con los datos de una imagen que avanza por las etapas
+ * del procesamiento por lotes: cada etapa completa los datos
+ * que necesita la siguiente
+ */
+class Trabajo {
+   /**
+    * trabajo especial que indica que no quedan imagenes
+    */
+   final static Trabajo fin = new Trabajo(null, null);
+
+   /**
+    * fichero de la imagen original
+    */
+   private final Path origen;
+
+   /**
+    * fichero donde se guarda la imagen filtrada
+    */
+   private final Path destino;
+
+   /**
+    * instante (System.nanoTime) en que empieza la carga
+    */
+   private long inicio;
+
+   /**
+    * imagen cargada o, tras el agrupamiento, filtrada
+    */
+   private Imagen imagen;
+
+   /**
+    * centros finales de las k-medias, usados como paleta
+    * al guardar
+    */
+   private List<Pixel> paleta;
+
+   /**
+    * constructor de la clase
+    *
+    * @param origen  fichero de la imagen original
+    * @param destino fichero para la imagen filtrada
+    */
+   Trabajo(Path origen, Path destino) {
+      this.origen = origen;
+      this.destino = destino;
+   }
+
+   /**
+    * devuelve el fichero de la imagen original
+    *
+    * @return ruta de origen
+    */
+   Path obtenerOrigen() {
+      return origen;
+   }
+
+   /**
+    * devuelve el fichero de la imagen filtrada
+    *
+    * @return ruta de destino
+    */
+   Path obtenerDestino() {
+      return destino;
+   }
+
+   /**
+    * anota el instante en que empieza la carga, desde el que
+    * se mide la latencia total
+    */
+   void marcarInicio() {
+      inicio = System.nanoTime();
+   }
+
+   /**
+    * devuelve el instante en que empezo la carga
+    *
+    * @return instante en nanosegundos
+    */
+   long obtenerInicio() {
+      return inicio;
+   }
+
+   /**
+    * devuelve la imagen actual del trabajo
+    *
+    * @return imagen
+    */
+   Imagen obtenerImagen() {
+      return imagen;
+   }
+
+   /**
+    * asigna la imagen actual del trabajo
+    *
+    * @param imagen imagen cargada o filtrada
+    */
+   void asignarImagen(Imagen imagen) {
+      this.imagen = imagen;
+   }
+
+   /**
+    * devuelve la paleta de la imagen filtrada
+    *
+    * @return centros finales
+    */
+   List<Pixel> obtenerPaleta() {
+      return paleta;
+   }
+
+   /**
+    * asigna la paleta de la imagen filtrada
+    *
+    * @param paleta centros finales
+    */
+   void asignarPaleta(List<Pixel> paleta) {
+      this.paleta = paleta;
+   }
+}
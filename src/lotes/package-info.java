@@ -0,0 +1,12 @@
+/**
+ * paquete para el filtrado de lotes de imagenes desde la
+ * linea de ordenes, sin interfaz grafica:
+ * a) ProcesadorLotes: aplicacion principal; divide el proceso
+ * en etapas de carga, agrupamiento y almacenamiento que
+ * trabajan a la vez sobre imagenes distintas
+ * b) Etapa: grupo de hilos que toma trabajos de una cola
+ * limitada y deja el resultado en la siguiente
+ * c) Trabajo: datos de una imagen a lo largo de las etapas
+ * d) Latencias: registro de tiempos y calculo de percentiles
+ */
+package lotes;
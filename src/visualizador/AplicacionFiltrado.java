@@ -1,10 +1,16 @@
 package visualizador;
 
+import algoritmo.AlgoritmoMiniLotes;
+import algoritmo.ModoAlgoritmo;
 import convergencia.*;
 import imagen.Imagen;
+import imagen.ModoPrecision;
+import imagen.Pixel;
 import imagen.Utilidades;
 import inicializacion.ModoInicializacion;
+import inicializacion.SeleccionPrevia;
 import kmedias.KMedias;
+import kmedias.KMediasReinicios;
 
 import javax.swing.*;
 import javax.swing.border.*;
@@ -12,6 +18,7 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
+import java.util.List;
 
 /**
  * clase para proporcionar la interfaz de la aplicacion
@@ -26,7 +33,13 @@ public class AplicacionFiltrado extends JFrame {
    /**
     * alto predeterminado del panel
     */
-   private final static int altoPanel = 420;
+   private final static int altoPanel = 780;
+
+   /**
+    * maximo de iteraciones de refinamiento cuando se parte de
+    * los centros de la ejecucion anterior
+    */
+   private final static int iteracionesRefinamiento = 3;
 
    /**
     * alto predeterminado de la ventana de texto
@@ -55,6 +68,23 @@ public class AplicacionFiltrado extends JFrame {
     */
    private JRadioButton seleccionUniforme = null;
 
+   /**
+    * boton de seleccion de inicializacion mediante k-medias++
+    */
+   private JRadioButton muestreoKMediasPP = null;
+
+   /**
+    * boton de seleccion de inicializacion mediante la paleta
+    * de un arbol octal
+    */
+   private JRadioButton cuantizacionOctree = null;
+
+   /**
+    * boton de seleccion de inicializacion mediante la paleta
+    * del algoritmo de Wu
+    */
+   private JRadioButton cuantizacionWu = null;
+
    /**
     * boton de seleccion del criterio de parada por
     * numero de iteraciones
@@ -78,6 +108,60 @@ public class AplicacionFiltrado extends JFrame {
     */
    private JSpinner numeroColores = null;
 
+   /**
+    * selector de la forma de realizar las iteraciones
+    */
+   private JComboBox<ModoAlgoritmo> modoAlgoritmo = null;
+
+   /**
+    * selector del numero de hilos para el modo paralelo
+    */
+   private JSpinner numeroHilos = null;
+
+   /**
+    * campo para indicar el tamaño de lote del modo por mini
+    * lotes
+    */
+   private JSpinner tamLote = null;
+
+   /**
+    * campo para indicar el numero de pasadas por iteracion del
+    * modo por mini lotes
+    */
+   private JSpinner pasadas = null;
+
+   /**
+    * selector de la precision de los calculos de distancia
+    */
+   private JComboBox<ModoPrecision> modoPrecision = null;
+
+   /**
+    * campo para indicar el numero de reinicios con distintas
+    * semillas
+    */
+   private JSpinner numeroReinicios = null;
+
+   /**
+    * casilla para partir de los centros de la ejecucion
+    * anterior al cambiar el numero de colores
+    */
+   private JCheckBox incremental = null;
+
+   /**
+    * imagen agrupada en la ultima ejecucion
+    */
+   private Imagen imagenOriginal = null;
+
+   /**
+    * imagen filtrada en la ultima ejecucion
+    */
+   private Imagen imagenFiltrada = null;
+
+   /**
+    * centros finales de la ultima ejecucion
+    */
+   private List<Pixel> centrosAnteriores = null;
+
    /**
     * campo para indicar el maximo numero permitido de iteraciones
     */
@@ -204,11 +288,21 @@ public class AplicacionFiltrado extends JFrame {
       // del mismo sera:
       // |----------------------------------
       // | numero de colores | spinner seleccion |
+      // | algoritmo         | lista seleccion   |
+      // | hilos             | spinner seleccion |
+      // | tamaño de lote    | spinner seleccion |
+      // | pasadas           | spinner seleccion |
+      // | precision         | lista seleccion   |
+      // | reinicios         | spinner seleccion |
+      // | cambio de k       | casilla           |
       // |                 separador             |
       // |           modo de sel. de colores     |
       // | muestreo aletaorio |                  |
       // | muestreo uniforme  |                  |
       // | muestreo estratificado |              |
+      // | k-medias++        |                   |
+      // | arbol octal       |                   |
+      // | cuantizacion Wu   |                   |
       // |                 separador             |
       // |           criterio de parada          |
       // | iteraciones       | spinner           |
@@ -223,25 +317,48 @@ public class AplicacionFiltrado extends JFrame {
       // se crea el control para el numero de colores deseados
       crearPanelColores(panelControles);
 
+      // se crea el control para la forma de iterar (fila 1)
+      crearPanelAlgoritmo(panelControles, 1);
+
+      // se crea el control para el numero de hilos (fila 2)
+      crearPanelHilos(panelControles, 2);
+
+      // se crean los controles del modo por mini lotes (filas
+      // 3 y 4)
+      crearPanelMiniLotes(panelControles, 3);
+
+      // se crea el control para la precision (fila 5)
+      crearPanelPrecision(panelControles, 5);
+
+      // se crea el control para el numero de reinicios (fila 6)
+      crearPanelReinicios(panelControles, 6);
+
+      // se crea el control para el modo incremental (fila 7)
+      crearPanelIncremental(panelControles, 7);
+
       // se crea un separador
-      crearSeparador(panelControles, 1, 0, 2);
+      crearSeparador(panelControles, 8, 0, 2);
 
       // se crea el panel para la seleccion de forma de inicializacion
-      // (a partir de la fila 2)
-      crearPanelInicializacion(panelControles, 2);
+      // (a partir de la fila 9): una fila para la etiqueta y otra
+      // para cada modo
+      int fila = 9;
+      crearPanelInicializacion(panelControles, fila);
+      fila += ModoInicializacion.values().length + 1;
 
       // se crea un separador
-      crearSeparador(panelControles, 6, 0, 2);
+      crearSeparador(panelControles, fila++, 0, 2);
 
       // se crea el panal para seleccion del modo de convergencia
-      // los elementos ocupan a partir de la fila 7
-      crearPanelConvergencia(panelControles, 7);
+      // los elementos ocupan a partir de la fila siguiente
+      crearPanelConvergencia(panelControles, fila);
+      fila += ModoConvergencia.values().length + 1;
 
       // se crea un separador
-      crearSeparador(panelControles, 11, 0, 2);
+      crearSeparador(panelControles, fila++, 0, 2);
 
       // se crean los botones de accion
-      crearPanelAccion(panelControles, 12);
+      crearPanelAccion(panelControles, fila);
 
       // se devuelve el panel
       return panelControles;
@@ -280,6 +397,223 @@ public class AplicacionFiltrado extends JFrame {
       numeroColores.setPreferredSize(new Dimension(100, 30));
    }
 
+   /**
+    * metodo para creacion del control de seleccion de la
+    * forma de realizar las iteraciones
+    *
+    * @param panel panel donde se agregan los controles
+    * @param fila  fila de posicionado
+    */
+   private void crearPanelAlgoritmo(JPanel panel, int fila) {
+      // se crea la etiqueta
+      JLabel etiqueta = new JLabel("Algoritmo");
+
+      // se agrega al panel
+      GridBagConstraints c = new GridBagConstraints();
+      c.fill = GridBagConstraints.VERTICAL;
+      c.gridx = 0;
+      c.gridy = fila;
+      c.insets = new Insets(10, 15, 0, 0);
+      panel.add(etiqueta, c);
+
+      // se crea la lista con todos los modos disponibles
+      modoAlgoritmo = new JComboBox<>(ModoAlgoritmo.values());
+
+      // se agrega al panel
+      c = new GridBagConstraints();
+      c.fill = GridBagConstraints.VERTICAL;
+      c.gridx = 1;
+      c.gridy = fila;
+      c.insets = new Insets(10, 15, 0, 0);
+      panel.add(modoAlgoritmo, c);
+
+      // se fija la dimension de la lista
+      modoAlgoritmo.setPreferredSize(new Dimension(100, 30));
+   }
+
+   /**
+    * metodo para creacion del control de seleccion del numero
+    * de hilos usados por el modo paralelo
+    *
+    * @param panel panel donde se agregan los controles
+    * @param fila  fila de posicionado
+    */
+   private void crearPanelHilos(JPanel panel, int fila) {
+      // se crea la etiqueta
+      JLabel etiqueta = new JLabel("Hilos");
+
+      // se agrega al panel
+      GridBagConstraints c = new GridBagConstraints();
+      c.fill = GridBagConstraints.VERTICAL;
+      c.gridx = 0;
+      c.gridy = fila;
+      c.insets = new Insets(10, 15, 0, 0);
+      panel.add(etiqueta, c);
+
+      // se crea el elemento de seleccion del valor: por
+      // defecto, tantos hilos como procesadores
+      int procesadores = Runtime.getRuntime().availableProcessors();
+      numeroHilos = new JSpinner(new SpinnerNumberModel(procesadores, 1,
+         Math.max(64, procesadores), 1));
+
+      // se agrega al panel
+      c = new GridBagConstraints();
+      c.fill = GridBagConstraints.VERTICAL;
+      c.gridx = 1;
+      c.gridy = fila;
+      c.insets = new Insets(10, 15, 0, 0);
+      panel.add(numeroHilos, c);
+
+      // se fija la dimension del campo
+      numeroHilos.setPreferredSize(new Dimension(100, 30));
+   }
+
+   /**
+    * metodo para creacion de los controles del tamaño de lote y
+    * del numero de pasadas usados por el modo por mini lotes
+    *
+    * @param panel      panel donde se agregan los controles
+    * @param filaInicio fila inicial
+    */
+   private void crearPanelMiniLotes(JPanel panel, int filaInicio) {
+      // se crean las etiquetas
+      JLabel etiquetaLote = new JLabel("Tamaño de lote");
+      JLabel etiquetaPasadas = new JLabel("Pasadas");
+
+      // se crean los elementos de seleccion de los valores
+      tamLote = new JSpinner(new SpinnerNumberModel(
+         AlgoritmoMiniLotes.tamLotePredeterminado, 1, 1 << 20, 256));
+      pasadas = new JSpinner(new SpinnerNumberModel(
+         AlgoritmoMiniLotes.pasadasPredeterminadas, 1, 1000, 1));
+
+      // se agregan al panel, una fila para cada valor
+      JLabel[] etiquetas = {etiquetaLote, etiquetaPasadas};
+      JSpinner[] selectores = {tamLote, pasadas};
+      for (int i = 0; i < etiquetas.length; i++) {
+         GridBagConstraints c = new GridBagConstraints();
+         c.fill = GridBagConstraints.VERTICAL;
+         c.gridx = 0;
+         c.gridy = filaInicio + i;
+         c.insets = new Insets(10, 15, 0, 0);
+         panel.add(etiquetas[i], c);
+
+         c = new GridBagConstraints();
+         c.fill = GridBagConstraints.VERTICAL;
+         c.gridx = 1;
+         c.gridy = filaInicio + i;
+         c.insets = new Insets(10, 15, 0, 0);
+         panel.add(selectores[i], c);
+
+         // se fija la dimension del campo
+         selectores[i].setPreferredSize(new Dimension(100, 30));
+      }
+   }
+
+   /**
+    * metodo para creacion del control de seleccion de la
+    * precision de los calculos de distancia
+    *
+    * @param panel panel donde se agregan los controles
+    * @param fila  fila de posicionado
+    */
+   private void crearPanelPrecision(JPanel panel, int fila) {
+      // se crea la etiqueta
+      JLabel etiqueta = new JLabel("Precision");
+
+      // se agrega al panel
+      GridBagConstraints c = new GridBagConstraints();
+      c.fill = GridBagConstraints.VERTICAL;
+      c.gridx = 0;
+      c.gridy = fila;
+      c.insets = new Insets(10, 15, 0, 0);
+      panel.add(etiqueta, c);
+
+      // se crea la lista con las precisiones disponibles
+      modoPrecision = new JComboBox<>(ModoPrecision.values());
+
+      // se agrega al panel
+      c = new GridBagConstraints();
+      c.fill = GridBagConstraints.VERTICAL;
+      c.gridx = 1;
+      c.gridy = fila;
+      c.insets = new Insets(10, 15, 0, 0);
+      panel.add(modoPrecision, c);
+
+      // se fija la dimension de la lista
+      modoPrecision.setPreferredSize(new Dimension(100, 30));
+   }
+
+   /**
+    * metodo para creacion del control de seleccion del numero
+    * de reinicios del algoritmo
+    *
+    * @param panel panel donde se agregan los controles
+    * @param fila  fila de posicionado
+    */
+   private void crearPanelReinicios(JPanel panel, int fila) {
+      // se crea la etiqueta
+      JLabel etiqueta = new JLabel("Reinicios");
+
+      // se agrega al panel
+      GridBagConstraints c = new GridBagConstraints();
+      c.fill = GridBagConstraints.VERTICAL;
+      c.gridx = 0;
+      c.gridy = fila;
+      c.insets = new Insets(10, 15, 0, 0);
+      panel.add(etiqueta, c);
+
+      // se crea el elemento de seleccion del valor: por
+      // defecto, una sola ejecucion
+      numeroReinicios = new JSpinner(new SpinnerNumberModel(1, 1, 64, 1));
+
+      // se agrega al panel
+      c = new GridBagConstraints();
+      c.fill = GridBagConstraints.VERTICAL;
+      c.gridx = 1;
+      c.gridy = fila;
+      c.insets = new Insets(10, 15, 0, 0);
+      panel.add(numeroReinicios, c);
+
+      // se fija la dimension del campo
+      numeroReinicios.setPreferredSize(new Dimension(100, 30));
+   }
+
+   /**
+    * metodo para creacion de la casilla que permite partir de
+    * los centros de la ejecucion anterior al cambiar el
+    * numero de colores
+    *
+    * @param panel panel donde se agregan los controles
+    * @param fila  fila de posicionado
+    */
+   private void crearPanelIncremental(JPanel panel, int fila) {
+      // se crea la etiqueta
+      JLabel etiqueta = new JLabel("Cambio de k");
+
+      // se agrega al panel
+      GridBagConstraints c = new GridBagConstraints();
+      c.fill = GridBagConstraints.VERTICAL;
+      c.gridx = 0;
+      c.gridy = fila;
+      c.insets = new Insets(10, 15, 0, 0);
+      panel.add(etiqueta, c);
+
+      // se crea la casilla, desmarcada por defecto: el usuario
+      // decide si quiere partir de los centros anteriores
+      incremental = new JCheckBox("incremental", false);
+
+      // se agrega al panel
+      c = new GridBagConstraints();
+      c.fill = GridBagConstraints.VERTICAL;
+      c.gridx = 1;
+      c.gridy = fila;
+      c.insets = new Insets(10, 15, 0, 0);
+      panel.add(incremental, c);
+
+      // se fija la dimension de la casilla
+      incremental.setPreferredSize(new Dimension(100, 30));
+   }
+
    /**
     * metodo de creacion del panel donde se ubican los controles
     * para seleccionar el modo de inicializacion deseado
@@ -291,7 +625,7 @@ public class AplicacionFiltrado extends JFrame {
       // se crea borde para el panel
       JLabel etiqueta = new JLabel("Modo de seleccion de colores");
 
-      // se agrega la etiqueta al panel: en fila 2, columna 0
+      // se agrega la etiqueta al panel: en la fila inicial, columna 0
       // pero ocupando las dos columnas
       GridBagConstraints c = new GridBagConstraints();
       c.fill = GridBagConstraints.VERTICAL;
@@ -323,12 +657,24 @@ public class AplicacionFiltrado extends JFrame {
                boton = new JRadioButton("Muestreo estratificado");
                muestreoEstratificado = boton;
                break;
+            case MUESTREO_KMEDIAS_PP:
+               boton = new JRadioButton("k-medias++");
+               muestreoKMediasPP = boton;
+               break;
+            case CUANTIZACION_OCTREE:
+               boton = new JRadioButton("Arbol octal");
+               cuantizacionOctree = boton;
+               break;
+            case CUANTIZACION_WU:
+               boton = new JRadioButton("Cuantizacion Wu");
+               cuantizacionWu = boton;
+               break;
          }
 
          // se agrega al grupo
          botones.add(boton);
 
-         // se agrega al panel: en las filas 3, 4 y 5 y
+         // se agrega al panel: en las filas siguientes y
          // columna 0
          GridBagConstraints bc = new GridBagConstraints();
          bc.fill = GridBagConstraints.HORIZONTAL;
@@ -353,7 +699,7 @@ public class AplicacionFiltrado extends JFrame {
       // se crea la etiqueta
       JLabel etiqueta = new JLabel("Criterio de convergencia");
 
-      // se agrega la etiqueta al panel: fila 7, columna 0,
+      // se agrega la etiqueta al panel: fila inicial, columna 0,
       // ocupando dos columnas
       GridBagConstraints c = new GridBagConstraints();
       c.fill = GridBagConstraints.VERTICAL;
@@ -600,10 +946,35 @@ public class AplicacionFiltrado extends JFrame {
             break;
       }
 
-      // se llama al metodo factoria para crear los objetos necesarios
-      KMedias kmedias = KMedias.factoria(obtenerContadorColores(), obtenerModoInicializacion(),
-         obtenerModoConvergencia(), obtenerMaximoIteraciones(), umbral,
-         canvas.obtenerImagen());
+      // con varios reinicios se ejecutan todos y se muestra el
+      // de menor error
+      if (obtenerNumeroReinicios() > 1) {
+         ejecutarReinicios(umbral, tiempo);
+         return;
+      }
+
+      // se llama al metodo factoria para crear los objetos
+      // necesarios. En modo incremental, si se muestra el
+      // resultado anterior, se vuelve a agrupar la imagen
+      // original partiendo de los centros anteriores, divididos
+      // o fusionados si ha cambiado el numero de colores, y
+      // solo se hacen unas pocas iteraciones de refinamiento
+      Imagen origen = obtenerImagenOrigen();
+      KMedias kmedias;
+      if (esIncremental()) {
+         kmedias = KMedias.factoria(obtenerContadorColores(), centrosAnteriores,
+            obtenerModoInicializacion(), obtenerModoConvergencia(),
+            Math.min(obtenerMaximoIteraciones(), iteracionesRefinamiento), umbral, origen,
+            obtenerModoAlgoritmo(), obtenerNumeroHilos(), obtenerTamLote(), obtenerPasadas(),
+            obtenerModoPrecision());
+         info.append("\nincremental: de " + centrosAnteriores.size() + " a " +
+            obtenerContadorColores() + " colores\n");
+      } else {
+         kmedias = KMedias.factoria(obtenerContadorColores(), obtenerModoInicializacion(),
+            obtenerModoConvergencia(), obtenerMaximoIteraciones(), umbral,
+            origen, obtenerModoAlgoritmo(), obtenerNumeroHilos(),
+            obtenerTamLote(), obtenerPasadas(), obtenerModoPrecision());
+      }
 
       // se informa sobre los criterios usados
       informarTexto(obtenerModoInicializacion(), obtenerModoConvergencia());
@@ -613,12 +984,109 @@ public class AplicacionFiltrado extends JFrame {
       canvas.asignarImagen(filtrada);
       tiempo = System.currentTimeMillis() - tiempo;
 
+      // se guarda el estado para la siguiente ejecucion
+      guardarEstado(origen, filtrada, kmedias.obtenerCentrosT2());
+
       // se muestra informacion por la ventana de texto
       // se obtiene el numero de iteraciones usadas del
       // objeto kmedias
       informarTexto(kmedias.obtenerMedidaConvergencia(),
          canvas.obtenerNumeroColores(), tiempo,
          kmedias.obtenerContadorIteraciones());
+
+      // el error cuadratico solo lo calculan las estrategias
+      // de algoritmo
+      if (!Double.isNaN(kmedias.obtenerErrorCuadratico())) {
+         info.append("error cuadratico: " + kmedias.obtenerErrorCuadratico() + "\n");
+      }
+
+      // calculos de distancias evitados en cada iteracion por
+      // las estrategias que usan cotas
+      List<Long> evitadas = kmedias.obtenerDistanciasEvitadas();
+      if (evitadas.stream().anyMatch(valor -> valor > 0)) {
+         info.append("distancias evitadas por iteracion:\n");
+         for (int i = 0; i < evitadas.size(); i++) {
+            info.append("   " + (i + 1) + ": " + evitadas.get(i) + "\n");
+         }
+      }
+   }
+
+   /**
+    * metodo para ejecutar el filtrado con varios reinicios del
+    * algoritmo, quedandose con el de menor error cuadratico
+    *
+    * @param umbral umbral de convergencia seleccionado
+    * @param tiempo instante de inicio del filtrado
+    */
+   private void ejecutarReinicios(double umbral, double tiempo) {
+      // se crean los reinicios, con semilla base distinta en
+      // cada ejecucion
+      Imagen origen = obtenerImagenOrigen();
+      KMediasReinicios reinicios = KMediasReinicios.factoria(obtenerNumeroReinicios(),
+         System.nanoTime(), obtenerContadorColores(), obtenerModoInicializacion(),
+         obtenerModoConvergencia(), obtenerMaximoIteraciones(), umbral,
+         origen, obtenerModoAlgoritmo(), obtenerNumeroHilos(),
+         obtenerTamLote(), obtenerPasadas(), obtenerModoPrecision());
+
+      // se informa sobre los criterios usados
+      informarTexto(obtenerModoInicializacion(), obtenerModoConvergencia());
+
+      // se agrupa con todos los reinicios
+      Imagen filtrada = reinicios.agrupar();
+      canvas.asignarImagen(filtrada);
+      tiempo = System.currentTimeMillis() - tiempo;
+      guardarEstado(origen, filtrada, reinicios.obtenerCentros());
+
+      // se muestra la informacion del reinicio elegido
+      KMedias mejor = reinicios.obtenerMejor();
+      informarTexto(mejor.obtenerMedidaConvergencia(),
+         canvas.obtenerNumeroColores(), tiempo,
+         mejor.obtenerContadorIteraciones());
+      info.append("error cuadratico: " + mejor.obtenerErrorCuadratico() + "\n");
+      info.append("reinicios abandonados: " + reinicios.obtenerCancelados() + "\n");
+   }
+
+   /**
+    * determina la imagen a agrupar: en modo incremental, si el
+    * canvas muestra el resultado de la ultima ejecucion, se
+    * agrupa de nuevo la imagen original; en otro caso, la
+    * imagen mostrada
+    *
+    * @return imagen a agrupar
+    */
+   private Imagen obtenerImagenOrigen() {
+      Imagen mostrada = canvas.obtenerImagen();
+      if (incremental.isSelected() && mostrada == imagenFiltrada) {
+         return imagenOriginal;
+      }
+      return mostrada;
+   }
+
+   /**
+    * determina si se parte de los centros de la ejecucion
+    * anterior
+    *
+    * @return true si el modo incremental esta activo, hay
+    * una ejecucion anterior sobre la misma imagen y el numero
+    * de colores ha cambiado poco
+    */
+   private boolean esIncremental() {
+      return incremental.isSelected() && centrosAnteriores != null &&
+         canvas.obtenerImagen() == imagenFiltrada &&
+         SeleccionPrevia.esAjustable(centrosAnteriores.size(), obtenerContadorColores());
+   }
+
+   /**
+    * guarda el estado de la ultima ejecucion
+    *
+    * @param origen   imagen agrupada
+    * @param filtrada imagen resultado
+    * @param centros  centros finales
+    */
+   private void guardarEstado(Imagen origen, Imagen filtrada, List<Pixel> centros) {
+      imagenOriginal = origen;
+      imagenFiltrada = filtrada;
+      centrosAnteriores = centros;
    }
 
    /**
@@ -636,6 +1104,18 @@ public class AplicacionFiltrado extends JFrame {
          } else {
             if (seleccionUniforme.isSelected()) {
                modo = ModoInicializacion.SELECCION_UNIFORME;
+            } else {
+               if (muestreoKMediasPP.isSelected()) {
+                  modo = ModoInicializacion.MUESTREO_KMEDIAS_PP;
+               } else {
+                  if (cuantizacionOctree.isSelected()) {
+                     modo = ModoInicializacion.CUANTIZACION_OCTREE;
+                  } else {
+                     if (cuantizacionWu.isSelected()) {
+                        modo = ModoInicializacion.CUANTIZACION_WU;
+                     }
+                  }
+               }
             }
          }
       }
@@ -644,6 +1124,24 @@ public class AplicacionFiltrado extends JFrame {
       return modo;
    }
 
+   /**
+    * metodo para determinar la forma de iterar seleccionada
+    *
+    * @return modo de algoritmo seleccionado
+    */
+   private ModoAlgoritmo obtenerModoAlgoritmo() {
+      return (ModoAlgoritmo) modoAlgoritmo.getSelectedItem();
+   }
+
+   /**
+    * metodo para determinar la precision seleccionada
+    *
+    * @return precision de los calculos de distancia
+    */
+   private ModoPrecision obtenerModoPrecision() {
+      return (ModoPrecision) modoPrecision.getSelectedItem();
+   }
+
    /**
     * metodo para determinar el modo de convergencia seleccionado
     *
@@ -675,6 +1173,42 @@ public class AplicacionFiltrado extends JFrame {
       return Integer.parseInt(numeroColores.getValue().toString());
    }
 
+   /**
+    * metodo de acceso al numero de hilos seleccionado
+    *
+    * @return numero de hilos
+    */
+   private int obtenerNumeroHilos() {
+      return Integer.parseInt(numeroHilos.getValue().toString());
+   }
+
+   /**
+    * metodo de acceso al tamaño de lote seleccionado
+    *
+    * @return pixels por lote
+    */
+   private int obtenerTamLote() {
+      return Integer.parseInt(tamLote.getValue().toString());
+   }
+
+   /**
+    * metodo de acceso al numero de pasadas seleccionado
+    *
+    * @return lotes por iteracion
+    */
+   private int obtenerPasadas() {
+      return Integer.parseInt(pasadas.getValue().toString());
+   }
+
+   /**
+    * metodo de acceso al numero de reinicios
+    *
+    * @return numero de reinicios seleccionado
+    */
+   private int obtenerNumeroReinicios() {
+      return Integer.parseInt(numeroReinicios.getValue().toString());
+   }
+
    /**
     * metodo de acceso al maximo de iteraciones
     *
@@ -801,7 +1335,19 @@ public class AplicacionFiltrado extends JFrame {
 
    private void informarTexto(ModoInicializacion modoInicializacion,
                               ModoConvergencia modoConvergencia) {
-      info.append("\nInicializacion: " + modoInicializacion.toString() + "\n");
+      info.append("\nAlgoritmo: " + obtenerModoAlgoritmo().toString() + "\n");
+      if (obtenerModoAlgoritmo() == ModoAlgoritmo.PARALELO) {
+         info.append("hilos: " + obtenerNumeroHilos() + "\n");
+      }
+      if (obtenerModoAlgoritmo() == ModoAlgoritmo.MINI_LOTES) {
+         info.append("tamaño de lote: " + obtenerTamLote() + "\n");
+         info.append("pasadas: " + obtenerPasadas() + "\n");
+      }
+      info.append("Precision: " + obtenerModoPrecision().toString() + "\n");
+      if (obtenerNumeroReinicios() > 1) {
+         info.append("reinicios: " + obtenerNumeroReinicios() + "\n");
+      }
+      info.append("Inicializacion: " + modoInicializacion.toString() + "\n");
       info.append("Convergencia: " + modoConvergencia.toString() + "\n");
       info.append("max. iteraciones: " + obtenerMaximoIteraciones() + "\n");
       switch (modoConvergencia) {
@@ -27,6 +27,12 @@ public class CanvasImagen extends JComponent {
     */
    private Imagen imagen;
 
+   /**
+    * buffer de pintado asociado a la imagen mostrada; se
+    * regenera unicamente cuando cambia la imagen
+    */
+   private BufferedImage buffer;
+
    /**
     * constructor de la clase
     */
@@ -54,6 +60,7 @@ public class CanvasImagen extends JComponent {
     */
    public void asignarImagen(Imagen imagen) {
       this.imagen = imagen;
+      buffer = null;
       repaint();
    }
 
@@ -83,6 +90,7 @@ public class CanvasImagen extends JComponent {
          ruta = ruta + defecto;
          imagen = Utilidades.cargarImagen(ruta);
       }
+      buffer = null;
 
       // se produce el repintado
       repaint();
@@ -146,22 +154,20 @@ public class CanvasImagen extends JComponent {
    public void paintComponent(Graphics graphics) {
       super.paintComponent(graphics);
 
-      // se obtiene el numero de columnas
-      int columnas = imagen.obtenerColumnas();
+      // el buffer solo se crea si ha cambiado la imagen
+      if (buffer == null) {
+         // se obtiene el numero de columnas
+         int columnas = imagen.obtenerColumnas();
 
-      // se obtiene el numero de filas
-      int filas = imagen.obtenerFilas();
+         // se obtiene el numero de filas
+         int filas = imagen.obtenerFilas();
 
-      // se crea buffer
-      BufferedImage buffer = new BufferedImage(columnas, filas,
-         BufferedImage.TYPE_INT_ARGB);
+         // se crea buffer
+         buffer = new BufferedImage(columnas, filas,
+            BufferedImage.TYPE_INT_ARGB);
 
-      // se cargan los datos en el buffer
-      for (int i = 0; i < columnas; i++) {
-         for (int j = 0; j < filas; j++) {
-            int color = imagen.obtenerColorPixel(i, j);
-            buffer.setRGB(i, j, color);
-         }
+         // se cargan todos los datos en el buffer de una vez
+         buffer.setRGB(0, 0, columnas, filas, imagen.obtenerDatos(), 0, columnas);
       }
 
       // se ordena el pintado
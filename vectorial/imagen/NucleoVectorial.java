@@ -0,0 +1,188 @@
+package imagen;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * nucleo de asignacion vectorial (jdk.incubator.vector): cada
+ * registro contiene las componentes de varios pixels
+ * consecutivos, pasadas de float a double, y se calcula a la
+ * vez su distancia a cada centro. El minimo y la posicion del
+ * centro se mantienen en registros, eligiendo por carril con
+ * una mascara, y al final del bloque las posiciones se
+ * guardan directamente en el array de etiquetas. Los calculos
+ * se hacen en double y en el mismo orden que el nucleo
+ * escalar, por lo que el resultado es identico. Solo se carga
+ * por nombre desde NucleoDistancias; para usarlo hay que
+ * compilarlo (esta en el directorio vectorial, fuera de src) y
+ * ejecutar con --add-modules jdk.incubator.vector
+ */
+class NucleoVectorial extends NucleoDistancias {
+   /**
+    * especie de los registros de double: la preferida por el
+    * procesador
+    */
+   private final static VectorSpecies<Double> dobles = DoubleVector.SPECIES_PREFERRED;
+
+   /**
+    * especie para leer las componentes en float: mismo
+    * numero de carriles y la mitad de bits
+    */
+   private final static VectorSpecies<Float> flotantes =
+           VectorSpecies.of(float.class, VectorShape.forBitSize(dobles.vectorBitSize() / 2));
+
+   /**
+    * especie para guardar las etiquetas
+    */
+   private final static VectorSpecies<Integer> enteros =
+           VectorSpecies.of(int.class, flotantes.vectorShape());
+
+   /**
+    * especie de los registros de float de la precision
+    * simple: mismos bits que los de double y el doble de
+    * carriles
+    */
+   private final static VectorSpecies<Float> simples =
+           VectorSpecies.of(float.class, dobles.vectorShape());
+
+   /**
+    * especie para guardar las etiquetas de la precision simple
+    */
+   private final static VectorSpecies<Integer> enterosSimples =
+           VectorSpecies.of(int.class, dobles.vectorShape());
+
+   /**
+    * nucleo escalar para los pixels que no llenan un registro
+    */
+   private final static NucleoEscalar restos = new NucleoEscalar();
+
+   /**
+    * constructor de la clase: se rechaza si los registros
+    * solo tienen un carril, caso en que no hay ganancia
+    */
+   NucleoVectorial() {
+      if (dobles.length() < 2) {
+         throw new UnsupportedOperationException("sin registros vectoriales");
+      }
+   }
+
+   /**
+    * devuelve el nombre del nucleo, con el numero de pixels
+    * por registro
+    *
+    * @return nombre del nucleo
+    */
+   @Override
+   public String obtenerNombre() {
+      return "vectorial (" + dobles.length() + " pixels por registro)";
+   }
+
+   /**
+    * asigna cada pixel del bloque a su centro mas cercano; los
+    * pixels que no llenan un registro se tratan de forma
+    * escalar
+    *
+    * @param rojos     componentes rojas de los pixels
+    * @param verdes    componentes verdes de los pixels
+    * @param azules    componentes azules de los pixels
+    * @param desde     primer pixel del bloque
+    * @param hasta     posicion siguiente al ultimo pixel
+    * @param centros   componentes de los centros
+    * @param etiquetas array donde se guarda el centro de cada
+    *                  pixel
+    * @param posicion  posicion de etiquetas para el primer
+    *                  pixel del bloque
+    */
+   @Override
+   void asignar(float[] rojos, float[] verdes, float[] azules, int desde, int hasta,
+                double[] centros, int[] etiquetas, int posicion) {
+      int carriles = dobles.length();
+      int i = desde;
+      for (; i + carriles <= hasta; i += carriles, posicion += carriles) {
+         DoubleVector rojo = (DoubleVector) FloatVector.fromArray(flotantes, rojos, i).
+                 convertShape(VectorOperators.F2D, dobles, 0);
+         DoubleVector verde = (DoubleVector) FloatVector.fromArray(flotantes, verdes, i).
+                 convertShape(VectorOperators.F2D, dobles, 0);
+         DoubleVector azul = (DoubleVector) FloatVector.fromArray(flotantes, azules, i).
+                 convertShape(VectorOperators.F2D, dobles, 0);
+
+         // minimo y centro de cada carril
+         DoubleVector minima = DoubleVector.broadcast(dobles, Double.MAX_VALUE);
+         DoubleVector grupo = DoubleVector.zero(dobles);
+         for (int j = 0, base = 0; base < centros.length; j++, base += 3) {
+            DoubleVector dr = rojo.sub(centros[base]);
+            DoubleVector dv = verde.sub(centros[base + 1]);
+            DoubleVector da = azul.sub(centros[base + 2]);
+            DoubleVector distancia = dr.mul(dr).add(dv.mul(dv)).add(da.mul(da));
+
+            // solo se actualizan los carriles estrictamente
+            // menores, para conservar el primer centro en los
+            // empates
+            VectorMask<Double> menor = distancia.lt(minima);
+            minima = minima.blend(distancia, menor);
+            grupo = grupo.blend(j, menor);
+         }
+         ((IntVector) grupo.convertShape(VectorOperators.D2I, enteros, 0)).
+                 intoArray(etiquetas, posicion);
+      }
+
+      // pixels restantes
+      for (; i < hasta; i++) {
+         etiquetas[posicion++] = AlmacenPixels.obtenerMasCercano(rojos[i], verdes[i], azules[i],
+                 centros);
+      }
+   }
+
+   /**
+    * asigna cada pixel del bloque con distancias en float,
+    * procesando el doble de pixels por registro que asignar
+    *
+    * @param rojos     componentes rojas de los pixels
+    * @param verdes    componentes verdes de los pixels
+    * @param azules    componentes azules de los pixels
+    * @param desde     primer pixel del bloque
+    * @param hasta     posicion siguiente al ultimo pixel
+    * @param centros   componentes de los centros
+    * @param etiquetas array donde se guarda el centro de cada
+    *                  pixel
+    * @param posicion  posicion de etiquetas para el primer
+    *                  pixel del bloque
+    */
+   @Override
+   void asignarSimple(float[] rojos, float[] verdes, float[] azules, int desde, int hasta,
+                      double[] centros, int[] etiquetas, int posicion) {
+      float[] componentes = convertirSimple(centros);
+      int carriles = simples.length();
+      int i = desde;
+      for (; i + carriles <= hasta; i += carriles, posicion += carriles) {
+         FloatVector rojo = FloatVector.fromArray(simples, rojos, i);
+         FloatVector verde = FloatVector.fromArray(simples, verdes, i);
+         FloatVector azul = FloatVector.fromArray(simples, azules, i);
+
+         // minimo y centro de cada carril
+         FloatVector minima = FloatVector.broadcast(simples, Float.MAX_VALUE);
+         FloatVector grupo = FloatVector.zero(simples);
+         for (int j = 0, base = 0; base < componentes.length; j++, base += 3) {
+            FloatVector dr = rojo.sub(componentes[base]);
+            FloatVector dv = verde.sub(componentes[base + 1]);
+            FloatVector da = azul.sub(componentes[base + 2]);
+            FloatVector distancia = dr.mul(dr).add(dv.mul(dv)).add(da.mul(da));
+            VectorMask<Float> menor = distancia.lt(minima);
+            minima = minima.blend(distancia, menor);
+            grupo = grupo.blend(j, menor);
+         }
+         ((IntVector) grupo.convertShape(VectorOperators.F2I, enterosSimples, 0)).
+                 intoArray(etiquetas, posicion);
+      }
+
+      // pixels restantes, con el mismo calculo en float
+      if (i < hasta) {
+         restos.asignarSimple(rojos, verdes, azules, i, hasta, centros, etiquetas, posicion);
+      }
+   }
+}